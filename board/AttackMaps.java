@@ -0,0 +1,194 @@
+package board;
+
+import pieces.*;
+
+/**
+ * Per-color attack maps for a board: a bitmask of the squares each color attacks
+ * and the number of its pieces attacking every square, so attack queries are a
+ * single lookup. The maps are kept up to date one square change at a time. When a
+ * square changes, only the piece on it and the sliders whose rays reach it (the
+ * first piece along each of the eight rays, if it slides that way) are recomputed;
+ * no other piece's attacks can depend on that square.
+ * Bit (row * 8 + col) stands for a square, as in GameStatus target masks.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+final class AttackMaps {
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+    private static final int NONE = -1;
+
+    private final Piece[][] grid;
+    /** Squares attacked by the piece on each square (including squares of its own side). */
+    private final long[] attacksFrom = new long[64];
+    /** Side whose counts include attacksFrom of each square, or NONE. */
+    private final int[] sideOf = new int[64];
+    private final long[] attacked = new long[2];
+    private final byte[][] counts = new byte[2][64];
+
+    /**
+     * Builds the maps for a grid. The grid is shared, not copied: the board must
+     * call {@link #squareChanged(int, int)} after every change to it.
+     *
+     * @param grid the board grid
+     */
+    AttackMaps(Piece[][] grid) {
+        this.grid = grid;
+        for (int square = 0; square < 64; square++) {
+            sideOf[square] = NONE;
+            add(square);
+        }
+    }
+
+    /**
+     * Constructs a copy of other maps for another grid holding the same position.
+     *
+     * @param other the maps to copy
+     * @param grid the grid of the copied board
+     */
+    AttackMaps(AttackMaps other, Piece[][] grid) {
+        this.grid = grid;
+        System.arraycopy(other.attacksFrom, 0, attacksFrom, 0, 64);
+        System.arraycopy(other.sideOf, 0, sideOf, 0, 64);
+        System.arraycopy(other.attacked, 0, attacked, 0, 2);
+        System.arraycopy(other.counts[WHITE], 0, counts[WHITE], 0, 64);
+        System.arraycopy(other.counts[BLACK], 0, counts[BLACK], 0, 64);
+    }
+
+    /**
+     * Updates the maps after one square of the grid changed.
+     *
+     * @param row the row of the square
+     * @param col the column of the square
+     */
+    void squareChanged(int row, int col) {
+        for (int dir = 0; dir < 8; dir++) {
+            int r = row + Attacks.RAY_ROW[dir];
+            int c = col + Attacks.RAY_COL[dir];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8 && grid[r][c] == null) {
+                r += Attacks.RAY_ROW[dir];
+                c += Attacks.RAY_COL[dir];
+            }
+            // A piece found walking away from the square slides back toward it along the same line
+            if (r >= 0 && r < 8 && c >= 0 && c < 8 && Attacks.slidesAlong(grid[r][c], dir)) {
+                refresh(r * 8 + c);
+            }
+        }
+        refresh(row * 8 + col);
+    }
+
+    /**
+     * Checks whether a color attacks a square.
+     *
+     * @param row the row of the square
+     * @param col the column of the square
+     * @param byBlack true for black's attacks, false for white's
+     * @return true if at least one piece of that color attacks the square
+     */
+    boolean isAttacked(int row, int col, boolean byBlack) {
+        return (attacked[byBlack ? BLACK : WHITE] >>> (row * 8 + col) & 1) != 0;
+    }
+
+    /**
+     * Counts the pieces of a color attacking a square.
+     *
+     * @param row the row of the square
+     * @param col the column of the square
+     * @param byBlack true for black's attacks, false for white's
+     * @return the number of attackers
+     */
+    int count(int row, int col, boolean byBlack) {
+        return counts[byBlack ? BLACK : WHITE][row * 8 + col];
+    }
+
+    /**
+     * Gets every square a color attacks.
+     *
+     * @param byBlack true for black's attacks, false for white's
+     * @return the attacked squares as a bitmask
+     */
+    long attackedSquares(boolean byBlack) {
+        return attacked[byBlack ? BLACK : WHITE];
+    }
+
+    private void refresh(int square) {
+        remove(square);
+        add(square);
+    }
+
+    private void remove(int square) {
+        int side = sideOf[square];
+        if (side == NONE) {
+            return;
+        }
+        byte[] sideCounts = counts[side];
+        long mask = attacksFrom[square];
+        while (mask != 0) {
+            int target = Long.numberOfTrailingZeros(mask);
+            if (--sideCounts[target] == 0) {
+                attacked[side] &= ~(1L << target);
+            }
+            mask &= mask - 1;
+        }
+        attacksFrom[square] = 0;
+        sideOf[square] = NONE;
+    }
+
+    private void add(int square) {
+        Piece piece = grid[square / 8][square % 8];
+        if (piece == null) {
+            return;
+        }
+        int side = piece.getColor().equals("black") ? BLACK : WHITE;
+        long mask = attacksOf(piece, square / 8, square % 8, side);
+        attacksFrom[square] = mask;
+        sideOf[square] = side;
+        attacked[side] |= mask;
+        byte[] sideCounts = counts[side];
+        while (mask != 0) {
+            sideCounts[Long.numberOfTrailingZeros(mask)]++;
+            mask &= mask - 1;
+        }
+    }
+
+    private long attacksOf(Piece piece, int row, int col, int side) {
+        long mask = 0;
+        if (piece instanceof Pawn) {
+            int r = row + (side == WHITE ? -1 : 1);
+            if (r >= 0 && r < 8) {
+                if (col > 0) mask |= bit(r, col - 1);
+                if (col < 7) mask |= bit(r, col + 1);
+            }
+        } else if (piece instanceof Knight) {
+            for (int i = 0; i < 8; i++) {
+                int r = row + Attacks.KNIGHT_ROW[i];
+                int c = col + Attacks.KNIGHT_COL[i];
+                if (r >= 0 && r < 8 && c >= 0 && c < 8) mask |= bit(r, c);
+            }
+        } else if (piece instanceof King) {
+            for (int dir = 0; dir < 8; dir++) {
+                int r = row + Attacks.RAY_ROW[dir];
+                int c = col + Attacks.RAY_COL[dir];
+                if (r >= 0 && r < 8 && c >= 0 && c < 8) mask |= bit(r, c);
+            }
+        } else {
+            for (int dir = 0; dir < 8; dir++) {
+                if (!Attacks.slidesAlong(piece, dir)) continue;
+                int r = row + Attacks.RAY_ROW[dir];
+                int c = col + Attacks.RAY_COL[dir];
+                while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                    mask |= bit(r, c);
+                    if (grid[r][c] != null) break;
+                    r += Attacks.RAY_ROW[dir];
+                    c += Attacks.RAY_COL[dir];
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static long bit(int row, int col) {
+        return 1L << (row * 8 + col);
+    }
+}
@@ -0,0 +1,111 @@
+package board;
+
+import pieces.*;
+
+/**
+ * Square attack tests that look outward from the target square along knight jumps,
+ * pawn diagonals and the eight sliding rays, instead of generating the moves of
+ * every enemy piece. Used by Board for check detection and by its legal move scan.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+final class Attacks {
+    /** Row steps of the eight ray directions; the first four are orthogonal. */
+    static final int[] RAY_ROW = {-1, 1, 0, 0, -1, -1, 1, 1};
+    /** Column steps of the eight ray directions; the first four are orthogonal. */
+    static final int[] RAY_COL = {0, 0, -1, 1, -1, 1, -1, 1};
+    /** Row offsets of the eight knight jumps. */
+    static final int[] KNIGHT_ROW = {-2, -2, -1, -1, 1, 1, 2, 2};
+    /** Column offsets of the eight knight jumps. */
+    static final int[] KNIGHT_COL = {-1, 1, -2, 2, -2, 2, -1, 1};
+
+    private Attacks() {
+    }
+
+    /**
+     * Checks whether a square is attacked by any piece of a color.
+     *
+     * @param grid the board grid
+     * @param row the row of the square
+     * @param col the column of the square
+     * @param byColor the color of the attackers
+     * @return true if some piece of that color attacks the square
+     */
+    static boolean isAttacked(Piece[][] grid, int row, int col, String byColor) {
+        return isAttacked(grid, row, col, byColor, -1, -1);
+    }
+
+    /**
+     * Checks whether a square is attacked, treating one other square as empty.
+     * Testing a king's destination with the king's own square ignored makes
+     * sliders see through the king, so it cannot step back along a checking ray.
+     *
+     * @param grid the board grid
+     * @param row the row of the square
+     * @param col the column of the square
+     * @param byColor the color of the attackers
+     * @param ignoreRow the row of the square to treat as empty (-1 for none)
+     * @param ignoreCol the column of the square to treat as empty
+     * @return true if some piece of that color attacks the square
+     */
+    static boolean isAttacked(Piece[][] grid, int row, int col, String byColor, int ignoreRow, int ignoreCol) {
+        // Pawns: a white pawn attacks from the row below, a black pawn from the row above
+        int pawnRow = row + (byColor.equals("white") ? 1 : -1);
+        if (pawnRow >= 0 && pawnRow < 8) {
+            for (int dc = -1; dc <= 1; dc += 2) {
+                int c = col + dc;
+                if (c >= 0 && c < 8 && isPiece(grid[pawnRow][c], Pawn.class, byColor)) {
+                    return true;
+                }
+            }
+        }
+
+        for (int i = 0; i < 8; i++) {
+            int r = row + KNIGHT_ROW[i];
+            int c = col + KNIGHT_COL[i];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8 && isPiece(grid[r][c], Knight.class, byColor)) {
+                return true;
+            }
+        }
+
+        for (int dir = 0; dir < 8; dir++) {
+            boolean orthogonal = dir < 4;
+            int r = row + RAY_ROW[dir];
+            int c = col + RAY_COL[dir];
+            boolean adjacent = true;
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                Piece piece = (r == ignoreRow && c == ignoreCol) ? null : grid[r][c];
+                if (piece != null) {
+                    if (piece.getColor().equals(byColor)) {
+                        if (piece instanceof Queen
+                                || (orthogonal ? piece instanceof Rook : piece instanceof Bishop)
+                                || (adjacent && piece instanceof King)) {
+                            return true;
+                        }
+                    }
+                    break;
+                }
+                adjacent = false;
+                r += RAY_ROW[dir];
+                c += RAY_COL[dir];
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a piece slides along a ray direction.
+     *
+     * @param piece the piece
+     * @param dir the index into RAY_ROW / RAY_COL
+     * @return true for queens, rooks on orthogonal rays and bishops on diagonal rays
+     */
+    static boolean slidesAlong(Piece piece, int dir) {
+        return piece instanceof Queen || (dir < 4 ? piece instanceof Rook : piece instanceof Bishop);
+    }
+
+    private static boolean isPiece(Piece piece, Class<? extends Piece> type, String color) {
+        return piece != null && piece.getClass() == type && piece.getColor().equals(color);
+    }
+}
@@ -2,22 +2,79 @@ package board;
 
 import pieces.*;
 import position.Position;
+import utils.Metrics;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 
 /**
  * Represents an 8x8 chess board with pieces. Manages board state, piece movement,
  * special moves (castling, en passant), and check/checkmate detection.
  * The board uses array indices where row 0 = rank 8 (black's back rank)
  * and row 7 = rank 1 (white's back rank).
+ * Boards can also keep a 10x12 mailbox copy of the grid, used for attack tests
+ * without bounds checks. It is off by default and is selected with the system
+ * property chess.board=mailbox or {@link #setMailboxEnabled(boolean)}.
+ * Boards can also keep per-color attack maps, updated incrementally on every
+ * change, which answer attack queries with a single lookup. They are selected with
+ * the system property chess.attackmaps=true or {@link #setAttackMapsEnabled(boolean)},
+ * and are built on demand the first time a board is asked for attacker counts.
+ * Castling rights name the rook each side castles with, so the king and rooks may
+ * start on any squares of the back rank, as in Chess960. A castling move is written
+ * as the king's two-square move when king and rook stand on their standard squares,
+ * and otherwise as the king moving onto its own castling rook; either way the king
+ * ends on the C or G file with the rook beside it.
+ * For the draw rules, a board also tracks the halfmove clock, the keys of the
+ * positions since the last capture or pawn move, and how many pieces of each kind
+ * it holds, so none of them needs a board scan.
  *
  * @author Jacob Sierra and Robert Zamora
  * @version 1.0
  */
 public class Board implements Serializable {
     private static final long serialVersionUID = 1L;
+    private static volatile boolean mailboxEnabled = "mailbox".equals(System.getProperty("chess.board"));
+    private static volatile boolean attackMapsEnabled = Boolean.getBoolean("chess.attackmaps");
+
     private Piece[][] grid = new Piece[8][8];
+    private transient Mailbox mailbox = mailboxEnabled ? new Mailbox(grid) : null;
+    private transient AttackMaps attackMaps;
     private Position enPassantTarget = null;
+    /**
+     * Columns of the castling rooks: white kingside, white queenside, black kingside,
+     * black queenside. Shared between boards and never modified in place.
+     */
+    private byte[] castlingRooks = BoardSnapshot.STANDARD_CASTLING_ROOKS;
+
+    /** Plies since the last capture or pawn move, for the fifty-move rule. */
+    private int halfmoveClock;
+    /** Keys of the positions since the last capture or pawn move, most recent first. */
+    private KeyHistory history;
+    /** Number of pieces of each kind, indexed by BoardSnapshot type | BLACK. */
+    private transient int[] pieceCounts = new int[16];
+    /** Number of bishops of either color on light and on dark squares. */
+    private transient int[] bishopsOnSquareColor = new int[2];
+    /** Zobrist keys of all pieces on their squares, XORed together; kept with the piece counts. */
+    private transient long placementKey;
+
+    /**
+     * One entry of the position history. Entries are immutable, so a board copy
+     * shares its original's history instead of copying it.
+     */
+    private static final class KeyHistory implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final long key;
+        private final KeyHistory previous;
+
+        KeyHistory(long key, KeyHistory previous) {
+            this.key = key;
+            this.previous = previous;
+        }
+    }
 
     /**
      * Constructs a new chess board and initializes it with pieces
@@ -25,38 +82,183 @@ public class Board implements Serializable {
      */
     public Board() {
         initialize();
+        if (attackMapsEnabled) {
+            attackMaps = new AttackMaps(grid);
+        }
+    }
+
+    /**
+     * Constructs a board from a compact snapshot. Every piece is created fresh,
+     * so the new board shares no mutable state with any other board.
+     *
+     * @param snapshot the snapshot to rebuild
+     */
+    Board(BoardSnapshot snapshot) {
+        this(snapshot, null);
+    }
+
+    /**
+     * Constructs a board from a snapshot, copying the attack maps of the board the
+     * snapshot was taken from instead of building new ones.
+     */
+    private Board(BoardSnapshot snapshot, AttackMaps sourceMaps) {
+        // The snapshot's codes give the piece counts directly
+        pieceCounts = null;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                place(row, col, BoardSnapshot.decode(snapshot.pieceAt(row, col), row, col));
+            }
+        }
+        countPieces(snapshot);
+        enPassantTarget = snapshot.getEnPassantTarget();
+        castlingRooks = snapshot.getCastlingRooks();
+        if (sourceMaps != null) {
+            attackMaps = new AttackMaps(sourceMaps, grid);
+        } else if (attackMapsEnabled) {
+            attackMaps = new AttackMaps(grid);
+        }
+    }
+
+    /**
+     * Replaces the whole position with one given as piece codes. Pieces whose type
+     * and color already match the new code on their square are kept, so a board
+     * reused to decode many similar positions allocates few new pieces.
+     *
+     * @param codes 64 piece codes indexed by row * 8 + col
+     * @param target the en passant target square, or null if none
+     * @param rooks the castling rook columns, in the order of {@link BoardSnapshot#getCastlingRooks()}
+     */
+    void load(byte[] codes, Position target, byte[] rooks) {
+        // Rebuilding the attack maps once is cheaper than updating them square by square
+        AttackMaps maps = attackMaps;
+        attackMaps = null;
+        int pieceBits = BoardSnapshot.TYPE_MASK | BoardSnapshot.BLACK;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                byte code = codes[row * 8 + col];
+                Piece existing = grid[row][col];
+                if (code != BoardSnapshot.EMPTY && existing != null
+                        && (BoardSnapshot.encode(existing) & pieceBits) == (code & pieceBits)) {
+                    existing.setHasMoved((code & BoardSnapshot.MOVED) != 0);
+                } else if (code != BoardSnapshot.EMPTY || existing != null) {
+                    place(row, col, BoardSnapshot.decode(code, row, col));
+                }
+            }
+        }
+        enPassantTarget = target;
+        castlingRooks = Arrays.equals(rooks, BoardSnapshot.STANDARD_CASTLING_ROOKS)
+            ? BoardSnapshot.STANDARD_CASTLING_ROOKS : rooks.clone();
+        halfmoveClock = 0;
+        history = null;
+        if (maps != null) {
+            attackMaps = new AttackMaps(grid);
+        }
+    }
+
+    /**
+     * Selects whether boards created from now on keep a 10x12 mailbox for attack
+     * tests. Existing boards are not affected.
+     *
+     * @param enabled true to use the mailbox, false to use only the 8x8 grid
+     */
+    public static void setMailboxEnabled(boolean enabled) {
+        mailboxEnabled = enabled;
+    }
+
+    /**
+     * Checks whether new boards keep a 10x12 mailbox.
+     *
+     * @return true if the mailbox is enabled for new boards
+     */
+    public static boolean isMailboxEnabled() {
+        return mailboxEnabled;
+    }
+
+    /**
+     * Checks whether this board keeps a 10x12 mailbox.
+     *
+     * @return true if attack tests on this board use the mailbox
+     */
+    public boolean usesMailbox() {
+        return mailbox != null;
+    }
+
+    /**
+     * Copies the position into a 10x12 mailbox array in the layout of
+     * {@link Mailbox}, from this board's own mailbox if it keeps one. Callers that
+     * modify the copy, such as exchange evaluation, can reuse one array.
+     *
+     * @param squares the array to fill, at least {@link Mailbox#SIZE} long
+     */
+    public void copyMailbox(byte[] squares) {
+        if (mailbox != null) {
+            mailbox.copyTo(squares);
+        } else {
+            Mailbox.fill(grid, squares);
+        }
+    }
+
+    /**
+     * Selects whether boards created from now on keep incremental attack maps.
+     * Existing boards are not affected.
+     *
+     * @param enabled true to keep attack maps, false to answer attack queries by scanning
+     */
+    public static void setAttackMapsEnabled(boolean enabled) {
+        attackMapsEnabled = enabled;
+    }
+
+    /**
+     * Checks whether new boards keep incremental attack maps.
+     *
+     * @return true if attack maps are enabled for new boards
+     */
+    public static boolean isAttackMapsEnabled() {
+        return attackMapsEnabled;
+    }
+
+    /**
+     * Checks whether this board keeps attack maps, either because they were enabled
+     * when it was created or because attacker counts have been asked for.
+     *
+     * @return true if attack queries on this board are lookups
+     */
+    public boolean usesAttackMaps() {
+        return attackMaps != null;
     }
 
     /**
      * Initializes the board with pieces in standard chess starting positions.
      * Sets up white pieces on ranks 1-2 (rows 6-7) and black pieces on ranks 7-8 (rows 0-1).
+     * Other starting positions, including Chess960 ones, are set up with
+     * {@link Fen#toBoard(String)} and {@link Fen#chess960(int)}.
      */
     public void initialize() {
         for (int col = 0; col < 8; col++) {
-            grid[6][col] = new Pawn("white", new Position(6, col));
+            place(6, col, new Pawn("white", new Position(6, col)));
         }
         
         for (int col = 0; col < 8; col++) {
-            grid[1][col] = new Pawn("black", new Position(1, col));
+            place(1, col, new Pawn("black", new Position(1, col)));
         }
 
-        grid[7][0] = new Rook("white", new Position(7, 0));
-        grid[7][1] = new Knight("white", new Position(7, 1));
-        grid[7][2] = new Bishop("white", new Position(7, 2));
-        grid[7][3] = new Queen("white", new Position(7, 3));
-        grid[7][4] = new King("white", new Position(7, 4));
-        grid[7][5] = new Bishop("white", new Position(7, 5));
-        grid[7][6] = new Knight("white", new Position(7, 6));
-        grid[7][7] = new Rook("white", new Position(7, 7));
+        place(7, 0, new Rook("white", new Position(7, 0)));
+        place(7, 1, new Knight("white", new Position(7, 1)));
+        place(7, 2, new Bishop("white", new Position(7, 2)));
+        place(7, 3, new Queen("white", new Position(7, 3)));
+        place(7, 4, new King("white", new Position(7, 4)));
+        place(7, 5, new Bishop("white", new Position(7, 5)));
+        place(7, 6, new Knight("white", new Position(7, 6)));
+        place(7, 7, new Rook("white", new Position(7, 7)));
 
-        grid[0][0] = new Rook("black", new Position(0, 0));
-        grid[0][1] = new Knight("black", new Position(0, 1));
-        grid[0][2] = new Bishop("black", new Position(0, 2));
-        grid[0][3] = new Queen("black", new Position(0, 3));
-        grid[0][4] = new King("black", new Position(0, 4));
-        grid[0][5] = new Bishop("black", new Position(0, 5));
-        grid[0][6] = new Knight("black", new Position(0, 6));
-        grid[0][7] = new Rook("black", new Position(0, 7));
+        place(0, 0, new Rook("black", new Position(0, 0)));
+        place(0, 1, new Knight("black", new Position(0, 1)));
+        place(0, 2, new Bishop("black", new Position(0, 2)));
+        place(0, 3, new Queen("black", new Position(0, 3)));
+        place(0, 4, new King("black", new Position(0, 4)));
+        place(0, 5, new Bishop("black", new Position(0, 5)));
+        place(0, 6, new Knight("black", new Position(0, 6)));
+        place(0, 7, new Rook("black", new Position(0, 7)));
     }
 
     /**
@@ -74,7 +276,9 @@ public class Board implements Serializable {
      * - En passant capture
      * - Castling (moving both king and rook)
      * - Two-square pawn moves (sets en passant target)
-     * Updates the piece's internal position and the hasMoved flag.
+     * Updates the piece's internal position and the hasMoved flag, the halfmove
+     * clock and the position history. A capture or pawn move resets both, since no
+     * earlier position can occur again after one.
      *
      * @param from the starting position
      * @param to the destination position
@@ -82,28 +286,38 @@ public class Board implements Serializable {
     public void movePiece(Position from, Position to) {
         Piece piece = getPiece(from);
         if (piece != null) {
+            boolean castling = isCastlingMove(from, to);
+            if (piece instanceof Pawn || (grid[to.row][to.col] != null && !castling)) {
+                halfmoveClock = 0;
+                history = null;
+            } else {
+                halfmoveClock++;
+                history = new KeyHistory(Zobrist.hash(this, piece.getColor()), history);
+            }
+
             // Handle en passant capture
             if (piece instanceof Pawn && to.col != from.col && grid[to.row][to.col] == null) {
                 // En passant capture - remove the captured pawn
-                grid[from.row][to.col] = null;
+                place(from.row, to.col, null);
             }
 
-            // Handle castling - move the rook
-            if (piece instanceof King && Math.abs(to.col - from.col) == 2) {
+            // Handle castling - both pieces leave before either lands, since in
+            // Chess960 the king may land on the rook's square or the other way round
+            if (castling) {
                 int row = from.row;
-                if (to.col == 6) {
-                    // Kingside castling
-                    Piece rook = grid[row][7];
-                    grid[row][5] = rook;
-                    grid[row][7] = null;
-                    rook.move(new Position(row, 5));
-                } else if (to.col == 2) {
-                    // Queenside castling
-                    Piece rook = grid[row][0];
-                    grid[row][3] = rook;
-                    grid[row][0] = null;
-                    rook.move(new Position(row, 3));
-                }
+                boolean kingside = to.col > from.col;
+                int rookCol = castlingRooks[castlingIndex(piece.getColor(), kingside)];
+                Piece rook = grid[row][rookCol];
+                Position kingTo = new Position(row, kingside ? 6 : 2);
+                Position rookTo = new Position(row, kingside ? 5 : 3);
+                place(row, from.col, null);
+                place(row, rookCol, null);
+                place(kingTo.row, kingTo.col, piece);
+                place(rookTo.row, rookTo.col, rook);
+                piece.move(kingTo);
+                rook.move(rookTo);
+                enPassantTarget = null;
+                return;
             }
 
             // Check if this is a two-square pawn move (for en passant tracking)
@@ -114,8 +328,8 @@ public class Board implements Serializable {
                 enPassantTarget = null;
             }
 
-            grid[to.row][to.col] = piece;
-            grid[from.row][from.col] = null;
+            place(to.row, to.col, piece);
+            place(from.row, from.col, null);
             piece.move(to);
         }
     }
@@ -124,22 +338,15 @@ public class Board implements Serializable {
      * Displays the current board state to the console using ASCII representation.
      * Shows pieces with notation (e.g., "wp" for white pawn, "bK" for black king).
      * Empty squares are shown as "##" (dark squares) or "   " (light squares).
+     * The frame is written in one call; use a ConsoleRenderer directly for colors,
+     * redrawing in place or other outputs.
      */
     public void display() {
-        System.out.println();
-        for (int row = 0; row < 8; row++) {
-            System.out.print(8 - row + " ");
-            for (int col = 0; col < 8; col++) {
-                Piece piece = grid[row][col];
-                if (piece == null) {
-                    System.out.print((row + col) % 2 == 0 ? "## " : "   ");
-                } else {
-                    System.out.print(piece + " ");
-                }
-            }
-            System.out.println();
+        try {
+            new ConsoleRenderer(System.out).draw(this);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        System.out.println("  A  B  C  D  E  F  G  H\n");
     }
 
     /**
@@ -151,6 +358,41 @@ public class Board implements Serializable {
         return grid;
     }
 
+    /**
+     * Gets the Zobrist keys of all pieces on their squares XORed together, which
+     * is kept up to date as pieces move so that hashing a position does not have
+     * to walk the board.
+     *
+     * @return the piece placement part of the Zobrist key
+     */
+    long placementKey() {
+        return placementKey;
+    }
+
+    /**
+     * Creates an immutable snapshot of the current position. The snapshot can be
+     * shared freely between threads, unlike the Board itself.
+     *
+     * @return a BoardSnapshot of this board
+     */
+    public BoardSnapshot snapshot() {
+        return new BoardSnapshot(this);
+    }
+
+    /**
+     * Creates an independent deep copy of this board via its flat byte encoding.
+     * Much cheaper than a serialization round trip, and the copy can be handed
+     * to another thread.
+     *
+     * @return a new Board with the same position
+     */
+    public Board copy() {
+        Board copy = new Board(new BoardSnapshot(this), attackMaps);
+        copy.halfmoveClock = halfmoveClock;
+        copy.history = history;
+        return copy;
+    }
+
     /**
      * Gets the current en passant target square, if any.
      *
@@ -160,6 +402,86 @@ public class Board implements Serializable {
         return enPassantTarget;
     }
 
+    /**
+     * Gets the number of plies since the last capture or pawn move.
+     *
+     * @return the halfmove clock
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Sets the halfmove clock, for positions set up from FEN.
+     *
+     * @param plies the number of plies since the last capture or pawn move
+     */
+    public void setHalfmoveClock(int plies) {
+        halfmoveClock = plies;
+    }
+
+    /**
+     * Checks whether a hundred plies (fifty moves by each side) have passed without
+     * a capture or pawn move.
+     *
+     * @return true if the fifty-move rule applies
+     */
+    public boolean isFiftyMoveDraw() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * Counts how many times the current position occurred before, with the same
+     * side to move, castling rights and en passant possibilities. Only positions
+     * since the last capture or pawn move are kept, so this looks at no more than
+     * the halfmove clock's worth of entries.
+     *
+     * @param sideToMove the side to move in the current position
+     * @return the number of earlier occurrences
+     */
+    public int countRepetitions(String sideToMove) {
+        long key = Zobrist.hash(this, sideToMove);
+        int count = 0;
+        for (KeyHistory entry = history; entry != null; entry = entry.previous) {
+            if (entry.key == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether the current position has occurred at least three times.
+     *
+     * @param sideToMove the side to move in the current position
+     * @return true if the position is a threefold repetition
+     */
+    public boolean isThreefoldRepetition(String sideToMove) {
+        return countRepetitions(sideToMove) >= 2;
+    }
+
+    /**
+     * Checks whether neither side has enough material left to ever checkmate: bare
+     * kings, a single knight or bishop, or only bishops all on squares of one color.
+     * Answered from piece counts kept up to date on every change.
+     *
+     * @return true if the position is drawn for lack of material
+     */
+    public boolean hasInsufficientMaterial() {
+        int black = BoardSnapshot.BLACK;
+        if (pieceCounts[BoardSnapshot.PAWN] + pieceCounts[BoardSnapshot.ROOK] + pieceCounts[BoardSnapshot.QUEEN]
+                + pieceCounts[black | BoardSnapshot.PAWN] + pieceCounts[black | BoardSnapshot.ROOK]
+                + pieceCounts[black | BoardSnapshot.QUEEN] > 0) {
+            return false;
+        }
+        int knights = pieceCounts[BoardSnapshot.KNIGHT] + pieceCounts[black | BoardSnapshot.KNIGHT];
+        int bishops = pieceCounts[BoardSnapshot.BISHOP] + pieceCounts[black | BoardSnapshot.BISHOP];
+        if (knights + bishops <= 1) {
+            return true;
+        }
+        return knights == 0 && (bishopsOnSquareColor[0] == 0 || bishopsOnSquareColor[1] == 0);
+    }
+
     /**
      * Places a piece at the specified position on the board.
      * Used primarily for pawn promotion.
@@ -168,12 +490,124 @@ public class Board implements Serializable {
      * @param piece the Piece to place, or null to clear the square
      */
     public void setPiece(Position position, Piece piece) {
-        grid[position.row][position.col] = piece;
+        place(position.row, position.col, piece);
         if (piece != null) {
             piece.move(position);
         }
     }
 
+    /**
+     * Checks whether a side still has the right to castle on one wing, meaning its
+     * king and its castling rook for that wing are both on the back rank, on the
+     * right sides of each other, and have never moved.
+     * Whether castling is currently playable also depends on the squares between
+     * them and on attacks, which this method does not check.
+     *
+     * @param color the side to check ("white" or "black")
+     * @param kingside true for the kingside (H-file side) rook, false for the queenside (A-file side) rook
+     * @return true if the castling right is still available
+     */
+    public boolean hasCastlingRight(String color, boolean kingside) {
+        int row = color.equals("white") ? 7 : 0;
+        int rookCol = castlingRooks[castlingIndex(color, kingside)];
+        Piece rook = grid[row][rookCol];
+        if (!(rook instanceof Rook) || rook.hasMoved() || !rook.getColor().equals(color)) {
+            return false;
+        }
+        int kingCol = unmovedKingColumn(row, color);
+        return kingCol >= 0 && (kingside ? rookCol > kingCol : rookCol < kingCol);
+    }
+
+    /**
+     * Gets the column of the rook a side castles with on one wing. The column is
+     * only meaningful while {@link #hasCastlingRight(String, boolean)} holds.
+     *
+     * @param color the side ("white" or "black")
+     * @param kingside true for the kingside rook, false for the queenside rook
+     * @return the rook's column (7 and 0 in the standard setup)
+     */
+    public int getCastlingRookColumn(String color, boolean kingside) {
+        return castlingRooks[castlingIndex(color, kingside)];
+    }
+
+    /**
+     * Checks whether moving the piece on one square to another is castling, in
+     * either of the forms described in the class comment.
+     *
+     * @param from the king's square
+     * @param to the destination square of the move
+     * @return true if the move is castling by a side that still has that right
+     */
+    public boolean isCastlingMove(Position from, Position to) {
+        Piece king = grid[from.row][from.col];
+        if (!(king instanceof King) || king.hasMoved() || to.row != from.row || to.col == from.col) {
+            return false;
+        }
+        String color = king.getColor();
+        boolean kingside = to.col > from.col;
+        return hasCastlingRight(color, kingside)
+            && to.col == castlingMoveColumn(from.col, castlingRooks[castlingIndex(color, kingside)], kingside);
+    }
+
+    /**
+     * Gets the castling moves of the king on a square whose squares are free: every
+     * square the king and rook pass over or land on is empty apart from the two of
+     * them. Attacks are not considered.
+     *
+     * @param from the king's square
+     * @return the destinations of the castling moves, in the form they are written
+     */
+    List<Position> castlingTargets(Position from) {
+        List<Position> targets = new ArrayList<>(2);
+        Piece king = grid[from.row][from.col];
+        if (!(king instanceof King) || king.hasMoved()) {
+            return targets;
+        }
+        for (int side = 0; side < 2; side++) {
+            boolean kingside = side == 0;
+            if (!hasCastlingRight(king.getColor(), kingside)) continue;
+            int rookCol = castlingRooks[castlingIndex(king.getColor(), kingside)];
+            int kingTo = kingside ? 6 : 2;
+            int rookTo = kingside ? 5 : 3;
+            int low = Math.min(Math.min(from.col, kingTo), Math.min(rookCol, rookTo));
+            int high = Math.max(Math.max(from.col, kingTo), Math.max(rookCol, rookTo));
+            boolean clear = true;
+            for (int col = low; col <= high && clear; col++) {
+                clear = col == from.col || col == rookCol || grid[from.row][col] == null;
+            }
+            if (clear) {
+                targets.add(new Position(from.row, castlingMoveColumn(from.col, rookCol, kingside)));
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Checks the attack rules of a castling move: the king may not castle out of
+     * check or across an attacked square. The destination square, including an
+     * attack the castling rook was blocking, is covered by the normal king-safety
+     * test, which plays out the whole castling move.
+     *
+     * @param from the king's square
+     * @param to the destination square of the castling move
+     * @param color the castling side
+     * @return true if no square from the king's square to its destination is attacked
+     */
+    public boolean isCastlingPathSafe(Position from, Position to, String color) {
+        int row = from.row;
+        int kingTo = to.col > from.col ? 6 : 2;
+        String enemy = color.equals("white") ? "black" : "white";
+        int step = Integer.signum(kingTo - from.col);
+        for (int col = from.col; ; col += step) {
+            if (isAttacked(row, col, enemy, -1, -1)) {
+                return false;
+            }
+            if (col == kingTo) {
+                return true;
+            }
+        }
+    }
+
     /**
      * Searches the board to find the position of the king of the specified color.
      *
@@ -200,18 +634,31 @@ public class Board implements Serializable {
      * @return true if the position is under attack, false otherwise
      */
     public boolean isPositionUnderAttack(Position position, String byColor) {
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Piece piece = grid[row][col];
-                if (piece != null && piece.getColor().equals(byColor)) {
-                    List<Position> moves = piece.possibleMoves(grid);
-                    if (moves.contains(position)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return isAttacked(position.row, position.col, byColor, -1, -1);
+    }
+
+    /**
+     * Counts the pieces of a color that attack a square. The first call builds this
+     * board's attack maps if it has none; after that they are kept up to date.
+     *
+     * @param position the board position to check
+     * @param byColor the color of the attacking pieces
+     * @return the number of attackers
+     */
+    public int countAttackers(Position position, String byColor) {
+        return attackMaps().count(position.row, position.col, byColor.equals("black"));
+    }
+
+    /**
+     * Gets every square attacked by a color, as a bitmask with bit (row * 8 + col)
+     * set for each attacked square. Builds the attack maps on first use, like
+     * {@link #countAttackers(Position, String)}.
+     *
+     * @param byColor the color of the attacking pieces
+     * @return the attacked squares
+     */
+    public long getAttackedSquares(String byColor) {
+        return attackMaps().attackedSquares(byColor.equals("black"));
     }
 
     /**
@@ -238,34 +685,414 @@ public class Board implements Serializable {
      * @return true if the move would leave the king in check, false otherwise
      */
     public boolean wouldMoveLeaveKingInCheck(Position from, Position to, String color) {
+        long start = Metrics.start();
+        boolean inCheck = simulateMoveForCheck(from, to, color);
+        Metrics.record(Metrics.Phase.CHECK_SIMULATION, start);
+        return inCheck;
+    }
+
+    private boolean simulateMoveForCheck(Position from, Position to, String color) {
+        // The attack maps describe the real position; detach them rather than update
+        // them twice, and test the simulated position by scanning
+        AttackMaps maps = attackMaps;
+        attackMaps = null;
+        // Likewise the piece counts, which the undo would restore anyway
+        int[] counts = pieceCounts;
+        pieceCounts = null;
+
         // Simulate the move
         Piece piece = grid[from.row][from.col];
         Piece captured = grid[to.row][to.col];
         Position originalPosition = piece.getPosition();
 
-        grid[to.row][to.col] = piece;
-        grid[from.row][from.col] = null;
+        if (isCastlingMove(from, to)) {
+            boolean inCheck = simulateCastlingForCheck(piece, from, to, color);
+            attackMaps = maps;
+            pieceCounts = counts;
+            return inCheck;
+        }
+
+        // En passant also removes the pawn beside the moving pawn
+        Piece enPassantVictim = null;
+        if (piece instanceof Pawn && to.col != from.col && captured == null) {
+            enPassantVictim = grid[from.row][to.col];
+            place(from.row, to.col, null);
+        }
+
+        place(to.row, to.col, piece);
+        place(from.row, from.col, null);
         piece.setPosition(to);  // Update position for accurate simulation
 
         boolean inCheck = isInCheck(color);
 
         // Undo the move
-        grid[from.row][from.col] = piece;
-        grid[to.row][to.col] = captured;
+        place(from.row, from.col, piece);
+        place(to.row, to.col, captured);
+        if (enPassantVictim != null) {
+            place(from.row, to.col, enPassantVictim);
+        }
         piece.setPosition(originalPosition);  // Restore original position
+        attackMaps = maps;
+        pieceCounts = counts;
 
         return inCheck;
     }
 
+    /**
+     * Plays a castling move on the grid, tests the king and takes the move back.
+     */
+    private boolean simulateCastlingForCheck(Piece king, Position from, Position to, String color) {
+        int row = from.row;
+        boolean kingside = to.col > from.col;
+        int rookCol = castlingRooks[castlingIndex(color, kingside)];
+        Piece rook = grid[row][rookCol];
+        int kingTo = kingside ? 6 : 2;
+        int rookTo = kingside ? 5 : 3;
+        place(row, from.col, null);
+        place(row, rookCol, null);
+        place(row, kingTo, king);
+        place(row, rookTo, rook);
+        king.setPosition(new Position(row, kingTo));
+
+        boolean inCheck = isInCheck(color);
+
+        place(row, kingTo, null);
+        place(row, rookTo, null);
+        place(row, from.col, king);
+        place(row, rookCol, rook);
+        king.setPosition(from);
+        return inCheck;
+    }
+
     /**
      * Checks if a player has any legal moves remaining.
      * Used to detect checkmate (no legal moves while in check) and stalemate
      * (no legal moves while not in check).
+     * Stops at the first legal move found, trying king steps first and then knight,
+     * pawn and sliding moves. The king's checkers and pinned pieces are found once,
+     * so ordinary candidates are accepted without simulating the move.
      *
      * @param color the color of the player to check
      * @return true if the player has at least one legal move, false otherwise
      */
     public boolean hasAnyLegalMoves(String color) {
+        long start = Metrics.start();
+        boolean found = findAnyLegalMove(color);
+        Metrics.record(Metrics.Phase.LEGAL_MOVE_SCAN, start);
+        return found;
+    }
+
+    private boolean findAnyLegalMove(String color) {
+        Position king = findKing(color);
+        if (king == null) {
+            return findAnyLegalMoveBySimulation(color);
+        }
+        String enemy = color.equals("white") ? "black" : "white";
+        int kr = king.row;
+        int kc = king.col;
+
+        // King steps
+        for (int dir = 0; dir < 8; dir++) {
+            int r = kr + Attacks.RAY_ROW[dir];
+            int c = kc + Attacks.RAY_COL[dir];
+            if (r < 0 || r > 7 || c < 0 || c > 7) continue;
+            Piece target = grid[r][c];
+            if ((target == null || !target.getColor().equals(color))
+                    && !isAttacked(r, c, enemy, kr, kc)) {
+                return true;
+            }
+        }
+
+        // Squares that resolve the check (all squares when not in check) and pinned pieces
+        int checkers = 0;
+        long resolving = 0;
+        long pinned = 0;
+        int pawnRow = kr + (color.equals("white") ? -1 : 1);
+        for (int dc = -1; dc <= 1; dc += 2) {
+            int c = kc + dc;
+            if (pawnRow >= 0 && pawnRow < 8 && c >= 0 && c < 8 && isEnemy(grid[pawnRow][c], Pawn.class, enemy)) {
+                checkers++;
+                resolving |= bit(pawnRow, c);
+            }
+        }
+        for (int i = 0; i < 8; i++) {
+            int r = kr + Attacks.KNIGHT_ROW[i];
+            int c = kc + Attacks.KNIGHT_COL[i];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8 && isEnemy(grid[r][c], Knight.class, enemy)) {
+                checkers++;
+                resolving |= bit(r, c);
+            }
+        }
+        for (int dir = 0; dir < 8; dir++) {
+            long ray = 0;
+            int shield = -1;
+            int r = kr + Attacks.RAY_ROW[dir];
+            int c = kc + Attacks.RAY_COL[dir];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                ray |= bit(r, c);
+                Piece piece = grid[r][c];
+                if (piece != null) {
+                    if (piece.getColor().equals(color)) {
+                        if (shield >= 0) break;
+                        shield = r * 8 + c;
+                    } else {
+                        if (Attacks.slidesAlong(piece, dir)) {
+                            if (shield >= 0) {
+                                pinned |= 1L << shield;
+                            } else {
+                                checkers++;
+                                resolving |= ray;
+                            }
+                        }
+                        break;
+                    }
+                }
+                r += Attacks.RAY_ROW[dir];
+                c += Attacks.RAY_COL[dir];
+            }
+        }
+        if (checkers > 1) {
+            return false;
+        }
+        if (checkers == 0) {
+            resolving = -1L;
+        }
+
+        // Knights and pawns first, then sliding pieces
+        for (int pass = 0; pass < 2; pass++) {
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    Piece piece = grid[row][col];
+                    if (piece == null || piece instanceof King || !piece.getColor().equals(color)) continue;
+                    boolean slider = piece instanceof Queen || piece instanceof Rook || piece instanceof Bishop;
+                    if (slider != (pass == 1)) continue;
+                    boolean isPinned = (pinned & bit(row, col)) != 0;
+                    if (piece instanceof Knight) {
+                        if (!isPinned && knightHasMove(row, col, color, resolving)) return true;
+                    } else if (piece instanceof Pawn) {
+                        if (pawnHasMove(row, col, color, resolving, isPinned, kr, kc)) return true;
+                    } else if (sliderHasMove(piece, row, col, color, resolving, isPinned, kr, kc)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        // In Chess960 the king may not move at all when castling, so castling can be
+        // the only legal move
+        if (checkers == 0) {
+            for (Position to : castlingTargets(king)) {
+                if (isCastlingPathSafe(king, to, color) && !wouldMoveLeaveKingInCheck(king, to, color)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean knightHasMove(int row, int col, String color, long resolving) {
+        for (int i = 0; i < 8; i++) {
+            int r = row + Attacks.KNIGHT_ROW[i];
+            int c = col + Attacks.KNIGHT_COL[i];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8 && (resolving & bit(r, c)) != 0
+                    && (grid[r][c] == null || !grid[r][c].getColor().equals(color))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean pawnHasMove(int row, int col, String color, long resolving, boolean isPinned, int kr, int kc) {
+        int direction = color.equals("white") ? -1 : 1;
+        int r = row + direction;
+        if (r < 0 || r > 7) return false;
+        if (grid[r][col] == null) {
+            if ((resolving & bit(r, col)) != 0 && (!isPinned || alongPin(row, col, kr, kc, direction, 0))) {
+                return true;
+            }
+            int twoRow = row + 2 * direction;
+            if (row == (color.equals("white") ? 6 : 1) && grid[twoRow][col] == null
+                    && (resolving & bit(twoRow, col)) != 0 && (!isPinned || alongPin(row, col, kr, kc, direction, 0))) {
+                return true;
+            }
+        }
+        for (int dc = -1; dc <= 1; dc += 2) {
+            int c = col + dc;
+            if (c < 0 || c > 7) continue;
+            Piece target = grid[r][c];
+            if (target != null && !target.getColor().equals(color) && (resolving & bit(r, c)) != 0
+                    && (!isPinned || alongPin(row, col, kr, kc, direction, dc))) {
+                return true;
+            }
+            // En passant can expose the king along the rank, so it is simulated
+            if (target == null && enPassantTarget != null && enPassantTarget.row == r && enPassantTarget.col == c
+                    && !wouldMoveLeaveKingInCheck(new Position(row, col), enPassantTarget, color)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean sliderHasMove(Piece piece, int row, int col, String color, long resolving,
+                                  boolean isPinned, int kr, int kc) {
+        for (int dir = 0; dir < 8; dir++) {
+            if (!Attacks.slidesAlong(piece, dir)) continue;
+            if (isPinned && !alongPin(row, col, kr, kc, Attacks.RAY_ROW[dir], Attacks.RAY_COL[dir])) continue;
+            int r = row + Attacks.RAY_ROW[dir];
+            int c = col + Attacks.RAY_COL[dir];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                Piece target = grid[r][c];
+                if (target != null && target.getColor().equals(color)) break;
+                if ((resolving & bit(r, c)) != 0) return true;
+                if (target != null) break;
+                r += Attacks.RAY_ROW[dir];
+                c += Attacks.RAY_COL[dir];
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tests a square for attacks with the attack maps if this board has them (they
+     * cannot ignore a square), else the mailbox if it has one, else the grid.
+     */
+    private boolean isAttacked(int row, int col, String byColor, int ignoreRow, int ignoreCol) {
+        if (attackMaps != null && ignoreRow < 0) {
+            return attackMaps.isAttacked(row, col, byColor.equals("black"));
+        }
+        if (mailbox != null) {
+            return mailbox.isAttacked(row, col, byColor.equals("black"), ignoreRow, ignoreCol);
+        }
+        return Attacks.isAttacked(grid, row, col, byColor, ignoreRow, ignoreCol);
+    }
+
+    private AttackMaps attackMaps() {
+        if (attackMaps == null) {
+            attackMaps = new AttackMaps(grid);
+        }
+        return attackMaps;
+    }
+
+    /**
+     * Stores a piece in the grid and, if present, the mailbox and attack maps, and
+     * keeps the piece counts and placement key up to date.
+     */
+    private void place(int row, int col, Piece piece) {
+        countPiece(grid[row][col], row, col, -1);
+        countPiece(piece, row, col, 1);
+        grid[row][col] = piece;
+        if (mailbox != null) {
+            mailbox.set(row, col, piece);
+        }
+        if (attackMaps != null) {
+            attackMaps.squareChanged(row, col);
+        }
+    }
+
+    private void countPiece(Piece piece, int row, int col, int delta) {
+        if (piece == null || pieceCounts == null) {
+            return;
+        }
+        int kind = BoardSnapshot.encode(piece) & (BoardSnapshot.TYPE_MASK | BoardSnapshot.BLACK);
+        pieceCounts[kind] += delta;
+        placementKey ^= Zobrist.pieceKey(kind, row * 8 + col);
+        if ((kind & BoardSnapshot.TYPE_MASK) == BoardSnapshot.BISHOP) {
+            bishopsOnSquareColor[(row + col) & 1] += delta;
+        }
+    }
+
+    /**
+     * Sets the piece counts and placement key from the codes of a snapshot of this
+     * position.
+     */
+    private void countPieces(BoardSnapshot snapshot) {
+        pieceCounts = new int[16];
+        bishopsOnSquareColor = new int[2];
+        placementKey = 0;
+        for (int square = 0; square < 64; square++) {
+            int kind = snapshot.pieceAt(square) & (BoardSnapshot.TYPE_MASK | BoardSnapshot.BLACK);
+            if (kind == BoardSnapshot.EMPTY) continue;
+            pieceCounts[kind]++;
+            placementKey ^= Zobrist.pieceKey(kind, square);
+            if ((kind & BoardSnapshot.TYPE_MASK) == BoardSnapshot.BISHOP) {
+                bishopsOnSquareColor[(square / 8 + square % 8) & 1]++;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the mailbox, attack maps, piece counts and placement key, which are
+     * not serialized, when a saved board is loaded.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // Boards saved before castling rooks were stored castle with the standard corners
+        if (castlingRooks == null || Arrays.equals(castlingRooks, BoardSnapshot.STANDARD_CASTLING_ROOKS)) {
+            castlingRooks = BoardSnapshot.STANDARD_CASTLING_ROOKS;
+        }
+        countPieces(new BoardSnapshot(this));
+        if (mailboxEnabled) {
+            mailbox = new Mailbox(grid);
+        }
+        if (attackMapsEnabled) {
+            attackMaps = new AttackMaps(grid);
+        }
+    }
+
+    /**
+     * Checks whether a step (dr, dc) from a pinned piece stays on the line through its king.
+     */
+    private static boolean alongPin(int row, int col, int kr, int kc, int dr, int dc) {
+        int pr = Integer.signum(row - kr);
+        int pc = Integer.signum(col - kc);
+        return dr * pc == dc * pr;
+    }
+
+    /**
+     * Gets the castling rook columns for snapshots. The array must not be modified;
+     * it is the shared standard array unless this is a Chess960 position.
+     */
+    byte[] castlingRookColumns() {
+        return castlingRooks;
+    }
+
+    private int unmovedKingColumn(int row, String color) {
+        for (int col = 0; col < 8; col++) {
+            Piece piece = grid[row][col];
+            if (piece instanceof King && !piece.hasMoved() && piece.getColor().equals(color)) {
+                return col;
+            }
+        }
+        return -1;
+    }
+
+    private static int castlingIndex(String color, boolean kingside) {
+        return (color.equals("white") ? 0 : 2) + (kingside ? 0 : 1);
+    }
+
+    /**
+     * Gets the column a castling move is written to: the standard two-square king
+     * move when king and rook start on their standard squares, else the rook's square.
+     */
+    private static int castlingMoveColumn(int kingCol, int rookCol, boolean kingside) {
+        if (kingCol == 4 && rookCol == (kingside ? 7 : 0)) {
+            return kingside ? 6 : 2;
+        }
+        return rookCol;
+    }
+
+    private static boolean isEnemy(Piece piece, Class<? extends Piece> type, String enemy) {
+        return piece != null && piece.getClass() == type && piece.getColor().equals(enemy);
+    }
+
+    private static long bit(int row, int col) {
+        return 1L << (row * 8 + col);
+    }
+
+    /**
+     * Slow path for boards without a king of the given color: tries every
+     * pseudo-legal move with a full simulation.
+     */
+    private boolean findAnyLegalMoveBySimulation(String color) {
         for (int row = 0; row < 8; row++) {
             for (int col = 0; col < 8; col++) {
                 Piece piece = grid[row][col];
@@ -0,0 +1,123 @@
+package board;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the plain 8x8 grid with the 10x12 mailbox and the incremental attack
+ * maps on the rule checks that dominate move validation: legal move generation (which simulates every move
+ * and tests the king for check) and the end-of-turn legal move scan. All modes
+ * run the same workload, a perft count over standard test positions plus a
+ * fixed sequence of random-play positions, and their results are compared.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class BoardBenchmark {
+    private static final String[] POSITIONS = {
+        Fen.START_POSITION,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+    };
+
+    private static final String[] MODES = {"grid", "mailbox", "attack maps"};
+
+    /**
+     * Counts the leaf positions of the legal move tree to a fixed depth. The last
+     * ply is counted from the length of the move list rather than played out.
+     *
+     * @param board the board (not modified)
+     * @param color the side to move
+     * @param depth the depth in plies (at least 1)
+     * @return the number of leaf positions
+     */
+    public static long perft(Board board, String color, int depth) {
+        List<Move> moves = MoveGenerator.legalMoves(board, color);
+        if (depth <= 1) {
+            return moves.size();
+        }
+        String next = color.equals("white") ? "black" : "white";
+        long nodes = 0;
+        for (Move move : moves) {
+            Board child = board.copy();
+            move.applyTo(child);
+            nodes += perft(child, next, depth - 1);
+        }
+        return nodes;
+    }
+
+    /**
+     * Runs the workload once with the current board mode.
+     *
+     * @param depth the perft depth
+     * @param scanPositions the number of random-play positions to scan
+     * @return a checksum of the results, equal in every mode
+     */
+    static long workload(int depth, int scanPositions) {
+        long checksum = 0;
+        for (String fen : POSITIONS) {
+            checksum += perft(Fen.toBoard(fen), Fen.activeColor(fen), depth);
+        }
+        List<Board> boards = new ArrayList<>();
+        List<String> colors = new ArrayList<>();
+        Random random = new Random(12345);
+        while (boards.size() < scanPositions) {
+            Board board = new Board();
+            String color = "white";
+            for (int ply = 0; ply < 120 && boards.size() < scanPositions; ply++) {
+                List<Move> moves = MoveGenerator.legalMoves(board, color);
+                if (moves.isEmpty()) break;
+                moves.get(random.nextInt(moves.size())).applyTo(board);
+                color = color.equals("white") ? "black" : "white";
+                boards.add(board.copy());
+                colors.add(color);
+            }
+        }
+        for (int i = 0; i < boards.size(); i++) {
+            Board board = boards.get(i);
+            String color = colors.get(i);
+            checksum = checksum * 31 + (board.hasAnyLegalMoves(color) ? 1 : 0)
+                + (board.isInCheck(color) ? 2 : 0);
+        }
+        return checksum;
+    }
+
+    /**
+     * Runs the benchmark from the command line.
+     * Usage: java board.BoardBenchmark [depth] [positions] [rounds]
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int positions = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        long[] best = new long[MODES.length];
+        long[] checksums = new long[MODES.length];
+        Arrays.fill(best, Long.MAX_VALUE);
+        for (int round = 0; round < rounds; round++) {
+            for (int mode = 0; mode < MODES.length; mode++) {
+                Board.setMailboxEnabled(mode == 1);
+                Board.setAttackMapsEnabled(mode == 2);
+                long start = System.nanoTime();
+                checksums[mode] = workload(depth, positions);
+                best[mode] = Math.min(best[mode], System.nanoTime() - start);
+            }
+        }
+        Board.setMailboxEnabled(false);
+        Board.setAttackMapsEnabled(false);
+
+        for (int mode = 0; mode < MODES.length; mode++) {
+            System.out.printf("%-12s %8.1f ms (%.2fx)%n", MODES[mode] + ":", best[mode] / 1e6,
+                (double) best[0] / best[mode]);
+            if (checksums[mode] != checksums[0]) {
+                System.out.println("Results differ between modes!");
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package board;
+
+import pieces.*;
+import position.Position;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Immutable, flat snapshot of a board position. Each square is stored as a single
+ * byte piece code in a 64-entry array (index = row * 8 + col), and the remaining
+ * position state (the en passant target and the columns of the castling rooks) is
+ * packed into one int.
+ * Because a snapshot never changes after construction it can be read by any number
+ * of threads concurrently, and {@link #toBoard()} gives each thread its own
+ * mutable Board to work with.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public final class BoardSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Code for an empty square. */
+    public static final byte EMPTY = 0;
+    /** Piece type code for a pawn. */
+    public static final byte PAWN = 1;
+    /** Piece type code for a knight. */
+    public static final byte KNIGHT = 2;
+    /** Piece type code for a bishop. */
+    public static final byte BISHOP = 3;
+    /** Piece type code for a rook. */
+    public static final byte ROOK = 4;
+    /** Piece type code for a queen. */
+    public static final byte QUEEN = 5;
+    /** Piece type code for a king. */
+    public static final byte KING = 6;
+    /** Mask selecting the piece type from a piece code. */
+    public static final byte TYPE_MASK = 7;
+    /** Flag set in a piece code when the piece is black. */
+    public static final byte BLACK = 8;
+    /** Flag set in a piece code when the piece has moved. */
+    public static final byte MOVED = 16;
+
+    private static final int NO_SQUARE = 64;
+    private static final int EP_MASK = 0x7F;
+    private static final int CASTLING_SHIFT = 7;
+    /** Castling rook columns of the standard setup, in Board's castling order. Never modified. */
+    static final byte[] STANDARD_CASTLING_ROOKS = {7, 0, 7, 0};
+    private static final int STANDARD_CASTLING_STATE = packState(NO_SQUARE, STANDARD_CASTLING_ROOKS) >>> CASTLING_SHIFT;
+
+    private final byte[] squares;
+    private final int state;
+
+    /**
+     * Creates a snapshot of the given board. The board must not be modified by
+     * another thread while the snapshot is being taken.
+     *
+     * @param board the board to capture
+     */
+    public BoardSnapshot(Board board) {
+        Piece[][] grid = board.getGrid();
+        byte[] codes = new byte[64];
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                codes[row * 8 + col] = encode(grid[row][col]);
+            }
+        }
+        Position ep = board.getEnPassantTarget();
+        byte[] castlingRooks = board.castlingRookColumns();
+        if (castlingRooks != STANDARD_CASTLING_ROOKS) {
+            castlingRooks = castlingRooks.clone();
+            for (int i = 0; i < 4; i++) {
+                // Columns of lost rights can never matter again, so they are stored as standard
+                if (!board.hasCastlingRight(i < 2 ? "white" : "black", i % 2 == 0)) {
+                    castlingRooks[i] = STANDARD_CASTLING_ROOKS[i];
+                }
+            }
+        }
+        this.squares = codes;
+        this.state = packState(ep, castlingRooks);
+    }
+
+    /**
+     * Creates a snapshot directly from piece codes and an en passant target.
+     *
+     * @param squares 64 piece codes indexed by row * 8 + col (copied)
+     * @param enPassantTarget the en passant target square, or null if none
+     */
+    BoardSnapshot(byte[] squares, Position enPassantTarget) {
+        this(squares, enPassantTarget, STANDARD_CASTLING_ROOKS);
+    }
+
+    /**
+     * Creates a snapshot from piece codes, an en passant target and the columns of
+     * the castling rooks.
+     *
+     * @param squares 64 piece codes indexed by row * 8 + col (copied)
+     * @param enPassantTarget the en passant target square, or null if none
+     * @param castlingRooks rook columns for white kingside, white queenside, black
+     *                      kingside and black queenside castling
+     */
+    BoardSnapshot(byte[] squares, Position enPassantTarget, byte[] castlingRooks) {
+        this.squares = squares.clone();
+        this.state = packState(enPassantTarget, castlingRooks);
+    }
+
+    private static int packState(Position enPassantTarget, byte[] castlingRooks) {
+        return packState(enPassantTarget == null ? NO_SQUARE : enPassantTarget.row * 8 + enPassantTarget.col,
+            castlingRooks);
+    }
+
+    private static int packState(int enPassantSquare, byte[] castlingRooks) {
+        int state = enPassantSquare;
+        for (int i = 0; i < 4; i++) {
+            state |= castlingRooks[i] << (CASTLING_SHIFT + 3 * i);
+        }
+        return state;
+    }
+
+    /**
+     * Encodes a piece as a single byte code.
+     *
+     * @param piece the piece to encode, or null for an empty square
+     * @return the piece code (type, color and moved flags)
+     */
+    public static byte encode(Piece piece) {
+        if (piece == null) return EMPTY;
+        int code;
+        if (piece instanceof Pawn) code = PAWN;
+        else if (piece instanceof Knight) code = KNIGHT;
+        else if (piece instanceof Bishop) code = BISHOP;
+        else if (piece instanceof Rook) code = ROOK;
+        else if (piece instanceof Queen) code = QUEEN;
+        else code = KING;
+        if (piece.getColor().equals("black")) code |= BLACK;
+        if (piece.hasMoved()) code |= MOVED;
+        return (byte) code;
+    }
+
+    /**
+     * Creates a new Piece object from a piece code.
+     *
+     * @param code the piece code
+     * @param row the row of the square the piece stands on
+     * @param col the column of the square the piece stands on
+     * @return a new Piece, or null if the code is EMPTY
+     */
+    public static Piece decode(byte code, int row, int col) {
+        if (code == EMPTY) return null;
+        String color = (code & BLACK) != 0 ? "black" : "white";
+        Position position = new Position(row, col);
+        Piece piece;
+        switch (code & TYPE_MASK) {
+            case PAWN:
+                piece = new Pawn(color, position);
+                break;
+            case KNIGHT:
+                piece = new Knight(color, position);
+                break;
+            case BISHOP:
+                piece = new Bishop(color, position);
+                break;
+            case ROOK:
+                piece = new Rook(color, position);
+                break;
+            case QUEEN:
+                piece = new Queen(color, position);
+                break;
+            default:
+                piece = new King(color, position);
+                break;
+        }
+        piece.setHasMoved((code & MOVED) != 0);
+        return piece;
+    }
+
+    /**
+     * Gets the piece code on a square.
+     *
+     * @param row the row index (0-7)
+     * @param col the column index (0-7)
+     * @return the piece code, or EMPTY
+     */
+    public byte pieceAt(int row, int col) {
+        return squares[row * 8 + col];
+    }
+
+    /**
+     * Gets the piece code on a square by flat index.
+     *
+     * @param square the square index (row * 8 + col)
+     * @return the piece code, or EMPTY
+     */
+    public byte pieceAt(int square) {
+        return squares[square];
+    }
+
+    /**
+     * Gets the en passant target square, if any.
+     *
+     * @return the en passant target, or null if none
+     */
+    public Position getEnPassantTarget() {
+        int ep = state & EP_MASK;
+        return ep == NO_SQUARE ? null : new Position(ep / 8, ep % 8);
+    }
+
+    /**
+     * Gets the columns of the castling rooks. The array must not be modified.
+     *
+     * @return rook columns for white kingside, white queenside, black kingside and
+     *         black queenside castling
+     */
+    byte[] getCastlingRooks() {
+        if (state >>> CASTLING_SHIFT == STANDARD_CASTLING_STATE) {
+            return STANDARD_CASTLING_ROOKS;
+        }
+        byte[] castlingRooks = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            castlingRooks[i] = (byte) (state >>> (CASTLING_SHIFT + 3 * i) & 7);
+        }
+        return castlingRooks;
+    }
+
+    /**
+     * Gets the packed state word (en passant square in the low 7 bits, then the
+     * castling rook columns, 3 bits each).
+     *
+     * @return the state word
+     */
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * Builds a new, independent mutable Board from this snapshot.
+     *
+     * @return a new Board with freshly created pieces
+     */
+    public Board toBoard() {
+        return new Board(this);
+    }
+
+    /**
+     * Compares two snapshots square by square, including the packed state.
+     *
+     * @param obj the object to compare with
+     * @return true if both snapshots describe the same position
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof BoardSnapshot)) return false;
+        BoardSnapshot other = (BoardSnapshot) obj;
+        return state == other.state && Arrays.equals(squares, other.squares);
+    }
+
+    /**
+     * Compares two snapshots as chess positions: the pieces, the castling rights
+     * and the en passant target. Unlike {@link #equals(Object)}, moved flags only
+     * count through the castling rights they decide, so a position reached by
+     * play matches the same position set up from FEN.
+     *
+     * @param other the snapshot to compare with
+     * @return true if both snapshots describe the same chess position
+     */
+    public boolean samePosition(BoardSnapshot other) {
+        if (state != other.state || castlingRights() != other.castlingRights()) {
+            return false;
+        }
+        for (int i = 0; i < 64; i++) {
+            if (((squares[i] ^ other.squares[i]) & ~MOVED) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the castling rights as four bits in Board's castling order: a right
+     * holds while its rook and the king of that side are unmoved on the home rank,
+     * with the rook on the matching side of the king.
+     */
+    private int castlingRights() {
+        int rights = 0;
+        for (int i = 0; i < 4; i++) {
+            int row = i < 2 ? 7 : 0;
+            int side = i < 2 ? 0 : BLACK;
+            int rookCol = state >>> (CASTLING_SHIFT + 3 * i) & 7;
+            if (squares[row * 8 + rookCol] != (ROOK | side)) continue;
+            for (int col = 0; col < 8; col++) {
+                if (squares[row * 8 + col] == (KING | side)) {
+                    if (i % 2 == 0 ? rookCol > col : rookCol < col) {
+                        rights |= 1 << i;
+                    }
+                    break;
+                }
+            }
+        }
+        return rights;
+    }
+
+    /**
+     * Generates a hash code from the squares and state.
+     *
+     * @return the hash code value for this snapshot
+     */
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(squares) + state;
+    }
+}
@@ -0,0 +1,130 @@
+package board;
+
+import pieces.Piece;
+import utils.Metrics;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+
+/**
+ * Draws boards as text. Each frame is built in a reusable StringBuilder and then
+ * written to the output in a single call followed by one flush, rather than one
+ * console call per square. Optionally colors the squares and pieces with ANSI
+ * escape codes, and can redraw each frame over the previous one at the top of the
+ * terminal instead of scrolling. A renderer keeps its buffer between frames and
+ * is not thread-safe; use one per console or session.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class ConsoleRenderer {
+    private static final String RESET = "\u001b[0m";
+    private static final String LIGHT_BACKGROUND = "\u001b[48;5;180m";
+    private static final String DARK_BACKGROUND = "\u001b[48;5;137m";
+    private static final String WHITE_PIECE = "\u001b[1;97m";
+    private static final String BLACK_PIECE = "\u001b[1;30m";
+    private static final String CURSOR_HOME_AND_CLEAR = "\u001b[H\u001b[J";
+
+    private final Writer out;
+    private final StringBuilder frame = new StringBuilder(512);
+    private boolean color;
+    private boolean redrawInPlace;
+
+    /**
+     * Constructs a renderer writing to a character stream.
+     *
+     * @param out the destination of the frames
+     */
+    public ConsoleRenderer(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Constructs a renderer writing to a byte stream in the platform encoding,
+     * such as System.out.
+     *
+     * @param out the destination of the frames
+     */
+    public ConsoleRenderer(PrintStream out) {
+        this(new OutputStreamWriter(out));
+    }
+
+    /**
+     * Enables or disables ANSI colors. Without colors, empty squares alternate
+     * between "##" and blanks.
+     *
+     * @param color true to color squares and pieces
+     */
+    public void setColor(boolean color) {
+        this.color = color;
+    }
+
+    /**
+     * Enables or disables redrawing in place. When enabled, every frame moves the
+     * cursor to the top of the terminal and clears the screen before drawing.
+     *
+     * @param redrawInPlace true to overwrite the previous frame
+     */
+    public void setRedrawInPlace(boolean redrawInPlace) {
+        this.redrawInPlace = redrawInPlace;
+    }
+
+    /**
+     * Builds the text of a frame without writing it. The returned sequence is
+     * the renderer's internal buffer and is only valid until the next frame.
+     *
+     * @param board the board to draw
+     * @return the frame text
+     */
+    public CharSequence render(Board board) {
+        long start = Metrics.start();
+        frame.setLength(0);
+        if (redrawInPlace) {
+            frame.append(CURSOR_HOME_AND_CLEAR);
+        }
+        frame.append('\n');
+        Piece[][] grid = board.getGrid();
+        for (int row = 0; row < 8; row++) {
+            frame.append(8 - row).append(' ');
+            for (int col = 0; col < 8; col++) {
+                appendSquare(grid[row][col], (row + col) % 2 == 0);
+            }
+            if (color) {
+                frame.append(RESET);
+            }
+            frame.append('\n');
+        }
+        frame.append("  A  B  C  D  E  F  G  H\n\n");
+        Metrics.record(Metrics.Phase.RENDER, start);
+        return frame;
+    }
+
+    /**
+     * Builds a frame and writes it to the output with a single write and flush.
+     *
+     * @param board the board to draw
+     * @throws IOException if writing to the output fails
+     */
+    public void draw(Board board) throws IOException {
+        render(board);
+        out.append(frame);
+        out.flush();
+    }
+
+    private void appendSquare(Piece piece, boolean light) {
+        if (color) {
+            frame.append(light ? LIGHT_BACKGROUND : DARK_BACKGROUND);
+            if (piece == null) {
+                frame.append("   ");
+            } else {
+                frame.append(piece.getColor().equals("white") ? WHITE_PIECE : BLACK_PIECE)
+                    .append(piece).append(' ');
+            }
+        } else if (piece == null) {
+            frame.append(light ? "## " : "   ");
+        } else {
+            frame.append(piece).append(' ');
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package board;
+
+import pieces.*;
+import position.Position;
+import utils.Utilities;
+
+/**
+ * Converts between Board objects and Forsyth-Edwards Notation (FEN) strings.
+ * Castling rights are mapped onto the hasMoved flags of kings and rooks, which is
+ * how the Board tracks them. For Chess960 the castling field may also be written
+ * in X-FEN (K and Q name the outermost rook on that side of the king) or
+ * Shredder-FEN (the rook's file letter, A-H for white and a-h for black).
+ * The halfmove clock is kept by the board; the fullmove number is accepted but
+ * not stored.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class Fen {
+    /** FEN of the standard starting position. */
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /** Knight squares among the five left after bishops and queen, by Chess960 number / 96. */
+    private static final int[][] KNIGHT_PLACEMENTS = {
+        {0, 1}, {0, 2}, {0, 3}, {0, 4}, {1, 2}, {1, 3}, {1, 4}, {2, 3}, {2, 4}, {3, 4}
+    };
+
+    /**
+     * Builds a Board from a FEN string.
+     *
+     * @param fen the FEN string
+     * @return a new Board with the described position
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public static Board toBoard(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("FEN must have 8 ranks: " + fen);
+        }
+        String castling = fields.length > 2 ? fields[2] : "-";
+        byte[] codes = new byte[64];
+        for (int row = 0; row < 8; row++) {
+            int col = 0;
+            for (char c : ranks[row].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                if (col >= 8) {
+                    throw new IllegalArgumentException("Too many squares in rank: " + ranks[row]);
+                }
+                codes[row * 8 + col] = pieceCode(c, row, col);
+                col++;
+            }
+            if (col != 8) {
+                throw new IllegalArgumentException("Rank must have 8 squares: " + ranks[row]);
+            }
+        }
+        byte[] castlingRooks = BoardSnapshot.STANDARD_CASTLING_ROOKS.clone();
+        if (!castling.equals("-")) {
+            for (char c : castling.toCharArray()) {
+                addCastlingRight(codes, castlingRooks, c);
+            }
+        }
+        Position enPassantTarget = null;
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            // The target is behind a pawn that just moved two squares: rank 6 when white is to move
+            char rank = activeColor(fen).equals("white") ? '6' : '3';
+            if (!Utilities.isValidNotation(fields[3]) || fields[3].charAt(1) != rank) {
+                throw new IllegalArgumentException("Bad en passant square: " + fields[3]);
+            }
+            enPassantTarget = Position.fromString(fields[3].toUpperCase());
+        }
+        Board board = new Board(new BoardSnapshot(codes, enPassantTarget, castlingRooks));
+        if (fields.length > 4) {
+            try {
+                board.setHalfmoveClock(Integer.parseInt(fields[4]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad halfmove clock: " + fields[4]);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Gets the side to move from a FEN string.
+     *
+     * @param fen the FEN string
+     * @return "white" or "black"
+     */
+    public static String activeColor(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        return fields.length > 1 && fields[1].equals("b") ? "black" : "white";
+    }
+
+    /**
+     * Converts a board and side to move to a FEN string.
+     *
+     * @param board the board to describe
+     * @param activeColor the side to move ("white" or "black")
+     * @return the FEN string
+     */
+    public static String fromBoard(Board board, String activeColor) {
+        StringBuilder sb = new StringBuilder();
+        Piece[][] grid = board.getGrid();
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                Piece piece = grid[row][col];
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                sb.append(pieceChar(piece));
+            }
+            if (empty > 0) sb.append(empty);
+            if (row < 7) sb.append('/');
+        }
+        sb.append(activeColor.equals("white") ? " w " : " b ");
+
+        String castling = castlingRights(board);
+        sb.append(castling.isEmpty() ? "-" : castling);
+
+        Position ep = board.getEnPassantTarget();
+        sb.append(' ').append(ep == null ? "-" : ep.toString().toLowerCase());
+        sb.append(' ').append(board.getHalfmoveClock()).append(" 1");
+        return sb.toString();
+    }
+
+    /**
+     * Gets the starting position of a Chess960 game by its standard number, from 0
+     * to 959, using the Scharnagl numbering. Number 518 is the standard position.
+     *
+     * @param number the start position number
+     * @return the FEN of the start position, white to move
+     * @throws IllegalArgumentException if the number is out of range
+     */
+    public static String chess960(int number) {
+        if (number < 0 || number > 959) {
+            throw new IllegalArgumentException("Chess960 positions are numbered 0 to 959: " + number);
+        }
+        char[] rank = new char[8];
+        int n = number;
+        rank[n % 4 * 2 + 1] = 'b';
+        n /= 4;
+        rank[n % 4 * 2] = 'b';
+        n /= 4;
+        placeOnEmpty(rank, n % 6, 'q');
+        n /= 6;
+        int[] knights = KNIGHT_PLACEMENTS[n];
+        // Place the second knight first so the first one's index still counts the same squares
+        placeOnEmpty(rank, knights[1], 'n');
+        placeOnEmpty(rank, knights[0], 'n');
+        placeOnEmpty(rank, 0, 'r');
+        placeOnEmpty(rank, 0, 'k');
+        placeOnEmpty(rank, 0, 'r');
+        String black = new String(rank);
+        return black + "/pppppppp/8/8/8/8/PPPPPPPP/" + black.toUpperCase() + " w KQkq - 0 1";
+    }
+
+    /**
+     * Gets the FEN letter for a piece (upper case for white, lower case for black).
+     *
+     * @param piece the piece
+     * @return the FEN letter
+     */
+    public static char pieceChar(Piece piece) {
+        char c;
+        if (piece instanceof Pawn) c = 'p';
+        else if (piece instanceof Knight) c = 'n';
+        else if (piece instanceof Bishop) c = 'b';
+        else if (piece instanceof Rook) c = 'r';
+        else if (piece instanceof Queen) c = 'q';
+        else c = 'k';
+        return piece.getColor().equals("white") ? Character.toUpperCase(c) : c;
+    }
+
+    private static void placeOnEmpty(char[] rank, int index, char piece) {
+        for (int col = 0; col < 8; col++) {
+            if (rank[col] == 0 && index-- == 0) {
+                rank[col] = piece;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Clears the moved flags of a king and rook for one castling letter and records
+     * the rook's column. Letters naming no unmoved-looking king and rook pair on the
+     * back rank are ignored, as before.
+     */
+    private static void addCastlingRight(byte[] codes, byte[] castlingRooks, char letter) {
+        boolean white = Character.isUpperCase(letter);
+        char c = Character.toLowerCase(letter);
+        int homeRow = white ? 7 : 0;
+        int side = white ? 0 : BoardSnapshot.BLACK;
+        int kingCol = -1;
+        for (int col = 0; col < 8; col++) {
+            if ((codes[homeRow * 8 + col] & ~BoardSnapshot.MOVED) == (BoardSnapshot.KING | side)) {
+                kingCol = col;
+            }
+        }
+        if (kingCol < 0) {
+            return;
+        }
+        int rookCol = -1;
+        if (c == 'k') {
+            for (int col = 7; col > kingCol && rookCol < 0; col--) {
+                if (isRook(codes, homeRow, col, side)) rookCol = col;
+            }
+        } else if (c == 'q') {
+            for (int col = 0; col < kingCol && rookCol < 0; col++) {
+                if (isRook(codes, homeRow, col, side)) rookCol = col;
+            }
+        } else if (c >= 'a' && c <= 'h' && isRook(codes, homeRow, c - 'a', side) && c - 'a' != kingCol) {
+            rookCol = c - 'a';
+        } else if (c < 'a' || c > 'h') {
+            throw new IllegalArgumentException("Unknown castling letter: " + letter);
+        }
+        if (rookCol < 0) {
+            return;
+        }
+        boolean kingside = rookCol > kingCol;
+        castlingRooks[(white ? 0 : 2) + (kingside ? 0 : 1)] = (byte) rookCol;
+        codes[homeRow * 8 + kingCol] &= ~BoardSnapshot.MOVED;
+        codes[homeRow * 8 + rookCol] &= ~BoardSnapshot.MOVED;
+    }
+
+    private static boolean isRook(byte[] codes, int row, int col, int side) {
+        return (codes[row * 8 + col] & ~BoardSnapshot.MOVED) == (BoardSnapshot.ROOK | side);
+    }
+
+    private static byte pieceCode(char c, int row, int col) {
+        boolean white = Character.isUpperCase(c);
+        int code;
+        switch (Character.toLowerCase(c)) {
+            case 'p':
+                code = BoardSnapshot.PAWN;
+                break;
+            case 'n':
+                code = BoardSnapshot.KNIGHT;
+                break;
+            case 'b':
+                code = BoardSnapshot.BISHOP;
+                break;
+            case 'r':
+                code = BoardSnapshot.ROOK;
+                break;
+            case 'q':
+                code = BoardSnapshot.QUEEN;
+                break;
+            case 'k':
+                code = BoardSnapshot.KING;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown piece letter: " + c);
+        }
+
+        // Kings and rooks count as moved until a castling letter says otherwise
+        boolean moved = code != BoardSnapshot.PAWN || row != (white ? 6 : 1);
+
+        if (!white) code |= BoardSnapshot.BLACK;
+        if (moved) code |= BoardSnapshot.MOVED;
+        return (byte) code;
+    }
+
+    /**
+     * Writes the castling rights in X-FEN: K, Q, k and q while the castling rook is
+     * the outermost rook on its side of the king, which covers every standard
+     * position, and the rook's file letter otherwise.
+     */
+    private static String castlingRights(Board board) {
+        StringBuilder sb = new StringBuilder();
+        for (String color : new String[] {"white", "black"}) {
+            for (boolean kingside : new boolean[] {true, false}) {
+                if (!board.hasCastlingRight(color, kingside)) continue;
+                int rookCol = board.getCastlingRookColumn(color, kingside);
+                char letter = isOutermostRook(board, color, rookCol, kingside)
+                    ? (kingside ? 'k' : 'q') : (char) ('a' + rookCol);
+                sb.append(color.equals("white") ? Character.toUpperCase(letter) : letter);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isOutermostRook(Board board, String color, int rookCol, boolean kingside) {
+        Piece[] homeRank = board.getGrid()[color.equals("white") ? 7 : 0];
+        for (int col = kingside ? rookCol + 1 : 0; col < (kingside ? 8 : rookCol); col++) {
+            Piece piece = homeRank[col];
+            if (piece instanceof Rook && piece.getColor().equals(color)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
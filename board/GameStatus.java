@@ -0,0 +1,266 @@
+package board;
+
+import pieces.*;
+import position.Position;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable summary of a position for the side to move: whether its king is in
+ * check and by which pieces, the full list of legal moves, and whether the game
+ * has ended, including by the draw rules. Computed once per position so that
+ * front-ends can answer all of these questions without rescanning the board.
+ * Legal moves are also indexed by origin square, so the targets of a piece are a
+ * single array lookup.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class GameStatus {
+    /**
+     * Whether the game continues or how it ended.
+     */
+    public enum State {
+        /** The side to move has at least one legal move. */
+        ONGOING,
+        /** The side to move is in check and has no legal moves. */
+        CHECKMATE,
+        /** The side to move is not in check but has no legal moves. */
+        STALEMATE,
+        /** Neither side has enough material left to checkmate. */
+        INSUFFICIENT_MATERIAL,
+        /** A hundred plies have passed without a capture or pawn move. */
+        FIFTY_MOVE_RULE,
+        /** The position has occurred three times with the same side to move. */
+        THREEFOLD_REPETITION
+    }
+
+    private final String color;
+    private final List<Position> checkers;
+    private final List<Move> legalMoves;
+    private final State state;
+    private final long[] targetsByOrigin = new long[64];
+
+    private GameStatus(String color, List<Position> checkers, List<Move> legalMoves, State drawState) {
+        this.color = color;
+        this.checkers = Collections.unmodifiableList(checkers);
+        this.legalMoves = Collections.unmodifiableList(legalMoves);
+        for (Move move : legalMoves) {
+            Position from = move.getFrom();
+            Position to = move.getTo();
+            targetsByOrigin[from.row * 8 + from.col] |= 1L << (to.row * 8 + to.col);
+        }
+        if (!legalMoves.isEmpty()) {
+            state = drawState;
+        } else {
+            state = checkers.isEmpty() ? State.STALEMATE : State.CHECKMATE;
+        }
+    }
+
+    /**
+     * Computes the status of a position.
+     *
+     * @param board the current board
+     * @param color the side to move
+     * @return the status of the side to move
+     */
+    public static GameStatus compute(Board board, String color) {
+        return new GameStatus(color, findCheckers(board, color), MoveGenerator.legalMoves(board, color),
+            drawState(board, color));
+    }
+
+    /**
+     * Returns this status with a different draw state, for positions whose pieces
+     * match but whose move counters or history differ. Checkmate and stalemate are
+     * kept, since they depend on the position alone.
+     *
+     * @param drawState the draw that ends the game, or ONGOING if none applies
+     * @return a status with the given draw state (this status if it is unchanged)
+     */
+    public GameStatus withDrawState(State drawState) {
+        if (legalMoves.isEmpty() || state == drawState) {
+            return this;
+        }
+        return new GameStatus(color, checkers, legalMoves, drawState);
+    }
+
+    /**
+     * Checks the draw rules that do not depend on the legal moves: insufficient
+     * material, the fifty-move rule and threefold repetition. Game loops that test
+     * for checkmate and stalemate separately use this on its own; it costs no more
+     * than a hash of the position and a walk over the moves since the last capture
+     * or pawn move. Checkmate takes precedence, so it should only be consulted when
+     * the side to move has a legal move.
+     *
+     * @param board the current board
+     * @param color the side to move
+     * @return the draw that ends the game, or ONGOING if none applies
+     */
+    public static State drawState(Board board, String color) {
+        if (board.hasInsufficientMaterial()) {
+            return State.INSUFFICIENT_MATERIAL;
+        }
+        if (board.isFiftyMoveDraw()) {
+            return State.FIFTY_MOVE_RULE;
+        }
+        if (board.isThreefoldRepetition(color)) {
+            return State.THREEFOLD_REPETITION;
+        }
+        return State.ONGOING;
+    }
+
+    /**
+     * Describes how a game ended, for display.
+     *
+     * @param state the final state
+     * @param color the side to move in the final position
+     * @return the message, or null if the game is not over
+     */
+    public static String describe(State state, String color) {
+        switch (state) {
+            case CHECKMATE:
+                return "Checkmate! " + (color.equals("white") ? "Black" : "White") + " wins!";
+            case STALEMATE:
+                return "Stalemate! It's a draw.";
+            case INSUFFICIENT_MATERIAL:
+                return "Draw by insufficient material.";
+            case FIFTY_MOVE_RULE:
+                return "Draw by the fifty-move rule.";
+            case THREEFOLD_REPETITION:
+                return "Draw by threefold repetition.";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets the side this status describes.
+     *
+     * @return the side to move
+     */
+    public String getColor() {
+        return color;
+    }
+
+    /**
+     * Checks whether the side to move is in check.
+     *
+     * @return true if the king is attacked
+     */
+    public boolean isInCheck() {
+        return !checkers.isEmpty();
+    }
+
+    /**
+     * Gets the squares of the enemy pieces giving check.
+     *
+     * @return the checking pieces' positions (empty if not in check)
+     */
+    public List<Position> getCheckers() {
+        return checkers;
+    }
+
+    /**
+     * Gets every legal move of the side to move.
+     *
+     * @return the legal moves
+     */
+    public List<Move> getLegalMoves() {
+        return legalMoves;
+    }
+
+    /**
+     * Checks whether moving from one square to another is legal, with any promotion.
+     *
+     * @param from the starting square
+     * @param to the destination square
+     * @return true if the move is legal
+     */
+    public boolean isLegalMove(Position from, Position to) {
+        return (getTargetMask(from) & 1L << (to.row * 8 + to.col)) != 0;
+    }
+
+    /**
+     * Gets the legal destination squares of the piece on a square as a bit mask,
+     * where bit (row * 8 + col) is set for each destination.
+     *
+     * @param from the origin square
+     * @return the destination mask (0 if the square has no legal moves)
+     */
+    public long getTargetMask(Position from) {
+        return targetsByOrigin[from.row * 8 + from.col];
+    }
+
+    /**
+     * Gets the legal destination squares of the piece on a square.
+     *
+     * @param from the origin square
+     * @return the destinations (empty if the square has no legal moves)
+     */
+    public List<Position> getTargets(Position from) {
+        List<Position> targets = new ArrayList<>();
+        long mask = getTargetMask(from);
+        while (mask != 0) {
+            int square = Long.numberOfTrailingZeros(mask);
+            targets.add(new Position(square / 8, square % 8));
+            mask &= mask - 1;
+        }
+        return targets;
+    }
+
+    /**
+     * Gets whether the game continues or how it ended.
+     *
+     * @return the game state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Checks whether the game is over.
+     *
+     * @return true on checkmate, stalemate or a draw
+     */
+    public boolean isGameOver() {
+        return state != State.ONGOING;
+    }
+
+    /**
+     * Checks whether the game ended in a draw, by stalemate or a draw rule.
+     *
+     * @return true if the game is drawn
+     */
+    public boolean isDraw() {
+        return state != State.ONGOING && state != State.CHECKMATE;
+    }
+
+    /**
+     * Describes how the game ended, for display.
+     *
+     * @return the message, or null if the game is not over
+     */
+    public String getResultMessage() {
+        return describe(state, color);
+    }
+
+    private static List<Position> findCheckers(Board board, String color) {
+        List<Position> checkers = new ArrayList<>();
+        Position kingPos = board.findKing(color);
+        if (kingPos == null) {
+            return checkers;
+        }
+        Piece[][] grid = board.getGrid();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = grid[row][col];
+                if (piece == null || piece.getColor().equals(color)) continue;
+                if (piece.possibleMoves(grid).contains(kingPos)) {
+                    checkers.add(new Position(row, col));
+                }
+            }
+        }
+        return checkers;
+    }
+}
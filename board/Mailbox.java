@@ -0,0 +1,171 @@
+package board;
+
+import pieces.Piece;
+
+/**
+ * A 10x12 mailbox copy of a board: one byte per square using the BoardSnapshot
+ * piece codes, surrounded by sentinel squares marked OFF_BOARD (two rows above and
+ * below, one column on each side). Stepping off the board in any direction, even by
+ * a knight jump, lands on a sentinel, so move and attack loops need a single
+ * comparison instead of four bounds checks, and piece colors are bit tests instead
+ * of string comparisons. Board keeps it in step with its grid when enabled. The
+ * layout (index, ray steps, knight jumps) is public for code outside the package
+ * that works on a copy from {@link Board#copyMailbox(byte[])}.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public final class Mailbox {
+    /** Code of the sentinel squares around the board. */
+    public static final byte OFF_BOARD = 32;
+    /** Number of squares, including the sentinels. */
+    public static final int SIZE = 120;
+    /** Index steps of the eight rays, in the same order as Attacks.RAY_ROW / RAY_COL. */
+    static final int[] RAYS = {-10, 10, -1, 1, -11, -9, 9, 11};
+    /** Index steps of the eight knight jumps. */
+    static final int[] KNIGHT_JUMPS = {-21, -19, -12, -8, 8, 12, 19, 21};
+
+    private static final int PIECE_BITS = BoardSnapshot.TYPE_MASK | BoardSnapshot.BLACK;
+
+    private final byte[] squares = new byte[SIZE];
+
+    /**
+     * Constructs a mailbox holding the pieces of a grid.
+     *
+     * @param grid the board grid to copy
+     */
+    Mailbox(Piece[][] grid) {
+        fill(grid, squares);
+    }
+
+    /**
+     * Writes the mailbox codes of a grid, sentinels included, into an array.
+     *
+     * @param grid the board grid to copy
+     * @param squares the array to fill, at least SIZE long
+     */
+    static void fill(Piece[][] grid, byte[] squares) {
+        for (int i = 0; i < SIZE; i++) {
+            squares[i] = OFF_BOARD;
+        }
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                squares[index(row, col)] = (byte) (BoardSnapshot.encode(grid[row][col]) & PIECE_BITS);
+            }
+        }
+    }
+
+    /**
+     * Converts a board coordinate to a mailbox index.
+     *
+     * @param row the row (0 = rank 8)
+     * @param col the column (0 = file A)
+     * @return the index into the 120-square array
+     */
+    public static int index(int row, int col) {
+        return (row + 2) * 10 + col + 1;
+    }
+
+    /**
+     * Gets the index step of one of the eight rays: the four orthogonal rays
+     * (up, down, left, right) and then the four diagonals.
+     *
+     * @param dir the ray number, 0 to 7
+     * @return the step between neighbouring squares along the ray
+     */
+    public static int ray(int dir) {
+        return RAYS[dir];
+    }
+
+    /**
+     * Gets the index step of one of the eight knight jumps.
+     *
+     * @param jump the jump number, 0 to 7
+     * @return the step from the knight's square to the square it attacks
+     */
+    public static int knightJump(int jump) {
+        return KNIGHT_JUMPS[jump];
+    }
+
+    /**
+     * Updates one square.
+     *
+     * @param row the row of the square
+     * @param col the column of the square
+     * @param piece the piece now on the square, or null if it is empty
+     */
+    void set(int row, int col, Piece piece) {
+        squares[index(row, col)] = (byte) (BoardSnapshot.encode(piece) & PIECE_BITS);
+    }
+
+    /**
+     * Copies the codes of every square, sentinels included, into an array.
+     *
+     * @param target the array to fill, at least SIZE long
+     */
+    void copyTo(byte[] target) {
+        System.arraycopy(squares, 0, target, 0, SIZE);
+    }
+
+    /**
+     * Gets the code of the piece on a mailbox square.
+     *
+     * @param index the mailbox index
+     * @return the piece type plus BLACK flag, EMPTY, or OFF_BOARD
+     */
+    byte at(int index) {
+        return squares[index];
+    }
+
+    /**
+     * Checks whether a square is attacked, treating one other square as empty.
+     * Same contract as {@link Attacks#isAttacked(Piece[][], int, int, String, int, int)}.
+     *
+     * @param row the row of the square
+     * @param col the column of the square
+     * @param byBlack true if the attackers are black
+     * @param ignoreRow the row of the square to treat as empty (-1 for none)
+     * @param ignoreCol the column of the square to treat as empty
+     * @return true if some piece of that color attacks the square
+     */
+    boolean isAttacked(int row, int col, boolean byBlack, int ignoreRow, int ignoreCol) {
+        int square = index(row, col);
+        int ignore = ignoreRow < 0 ? -1 : index(ignoreRow, ignoreCol);
+        int side = byBlack ? BoardSnapshot.BLACK : 0;
+
+        // A white pawn attacks from the row below, a black pawn from the row above
+        int pawn = BoardSnapshot.PAWN | side;
+        int pawnSquare = square + (byBlack ? -10 : 10);
+        if (squares[pawnSquare - 1] == pawn || squares[pawnSquare + 1] == pawn) {
+            return true;
+        }
+
+        int knight = BoardSnapshot.KNIGHT | side;
+        for (int jump : KNIGHT_JUMPS) {
+            if (squares[square + jump] == knight) {
+                return true;
+            }
+        }
+
+        for (int dir = 0; dir < 8; dir++) {
+            int step = RAYS[dir];
+            int slider = dir < 4 ? BoardSnapshot.ROOK : BoardSnapshot.BISHOP;
+            int s = square + step;
+            int code = s == ignore ? BoardSnapshot.EMPTY : squares[s];
+            if (code == (BoardSnapshot.KING | side)) {
+                return true;
+            }
+            while (code == BoardSnapshot.EMPTY) {
+                s += step;
+                code = s == ignore ? BoardSnapshot.EMPTY : squares[s];
+            }
+            if (code != OFF_BOARD && (code & BoardSnapshot.BLACK) == side) {
+                int type = code & BoardSnapshot.TYPE_MASK;
+                if (type == BoardSnapshot.QUEEN || type == slider) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,168 @@
+package board;
+
+import pieces.*;
+import position.Position;
+import java.io.Serializable;
+
+/**
+ * Represents a single move from one square to another, with an optional
+ * promotion piece for pawns reaching the last rank.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class Move implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final Position from;
+    private final Position to;
+    private final char promotion;
+
+    /**
+     * Constructs a move without promotion.
+     *
+     * @param from the starting position
+     * @param to the destination position
+     */
+    public Move(Position from, Position to) {
+        this(from, to, ' ');
+    }
+
+    /**
+     * Constructs a move with a promotion choice.
+     *
+     * @param from the starting position
+     * @param to the destination position
+     * @param promotion the promotion piece ('Q', 'R', 'B' or 'N'), or ' ' for none
+     */
+    public Move(Position from, Position to, char promotion) {
+        this.from = from;
+        this.to = to;
+        this.promotion = promotion;
+    }
+
+    /**
+     * Gets the starting position of this move.
+     *
+     * @return the starting position
+     */
+    public Position getFrom() {
+        return from;
+    }
+
+    /**
+     * Gets the destination position of this move.
+     *
+     * @return the destination position
+     */
+    public Position getTo() {
+        return to;
+    }
+
+    /**
+     * Gets the promotion piece of this move.
+     *
+     * @return 'Q', 'R', 'B' or 'N', or ' ' if this move is not a promotion
+     */
+    public char getPromotion() {
+        return promotion;
+    }
+
+    /**
+     * Plays this move on a board, including the promotion if there is one.
+     * The move is assumed to be legal.
+     *
+     * @param board the board to update
+     */
+    public void applyTo(Board board) {
+        Piece piece = board.getPiece(from);
+        board.movePiece(from, to);
+        if (promotion != ' ' && piece instanceof Pawn) {
+            board.setPiece(to, createPromotionPiece(promotion, piece.getColor(), to));
+        }
+    }
+
+    /**
+     * Creates the piece a pawn promotes to.
+     *
+     * @param choice 'Q', 'R', 'B' or 'N' (anything else means Queen)
+     * @param color the color of the promoting pawn
+     * @param position the promotion square
+     * @return the new piece
+     */
+    public static Piece createPromotionPiece(char choice, String color, Position position) {
+        switch (choice) {
+            case 'R':
+                return new Rook(color, position);
+            case 'B':
+                return new Bishop(color, position);
+            case 'N':
+                return new Knight(color, position);
+            case 'Q':
+            default:
+                return new Queen(color, position);
+        }
+    }
+
+    /**
+     * Returns this move in UCI long algebraic notation (e.g., "e2e4" or "e7e8q").
+     * Castling is written as the king's two-square move, or as the king moving onto
+     * its rook in Chess960 positions whose king and rooks start elsewhere.
+     *
+     * @return the move in UCI notation
+     */
+    public String toUci() {
+        String text = (from.toString() + to).toLowerCase();
+        return promotion == ' ' ? text : text + Character.toLowerCase(promotion);
+    }
+
+    /**
+     * Parses a move in UCI long algebraic notation (e.g., "e2e4" or "e7e8q").
+     *
+     * @param text the move text
+     * @return the move
+     * @throws IllegalArgumentException if the text is not a well-formed UCI move
+     */
+    public static Move fromUci(String text) {
+        String upper = text.toUpperCase();
+        if (!upper.matches("[A-H][1-8][A-H][1-8][QRBN]?")) {
+            throw new IllegalArgumentException("Not a UCI move: " + text);
+        }
+        Position from = Position.fromString(upper.substring(0, 2));
+        Position to = Position.fromString(upper.substring(2, 4));
+        return upper.length() == 5 ? new Move(from, to, upper.charAt(4)) : new Move(from, to);
+    }
+
+    /**
+     * Returns this move in the console input format (e.g., "E2 E4" or "E7 E8 Q").
+     *
+     * @return the move as text
+     */
+    @Override
+    public String toString() {
+        return from + " " + to + (promotion == ' ' ? "" : " " + promotion);
+    }
+
+    /**
+     * Compares this Move with another object for equality.
+     *
+     * @param obj the object to compare with
+     * @return true if both moves have the same squares and promotion
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        Move move = (Move) obj;
+        return from.equals(move.from) && to.equals(move.to) && promotion == move.promotion;
+    }
+
+    /**
+     * Generates a hash code for this Move.
+     *
+     * @return the hash code value for this Move
+     */
+    @Override
+    public int hashCode() {
+        return ((from.row * 8 + from.col) * 64 + to.row * 8 + to.col) * 31 + promotion;
+    }
+}
@@ -0,0 +1,139 @@
+package board;
+
+import pieces.*;
+import position.Position;
+import utils.Metrics;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the fully legal moves for one side of a Board. Combines each piece's
+ * possibleMoves with the checks the interactive front-ends perform: the move must
+ * not leave the king in check, castling is not allowed out of or through check,
+ * and pawns reaching the last rank produce one move per promotion choice.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class MoveGenerator {
+    private static final char[] PROMOTION_CHOICES = {'Q', 'R', 'B', 'N'};
+
+    /**
+     * Generates every legal move for the given side.
+     *
+     * @param board the current board
+     * @param color the side to move ("white" or "black")
+     * @return a list of legal moves (empty on checkmate or stalemate)
+     */
+    public static List<Move> legalMoves(Board board, String color) {
+        long start = Metrics.start();
+        List<Move> moves = new ArrayList<>();
+        Piece[][] grid = board.getGrid();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = grid[row][col];
+                if (piece != null && piece.getColor().equals(color)) {
+                    addLegalMoves(board, piece, new Position(row, col), moves);
+                }
+            }
+        }
+        Metrics.record(Metrics.Phase.MOVE_GENERATION, start);
+        return moves;
+    }
+
+    /**
+     * Generates the legal moves of the piece standing on a square.
+     *
+     * @param board the current board
+     * @param from the square of the piece
+     * @return a list of legal moves for that piece (empty if the square is empty)
+     */
+    public static List<Move> legalMovesFrom(Board board, Position from) {
+        long start = Metrics.start();
+        List<Move> moves = new ArrayList<>();
+        Piece piece = board.getPiece(from);
+        if (piece != null) {
+            addLegalMoves(board, piece, from, moves);
+        }
+        Metrics.record(Metrics.Phase.MOVE_GENERATION, start);
+        return moves;
+    }
+
+    /**
+     * Gets the pseudo-legal destinations of a piece, including en passant for pawns
+     * and castling for kings.
+     *
+     * @param board the current board
+     * @param piece the piece to generate for
+     * @return the destinations before king-safety filtering
+     */
+    public static List<Position> pseudoLegalTargets(Board board, Piece piece) {
+        if (piece instanceof Pawn) {
+            return ((Pawn) piece).possibleMovesWithEnPassant(board.getGrid(), board.getEnPassantTarget());
+        }
+        List<Position> targets = piece.possibleMoves(board.getGrid());
+        if (piece instanceof King) {
+            targets.addAll(board.castlingTargets(piece.getPosition()));
+        }
+        return targets;
+    }
+
+    /**
+     * Checks the castling-specific restrictions for a castling move: the king may
+     * not castle out of check or through an attacked square.
+     * See {@link Board#isCastlingPathSafe(Position, Position, String)}.
+     *
+     * @param board the current board
+     * @param from the king's square
+     * @param to the king's destination
+     * @param color the color of the castling side
+     * @return true if castling along this path is allowed
+     */
+    public static boolean isCastlingPathSafe(Board board, Position from, Position to, String color) {
+        return board.isCastlingPathSafe(from, to, color);
+    }
+
+    /**
+     * Checks whether a move is a castling move, written either as the king's
+     * two-square move or, in Chess960 positions, as the king moving onto its rook.
+     *
+     * @param board the current board
+     * @param from the starting square
+     * @param to the destination square
+     * @return true if the move is castling
+     */
+    public static boolean isCastling(Board board, Position from, Position to) {
+        return board.isCastlingMove(from, to);
+    }
+
+    /**
+     * Checks whether a pawn move lands on the promotion rank.
+     *
+     * @param piece the moving piece
+     * @param to the destination square
+     * @return true if the move is a promotion
+     */
+    public static boolean isPromotion(Piece piece, Position to) {
+        if (!(piece instanceof Pawn)) return false;
+        return to.row == (piece.getColor().equals("white") ? 0 : 7);
+    }
+
+    private static void addLegalMoves(Board board, Piece piece, Position from, List<Move> moves) {
+        String color = piece.getColor();
+        for (Position to : pseudoLegalTargets(board, piece)) {
+            if (isCastling(board, from, to) && !isCastlingPathSafe(board, from, to, color)) {
+                continue;
+            }
+            if (board.wouldMoveLeaveKingInCheck(from, to, color)) {
+                continue;
+            }
+            if (isPromotion(piece, to)) {
+                for (char choice : PROMOTION_CHOICES) {
+                    moves.add(new Move(from, to, choice));
+                }
+            } else {
+                moves.add(new Move(from, to));
+            }
+        }
+    }
+}
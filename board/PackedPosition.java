@@ -0,0 +1,172 @@
+package board;
+
+import pieces.Piece;
+import position.Position;
+import java.nio.ByteBuffer;
+
+/**
+ * Packs a position into a fixed-width 32-byte binary record, for storing very many
+ * positions compactly on disk or off the heap. Layout (big-endian):
+ * <pre>
+ *  0..7   occupancy bitboard, bit (row * 8 + col) set for each occupied square
+ *  8..23  one 4-bit code per occupied square in bit order (type | BLACK), low nibble first
+ *  24     flags: bit 0 black to move, bits 1-4 castling rights K, Q, k, q
+ *  25     en passant target square + 1, or 0 for none
+ *  26..27 castling rook columns + 1 for K, Q, k, q, one nibble each (high nibble
+ *         first), or 0 for the standard corner; only differs in Chess960 positions
+ *  28..31 caller-defined tag, such as a game number
+ * </pre>
+ * Moved flags are not stored; unpacking derives them the same way FEN does, from
+ * the castling rights and the pawns' home ranks. Records written before the rook
+ * columns were stored have zeros there and read back as standard positions.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public final class PackedPosition {
+    /** Size of one record in bytes. */
+    public static final int SIZE = 32;
+
+    private static final int PIECES_OFFSET = 8;
+    private static final int FLAGS_OFFSET = 24;
+    private static final int EN_PASSANT_OFFSET = 25;
+    private static final int ROOKS_OFFSET = 26;
+    private static final int TAG_OFFSET = 28;
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int[] CASTLING_BITS = {2, 4, 8, 16};
+
+    private PackedPosition() {
+    }
+
+    /**
+     * Writes a position as one record.
+     *
+     * @param buffer the buffer to write to (its position is not changed)
+     * @param offset the byte offset of the record in the buffer
+     * @param board the board to pack
+     * @param color the side to move
+     * @param tag a caller-defined value stored with the position
+     * @throws IllegalArgumentException if the board has more than 32 pieces
+     */
+    public static void write(ByteBuffer buffer, int offset, Board board, String color, int tag) {
+        long occupancy = 0;
+        long nibblesLow = 0;
+        long nibblesHigh = 0;
+        int count = 0;
+        Piece[][] grid = board.getGrid();
+        for (int square = 0; square < 64; square++) {
+            Piece piece = grid[square / 8][square % 8];
+            if (piece == null) continue;
+            if (count == 32) {
+                throw new IllegalArgumentException("More than 32 pieces on the board");
+            }
+            long code = BoardSnapshot.encode(piece) & (BoardSnapshot.TYPE_MASK | BoardSnapshot.BLACK);
+            if (count < 16) {
+                nibblesLow |= code << (count * 4);
+            } else {
+                nibblesHigh |= code << ((count - 16) * 4);
+            }
+            occupancy |= 1L << square;
+            count++;
+        }
+        int flags = color.equals("black") ? BLACK_TO_MOVE : 0;
+        int rooks = 0;
+        for (int i = 0; i < 4; i++) {
+            String side = i < 2 ? "white" : "black";
+            boolean kingside = i % 2 == 0;
+            if (board.hasCastlingRight(side, kingside)) {
+                flags |= CASTLING_BITS[i];
+                int col = board.getCastlingRookColumn(side, kingside);
+                if (col != BoardSnapshot.STANDARD_CASTLING_ROOKS[i]) {
+                    rooks |= (col + 1) << (12 - 4 * i);
+                }
+            }
+        }
+        Position ep = board.getEnPassantTarget();
+
+        buffer.putLong(offset, occupancy);
+        // Nibbles are stored low nibble first, so write the longs little-endian by hand
+        for (int i = 0; i < 8; i++) {
+            buffer.put(offset + PIECES_OFFSET + i, (byte) (nibblesLow >>> (i * 8)));
+            buffer.put(offset + PIECES_OFFSET + 8 + i, (byte) (nibblesHigh >>> (i * 8)));
+        }
+        buffer.put(offset + FLAGS_OFFSET, (byte) flags);
+        buffer.put(offset + EN_PASSANT_OFFSET, (byte) (ep == null ? 0 : ep.row * 8 + ep.col + 1));
+        buffer.putShort(offset + ROOKS_OFFSET, (short) rooks);
+        buffer.putInt(offset + TAG_OFFSET, tag);
+    }
+
+    /**
+     * Reads a record into an existing board, replacing its position. Pieces already
+     * on the right squares are reused, so decoding many positions into one board
+     * allocates little.
+     *
+     * @param buffer the buffer to read from (its position is not changed)
+     * @param offset the byte offset of the record in the buffer
+     * @param board the board to overwrite
+     * @return the side to move ("white" or "black")
+     */
+    public static String read(ByteBuffer buffer, int offset, Board board) {
+        long occupancy = buffer.getLong(offset);
+        int flags = buffer.get(offset + FLAGS_OFFSET);
+        int rooks = buffer.getShort(offset + ROOKS_OFFSET);
+        byte[] castlingRooks = BoardSnapshot.STANDARD_CASTLING_ROOKS.clone();
+        for (int i = 0; i < 4; i++) {
+            int col = rooks >> (12 - 4 * i) & 0xF;
+            if (col != 0) {
+                castlingRooks[i] = (byte) (col - 1);
+            }
+        }
+        byte[] codes = new byte[64];
+        int count = 0;
+        while (occupancy != 0) {
+            int square = Long.numberOfTrailingZeros(occupancy);
+            int packed = buffer.get(offset + PIECES_OFFSET + count / 2) >> ((count & 1) * 4) & 0xF;
+            codes[square] = (byte) (packed | movedFlag(packed, square, flags, castlingRooks));
+            occupancy &= occupancy - 1;
+            count++;
+        }
+        int ep = buffer.get(offset + EN_PASSANT_OFFSET) & 0xFF;
+        board.load(codes, ep == 0 ? null : new Position((ep - 1) / 8, (ep - 1) % 8), castlingRooks);
+        return (flags & BLACK_TO_MOVE) != 0 ? "black" : "white";
+    }
+
+    /**
+     * Reads the tag of a record.
+     *
+     * @param buffer the buffer to read from
+     * @param offset the byte offset of the record in the buffer
+     * @return the tag stored with the position
+     */
+    public static int tag(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + TAG_OFFSET);
+    }
+
+    private static int movedFlag(int code, int square, int flags, byte[] castlingRooks) {
+        int row = square / 8;
+        int col = square % 8;
+        boolean white = (code & BoardSnapshot.BLACK) == 0;
+        int homeRow = white ? 7 : 0;
+        int first = white ? 0 : 2;
+        int kingside = CASTLING_BITS[first];
+        int queenside = CASTLING_BITS[first + 1];
+        boolean moved;
+        switch (code & BoardSnapshot.TYPE_MASK) {
+            case BoardSnapshot.KING:
+                // A side has one king on its back rank when it has a castling right
+                moved = !(row == homeRow && (flags & (kingside | queenside)) != 0);
+                break;
+            case BoardSnapshot.ROOK:
+                moved = !(row == homeRow && ((col == castlingRooks[first] && (flags & kingside) != 0)
+                    || (col == castlingRooks[first + 1] && (flags & queenside) != 0)));
+                break;
+            case BoardSnapshot.PAWN:
+                moved = row != (white ? 6 : 1);
+                break;
+            default:
+                moved = true;
+                break;
+        }
+        return moved ? BoardSnapshot.MOVED : 0;
+    }
+}
@@ -0,0 +1,186 @@
+package board;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams games from a Portable Game Notation (PGN) source one at a time.
+ * Tag pairs are collected into a map and the main line is returned as a list of
+ * SAN tokens; comments, variations, move numbers and NAGs are skipped.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class PgnReader implements Closeable {
+    private final BufferedReader reader;
+
+    /**
+     * A single game read from a PGN source.
+     */
+    public static class PgnGame {
+        private final Map<String, String> tags;
+        private final List<String> moves;
+        private final String result;
+
+        PgnGame(Map<String, String> tags, List<String> moves, String result) {
+            this.tags = Collections.unmodifiableMap(tags);
+            this.moves = Collections.unmodifiableList(moves);
+            this.result = result;
+        }
+
+        /**
+         * Gets the tag pairs of this game (e.g., "White", "Result", "FEN").
+         *
+         * @return the tags in file order
+         */
+        public Map<String, String> getTags() {
+            return tags;
+        }
+
+        /**
+         * Gets the main-line moves in SAN.
+         *
+         * @return the SAN move tokens
+         */
+        public List<String> getMoves() {
+            return moves;
+        }
+
+        /**
+         * Gets the game result token.
+         *
+         * @return "1-0", "0-1", "1/2-1/2" or "*"
+         */
+        public String getResult() {
+            return result;
+        }
+
+        /**
+         * Gets the starting position of this game, honoring the FEN tag if present.
+         *
+         * @return the starting position as FEN
+         */
+        public String getStartFen() {
+            String fen = tags.get("FEN");
+            return fen != null ? fen : Fen.START_POSITION;
+        }
+    }
+
+    /**
+     * Constructs a reader over a PGN character stream.
+     *
+     * @param reader the source of PGN text
+     */
+    public PgnReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    /**
+     * Reads the next game.
+     *
+     * @return the next game, or null at the end of the input
+     * @throws IOException if reading fails
+     */
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<String> moves = new ArrayList<>();
+        int variationDepth = 0;
+        boolean inComment = false;
+        boolean started = false;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!inComment && variationDepth == 0 && line.startsWith("[")) {
+                int space = line.indexOf(' ');
+                int firstQuote = line.indexOf('"');
+                int lastQuote = line.lastIndexOf('"');
+                if (space > 1 && firstQuote > space && lastQuote > firstQuote) {
+                    tags.put(line.substring(1, space), line.substring(firstQuote + 1, lastQuote));
+                }
+                started = true;
+                continue;
+            }
+            if (!inComment && line.startsWith("%")) {
+                continue;
+            }
+
+            int i = 0;
+            while (i < line.length()) {
+                char c = line.charAt(i);
+                if (inComment) {
+                    if (c == '}') inComment = false;
+                    i++;
+                } else if (c == '{') {
+                    inComment = true;
+                    i++;
+                } else if (c == ';') {
+                    break;
+                } else if (c == '(') {
+                    variationDepth++;
+                    i++;
+                } else if (c == ')') {
+                    variationDepth--;
+                    i++;
+                } else if (Character.isWhitespace(c)) {
+                    i++;
+                } else {
+                    int end = i;
+                    while (end < line.length() && " \t{}();".indexOf(line.charAt(end)) < 0) {
+                        end++;
+                    }
+                    String token = line.substring(i, end);
+                    i = end;
+                    if (variationDepth > 0) continue;
+                    started = true;
+                    if (isResult(token)) {
+                        return new PgnGame(tags, moves, token);
+                    }
+                    String move = stripMoveNumber(token);
+                    if (!move.isEmpty() && !move.startsWith("$")) {
+                        moves.add(move);
+                    }
+                }
+            }
+        }
+        if (!started) {
+            return null;
+        }
+        String result = tags.containsKey("Result") ? tags.get("Result") : "*";
+        return new PgnGame(tags, moves, result);
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static boolean isResult(String token) {
+        return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+    }
+
+    private static String stripMoveNumber(String token) {
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) i++;
+        if (i > 0 && i < token.length() && token.charAt(i) == '.') {
+            while (i < token.length() && token.charAt(i) == '.') i++;
+            return token.substring(i);
+        }
+        if (i == token.length()) {
+            return "";
+        }
+        return token;
+    }
+}
@@ -0,0 +1,96 @@
+package board;
+
+import pieces.*;
+import position.Position;
+import java.util.List;
+
+/**
+ * Resolves moves written in Standard Algebraic Notation (e.g., "Nf3", "exd5",
+ * "O-O", "e8=Q+") against the legal moves of a position.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class San {
+    /**
+     * Finds the legal move described by a SAN string.
+     *
+     * @param board the current board
+     * @param color the side to move
+     * @param san the move in SAN
+     * @return the matching legal move
+     * @throws IllegalArgumentException if the text matches no legal move or is ambiguous
+     */
+    public static Move parse(Board board, String color, String san) {
+        String text = san.replaceAll("[+#!?]", "");
+        List<Move> legalMoves = MoveGenerator.legalMoves(board, color);
+
+        if (text.equals("O-O") || text.equals("0-0") || text.equals("O-O-O") || text.equals("0-0-0")) {
+            boolean kingside = text.length() == 3;
+            for (Move move : legalMoves) {
+                if (MoveGenerator.isCastling(board, move.getFrom(), move.getTo())
+                        && (move.getTo().col > move.getFrom().col) == kingside) {
+                    return move;
+                }
+            }
+            throw new IllegalArgumentException("Illegal castling: " + san);
+        }
+
+        char promotion = ' ';
+        int equals = text.indexOf('=');
+        if (equals >= 0) {
+            promotion = Character.toUpperCase(text.charAt(equals + 1));
+            text = text.substring(0, equals);
+        } else if (text.length() > 2 && "QRBN".indexOf(text.charAt(text.length() - 1)) >= 0
+                && Character.isDigit(text.charAt(text.length() - 2))) {
+            // Promotion written without '=' (e.g., "e8Q")
+            promotion = text.charAt(text.length() - 1);
+            text = text.substring(0, text.length() - 1);
+        }
+
+        char pieceLetter = 'P';
+        if (!text.isEmpty() && "KQRBN".indexOf(text.charAt(0)) >= 0) {
+            pieceLetter = text.charAt(0);
+            text = text.substring(1);
+        }
+        text = text.replace("x", "");
+        if (text.length() < 2) {
+            throw new IllegalArgumentException("Malformed SAN: " + san);
+        }
+        Position to = Position.fromString(text.substring(text.length() - 2).toUpperCase());
+        String disambiguation = text.substring(0, text.length() - 2);
+
+        Move found = null;
+        for (Move move : legalMoves) {
+            Piece piece = board.getPiece(move.getFrom());
+            if (!move.getTo().equals(to) || pieceLetter(piece) != pieceLetter
+                    || move.getPromotion() != promotion
+                    || (piece instanceof King && MoveGenerator.isCastling(board, move.getFrom(), move.getTo()))) {
+                continue;
+            }
+            if (!matchesDisambiguation(move.getFrom(), disambiguation)) {
+                continue;
+            }
+            if (found != null) {
+                throw new IllegalArgumentException("Ambiguous SAN: " + san);
+            }
+            found = move;
+        }
+        if (found == null) {
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        return found;
+    }
+
+    private static boolean matchesDisambiguation(Position from, String disambiguation) {
+        for (char c : disambiguation.toCharArray()) {
+            if (c >= 'a' && c <= 'h' && from.col != c - 'a') return false;
+            if (c >= '1' && c <= '8' && from.row != 8 - (c - '0')) return false;
+        }
+        return true;
+    }
+
+    private static char pieceLetter(Piece piece) {
+        return Character.toUpperCase(Fen.pieceChar(piece));
+    }
+}
@@ -0,0 +1,130 @@
+package board;
+
+import pieces.*;
+import position.Position;
+
+/**
+ * Computes 64-bit Zobrist hash keys for board positions. The key covers piece
+ * placement, side to move, castling rights (unmoved kings and castling rooks) and
+ * the en passant file when a pawn of the side to move can actually capture.
+ * A Chess960 right held by a rook other than the corner rook also mixes in that
+ * rook's column, so positions differing only in which rook may castle get
+ * different keys; standard positions keep the keys they always had.
+ * The random tables are generated from a fixed seed, so keys are stable across
+ * runs and can be stored in files such as opening books.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class Zobrist {
+    private static final long[][] PIECE_KEYS = new long[16][64];
+    private static final long[] CASTLING_KEYS = new long[4];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    private static final long BLACK_TO_MOVE;
+    /** Extra keys for castling rights held by a rook off its standard corner, by right and column. */
+    private static final long[][] CASTLING_ROOK_KEYS = new long[4][8];
+
+    static {
+        long seed = 0x3554C4E55L;
+        for (int code = 0; code < 16; code++) {
+            for (int square = 0; square < 64; square++) {
+                seed = nextSeed(seed);
+                PIECE_KEYS[code][square] = mix(seed);
+            }
+        }
+        for (int i = 0; i < 4; i++) {
+            seed = nextSeed(seed);
+            CASTLING_KEYS[i] = mix(seed);
+        }
+        for (int i = 0; i < 8; i++) {
+            seed = nextSeed(seed);
+            EN_PASSANT_KEYS[i] = mix(seed);
+        }
+        seed = nextSeed(seed);
+        BLACK_TO_MOVE = mix(seed);
+        // Drawn after the original tables so that existing keys do not change
+        for (int i = 0; i < 4; i++) {
+            for (int col = 0; col < 8; col++) {
+                seed = nextSeed(seed);
+                CASTLING_ROOK_KEYS[i][col] = mix(seed);
+            }
+        }
+    }
+
+    /**
+     * Computes the hash key of a position.
+     *
+     * @param board the board
+     * @param sideToMove the side to move ("white" or "black")
+     * @return the 64-bit Zobrist key
+     */
+    public static long hash(Board board, String sideToMove) {
+        // The board keeps the piece part of the key up to date as pieces move
+        long key = board.placementKey();
+        Piece[][] grid = board.getGrid();
+        key ^= castlingKey(board, "white", true, 0) ^ castlingKey(board, "white", false, 1)
+            ^ castlingKey(board, "black", true, 2) ^ castlingKey(board, "black", false, 3);
+
+        Position ep = board.getEnPassantTarget();
+        if (ep != null && canCaptureEnPassant(grid, ep, sideToMove)) {
+            key ^= EN_PASSANT_KEYS[ep.col];
+        }
+        if (sideToMove.equals("black")) {
+            key ^= BLACK_TO_MOVE;
+        }
+        return key;
+    }
+
+    /**
+     * Gets the key contribution of a piece on a square (ignoring its moved flag).
+     *
+     * @param piece the piece
+     * @param square the square index (row * 8 + col)
+     * @return the key to XOR into the hash
+     */
+    public static long pieceKey(Piece piece, int square) {
+        return pieceKey(BoardSnapshot.encode(piece) & (BoardSnapshot.TYPE_MASK | BoardSnapshot.BLACK), square);
+    }
+
+    /**
+     * Gets the key contribution of a piece code on a square.
+     *
+     * @param code the piece type plus BLACK flag
+     * @param square the square index (row * 8 + col)
+     * @return the key to XOR into the hash
+     */
+    static long pieceKey(int code, int square) {
+        return PIECE_KEYS[code][square];
+    }
+
+    private static long castlingKey(Board board, String color, boolean kingside, int index) {
+        if (!board.hasCastlingRight(color, kingside)) {
+            return 0;
+        }
+        int rookCol = board.getCastlingRookColumn(color, kingside);
+        return rookCol == (kingside ? 7 : 0)
+            ? CASTLING_KEYS[index] : CASTLING_KEYS[index] ^ CASTLING_ROOK_KEYS[index][rookCol];
+    }
+
+    private static boolean canCaptureEnPassant(Piece[][] grid, Position ep, String sideToMove) {
+        int pawnRow = sideToMove.equals("white") ? ep.row + 1 : ep.row - 1;
+        for (int col = ep.col - 1; col <= ep.col + 1; col += 2) {
+            if (col < 0 || col >= 8) continue;
+            Piece piece = grid[pawnRow][col];
+            if (piece instanceof Pawn && piece.getColor().equals(sideToMove)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long nextSeed(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
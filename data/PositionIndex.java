@@ -0,0 +1,668 @@
+package data;
+
+import board.Board;
+import board.Fen;
+import board.Move;
+import board.PgnReader;
+import board.San;
+import board.Zobrist;
+import engine.OpeningBook;
+import utils.Metrics;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An on-disk hash index of every distinct position in a set of game archives, keyed
+ * by Zobrist key. For each position it holds how often the position occurred, the
+ * results of the games it occurred in (white wins, draws, black wins) and how often
+ * each move was played from it. The file is an open-addressing hash table read
+ * through memory mapping, so a lookup touches one or two pages and opening an index
+ * costs almost nothing whatever its size. Layout (big-endian):
+ * <pre>
+ *  header  magic, reserved int, slot count, move record count, position count (32 bytes)
+ *  slots   key, occurrences, white wins, draws, black wins, first move, move count
+ *          (32 bytes each; a slot with zero occurrences is empty)
+ *  moves   packed move as in OpeningBook, times played (6 bytes each)
+ * </pre>
+ * Lookups only read the mapping and are safe to run from several threads.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class PositionIndex implements Closeable {
+    private static final int MAGIC = 0x43504958;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 32;
+    private static final int MOVE_SIZE = 6;
+    // Records per mapped segment; keeps each mapping below the 2 GB buffer limit
+    private static final int SLOTS_PER_SEGMENT = 1 << 25;
+    private static final int MOVES_PER_SEGMENT = 1 << 28;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] slots;
+    private final MappedByteBuffer[] moves;
+    private final long slotMask;
+    private final long positions;
+
+    /**
+     * The statistics stored for one position.
+     */
+    public static final class Entry {
+        private final long key;
+        private final int occurrences;
+        private final int whiteWins;
+        private final int draws;
+        private final int blackWins;
+        private final List<MoveCount> moves;
+
+        Entry(long key, int occurrences, int whiteWins, int draws, int blackWins, List<MoveCount> moves) {
+            this.key = key;
+            this.occurrences = occurrences;
+            this.whiteWins = whiteWins;
+            this.draws = draws;
+            this.blackWins = blackWins;
+            this.moves = Collections.unmodifiableList(moves);
+        }
+
+        /**
+         * Gets the Zobrist key of the position.
+         *
+         * @return the key
+         */
+        public long getKey() {
+            return key;
+        }
+
+        /**
+         * Gets the number of times the position occurred in the archives.
+         *
+         * @return the occurrence count
+         */
+        public int getOccurrences() {
+            return occurrences;
+        }
+
+        /**
+         * Gets the number of occurrences in games white won.
+         *
+         * @return the white win count
+         */
+        public int getWhiteWins() {
+            return whiteWins;
+        }
+
+        /**
+         * Gets the number of occurrences in drawn games.
+         *
+         * @return the draw count
+         */
+        public int getDraws() {
+            return draws;
+        }
+
+        /**
+         * Gets the number of occurrences in games black won.
+         *
+         * @return the black win count
+         */
+        public int getBlackWins() {
+            return blackWins;
+        }
+
+        /**
+         * Gets the moves played from the position, most frequent first.
+         *
+         * @return the move frequencies
+         */
+        public List<MoveCount> getMoves() {
+            return moves;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(occurrences).append(" occurrences, +").append(whiteWins)
+                .append(" =").append(draws).append(" -").append(blackWins);
+            for (MoveCount move : moves) {
+                sb.append("\n  ").append(move.getMove().toUci()).append(' ').append(move.getCount());
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A move played from an indexed position and the number of times it was played.
+     */
+    public static final class MoveCount {
+        private final Move move;
+        private final int count;
+
+        MoveCount(Move move, int count) {
+            this.move = move;
+            this.count = count;
+        }
+
+        /**
+         * Gets the move.
+         *
+         * @return the move
+         */
+        public Move getMove() {
+            return move;
+        }
+
+        /**
+         * Gets the number of times the move was played.
+         *
+         * @return the count
+         */
+        public int getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Builds an index file from PGN archives. Games are parsed on the calling thread
+     * and replayed on worker threads, each of which counts into its own partial map;
+     * the partial maps are merged once the workers finish, so no map is shared while
+     * counting.
+     */
+    public static final class Builder {
+        private static final int BATCH_SIZE = 256;
+        private static final List<PgnReader.PgnGame> END = Collections.emptyList();
+
+        private final int maxPlies;
+        private Map<Long, Stats> positions = new HashMap<>();
+        private long games;
+        private long skippedGames;
+
+        /**
+         * Constructs a builder.
+         *
+         * @param maxPlies the number of plies from the start of each game to index, or 0 for all
+         */
+        public Builder(int maxPlies) {
+            this.maxPlies = maxPlies;
+        }
+
+        /**
+         * Adds every game in a set of PGN files. Games containing an illegal or
+         * unreadable move are counted up to that move and then skipped. If a worker
+         * fails anyway, reading stops and the failure is thrown.
+         *
+         * @param files the PGN files
+         * @param threads the number of threads replaying games
+         * @throws IOException if a file cannot be read
+         * @throws InterruptedException if interrupted while waiting for the threads
+         */
+        public void addFiles(List<Path> files, int threads) throws IOException, InterruptedException {
+            BlockingQueue<List<PgnReader.PgnGame>> queue = new ArrayBlockingQueue<>(threads * 4);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<Partial>> futures = new ArrayList<>();
+            boolean finished = false;
+            try {
+                for (int i = 0; i < threads; i++) {
+                    futures.add(pool.submit(() -> {
+                        Partial partial = new Partial();
+                        List<PgnReader.PgnGame> batch;
+                        while ((batch = queue.take()) != END) {
+                            for (PgnReader.PgnGame game : batch) {
+                                partial.addGame(game, maxPlies);
+                            }
+                        }
+                        return partial;
+                    }));
+                }
+                for (Path file : files) {
+                    try (PgnReader pgn = new PgnReader(Files.newBufferedReader(file, StandardCharsets.ISO_8859_1))) {
+                        List<PgnReader.PgnGame> batch = new ArrayList<>(BATCH_SIZE);
+                        PgnReader.PgnGame game;
+                        while ((game = pgn.next()) != null) {
+                            batch.add(game);
+                            if (batch.size() == BATCH_SIZE) {
+                                put(queue, batch, futures);
+                                batch = new ArrayList<>(BATCH_SIZE);
+                            }
+                        }
+                        if (!batch.isEmpty()) {
+                            put(queue, batch, futures);
+                        }
+                    }
+                }
+                for (int i = 0; i < threads; i++) {
+                    put(queue, END, futures);
+                }
+                for (Future<Partial> future : futures) {
+                    merge(result(future));
+                }
+                finished = true;
+            } finally {
+                if (finished) {
+                    pool.shutdown();
+                } else {
+                    // Workers may be blocked waiting for batches that will never come
+                    pool.shutdownNow();
+                }
+            }
+        }
+
+        /**
+         * Hands a batch to the workers. Waits while the queue is full, but throws the
+         * failure of any worker that has stopped, since nothing would empty the queue.
+         */
+        private static void put(BlockingQueue<List<PgnReader.PgnGame>> queue, List<PgnReader.PgnGame> batch,
+                                List<Future<Partial>> workers) throws InterruptedException {
+            while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                for (Future<Partial> worker : workers) {
+                    if (worker.isDone()) {
+                        result(worker);
+                    }
+                }
+            }
+        }
+
+        private static Partial result(Future<Partial> worker) throws InterruptedException {
+            try {
+                return worker.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Indexing failed", e.getCause());
+            }
+        }
+
+        /**
+         * Gets the number of games seen so far.
+         *
+         * @return the game count
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * Gets the number of games that stopped early because of an unreadable move.
+         *
+         * @return the skipped game count
+         */
+        public long getSkippedGames() {
+            return skippedGames;
+        }
+
+        /**
+         * Gets the number of distinct positions seen so far.
+         *
+         * @return the position count
+         */
+        public int getPositions() {
+            return positions.size();
+        }
+
+        /**
+         * Writes the index file. The hash table is sized to at most half full.
+         * Counts saturate at Integer.MAX_VALUE.
+         *
+         * @param path the output file
+         * @param minOccurrences positions seen fewer times than this are left out
+         * @return the number of positions written
+         * @throws IOException if writing fails
+         */
+        public long write(Path path, int minOccurrences) throws IOException {
+            long kept = 0;
+            long moveRecords = 0;
+            for (Stats stats : positions.values()) {
+                if (stats.occurrences < minOccurrences) continue;
+                kept++;
+                moveRecords += stats.moveCount;
+            }
+            long slotCount = Long.highestOneBit(Math.max(16, kept * 2 - 1)) << 1;
+            long mask = slotCount - 1;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(0).putLong(slotCount).putLong(moveRecords).putLong(kept).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                MappedByteBuffer[] slots = map(channel, FileChannel.MapMode.READ_WRITE, HEADER_SIZE,
+                    slotCount, SLOT_SIZE, SLOTS_PER_SEGMENT);
+                MappedByteBuffer[] moves = map(channel, FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + slotCount * SLOT_SIZE, moveRecords, MOVE_SIZE, MOVES_PER_SEGMENT);
+                long nextMove = 0;
+                for (Map.Entry<Long, Stats> entry : positions.entrySet()) {
+                    Stats stats = entry.getValue();
+                    if (stats.occurrences < minOccurrences) continue;
+                    long key = entry.getKey();
+                    long slot = key & mask;
+                    while (slots[segment(slot, SLOTS_PER_SEGMENT)].getInt(offset(slot, SLOTS_PER_SEGMENT, SLOT_SIZE) + 8) != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    ByteBuffer buffer = slots[segment(slot, SLOTS_PER_SEGMENT)];
+                    int at = offset(slot, SLOTS_PER_SEGMENT, SLOT_SIZE);
+                    buffer.putLong(at, key);
+                    buffer.putInt(at + 8, stats.occurrences);
+                    buffer.putInt(at + 12, stats.whiteWins);
+                    buffer.putInt(at + 16, stats.draws);
+                    buffer.putInt(at + 20, stats.blackWins);
+                    buffer.putInt(at + 24, (int) nextMove);
+                    buffer.putInt(at + 28, stats.moveCount);
+                    for (int i : stats.movesByCount()) {
+                        ByteBuffer moveBuffer = moves[segment(nextMove, MOVES_PER_SEGMENT)];
+                        int moveAt = offset(nextMove, MOVES_PER_SEGMENT, MOVE_SIZE);
+                        moveBuffer.putShort(moveAt, stats.moves[i]);
+                        moveBuffer.putInt(moveAt + 2, stats.moveCounts[i]);
+                        nextMove++;
+                    }
+                }
+                for (MappedByteBuffer buffer : slots) buffer.force();
+                for (MappedByteBuffer buffer : moves) buffer.force();
+            }
+            return kept;
+        }
+
+        private void merge(Partial partial) {
+            games += partial.games;
+            skippedGames += partial.skippedGames;
+            if (positions.isEmpty()) {
+                positions = partial.positions;
+                return;
+            }
+            for (Map.Entry<Long, Stats> entry : partial.positions.entrySet()) {
+                positions.merge(entry.getKey(), entry.getValue(), Stats::merge);
+            }
+        }
+    }
+
+    /**
+     * The positions counted by one builder thread.
+     */
+    private static final class Partial {
+        private final Map<Long, Stats> positions = new HashMap<>();
+        private long games;
+        private long skippedGames;
+
+        /**
+         * Counts the positions of one game. A game that fails in any way, not just on
+         * an illegal move, is counted up to that point and skipped, so one bad game
+         * cannot stop its worker.
+         */
+        void addGame(PgnReader.PgnGame game, int maxPlies) {
+            games++;
+            try {
+                replay(game, maxPlies);
+            } catch (RuntimeException e) {
+                skippedGames++;
+            }
+        }
+
+        private void replay(PgnReader.PgnGame game, int maxPlies) {
+            int result = "1-0".equals(game.getResult()) ? 1
+                : "0-1".equals(game.getResult()) ? -1
+                : "1/2-1/2".equals(game.getResult()) ? 0 : 2;
+            Board board;
+            String color;
+            try {
+                String fen = game.getStartFen();
+                board = Fen.toBoard(fen);
+                color = Fen.activeColor(fen);
+            } catch (IllegalArgumentException e) {
+                skippedGames++;
+                return;
+            }
+            int plies = 0;
+            for (String san : game.getMoves()) {
+                if (maxPlies > 0 && plies >= maxPlies) return;
+                Move move;
+                try {
+                    move = San.parse(board, color, san);
+                } catch (IllegalArgumentException e) {
+                    skippedGames++;
+                    return;
+                }
+                count(Zobrist.hash(board, color), result).addMove(OpeningBook.encodeMove(move));
+                move.applyTo(board);
+                color = color.equals("white") ? "black" : "white";
+                plies++;
+            }
+            // The final position is indexed too, with no move played from it
+            if (maxPlies == 0 || plies < maxPlies) {
+                count(Zobrist.hash(board, color), result);
+            }
+        }
+
+        private Stats count(long key, int result) {
+            Stats stats = positions.computeIfAbsent(key, k -> new Stats());
+            stats.occurrences++;
+            if (result == 1) stats.whiteWins++;
+            else if (result == 0) stats.draws++;
+            else if (result == -1) stats.blackWins++;
+            return stats;
+        }
+    }
+
+    /**
+     * Counts for one position. Positions rarely have more than a few distinct moves,
+     * so the moves are kept in small parallel arrays rather than a map.
+     */
+    private static final class Stats {
+        private int occurrences;
+        private int whiteWins;
+        private int draws;
+        private int blackWins;
+        private short[] moves = new short[2];
+        private int[] moveCounts = new int[2];
+        private int moveCount;
+
+        void addMove(short move) {
+            addMove(move, 1);
+        }
+
+        void addMove(short move, int count) {
+            for (int i = 0; i < moveCount; i++) {
+                if (moves[i] == move) {
+                    moveCounts[i] = saturate((long) moveCounts[i] + count);
+                    return;
+                }
+            }
+            if (moveCount == moves.length) {
+                moves = Arrays.copyOf(moves, moveCount * 2);
+                moveCounts = Arrays.copyOf(moveCounts, moveCount * 2);
+            }
+            moves[moveCount] = move;
+            moveCounts[moveCount++] = count;
+        }
+
+        Stats merge(Stats other) {
+            occurrences = saturate((long) occurrences + other.occurrences);
+            whiteWins = saturate((long) whiteWins + other.whiteWins);
+            draws = saturate((long) draws + other.draws);
+            blackWins = saturate((long) blackWins + other.blackWins);
+            for (int i = 0; i < other.moveCount; i++) {
+                addMove(other.moves[i], other.moveCounts[i]);
+            }
+            return this;
+        }
+
+        /** Gets the indexes of the moves, most frequent first. */
+        int[] movesByCount() {
+            Integer[] order = new Integer[moveCount];
+            for (int i = 0; i < moveCount; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Integer.compare(moveCounts[b], moveCounts[a]));
+            int[] result = new int[moveCount];
+            for (int i = 0; i < moveCount; i++) result[i] = order[i];
+            return result;
+        }
+
+        private static int saturate(long value) {
+            return (int) Math.min(value, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Opens and memory-maps an index file.
+     *
+     * @param path the index file
+     * @throws IOException if the file cannot be opened or is not an index
+     */
+    public PositionIndex(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // keep reading until the header is complete or the file ends
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a position index: " + path);
+        }
+        long slotCount = header.getLong(8);
+        long moveRecords = header.getLong(16);
+        positions = header.getLong(24);
+        if (channel.size() < HEADER_SIZE + slotCount * SLOT_SIZE + moveRecords * MOVE_SIZE) {
+            channel.close();
+            throw new IOException("Position index is truncated: " + path);
+        }
+        slotMask = slotCount - 1;
+        slots = map(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE, slotCount, SLOT_SIZE, SLOTS_PER_SEGMENT);
+        moves = map(channel, FileChannel.MapMode.READ_ONLY, HEADER_SIZE + slotCount * SLOT_SIZE,
+            moveRecords, MOVE_SIZE, MOVES_PER_SEGMENT);
+    }
+
+    /**
+     * Gets the number of positions in the index.
+     *
+     * @return the position count
+     */
+    public long size() {
+        return positions;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param board the board
+     * @param color the side to move
+     * @return the position's statistics, or null if it is not in the index
+     */
+    public Entry lookup(Board board, String color) {
+        return lookup(Zobrist.hash(board, color));
+    }
+
+    /**
+     * Looks up a position by its Zobrist key.
+     *
+     * @param key the position key
+     * @return the position's statistics, or null if the key is not in the index
+     */
+    public Entry lookup(long key) {
+        long slot = key & slotMask;
+        while (true) {
+            ByteBuffer buffer = slots[segment(slot, SLOTS_PER_SEGMENT)];
+            int at = offset(slot, SLOTS_PER_SEGMENT, SLOT_SIZE);
+            if (buffer.getInt(at + 8) == 0) {
+                return null;
+            }
+            if (buffer.getLong(at) == key) {
+                long first = buffer.getInt(at + 24) & 0xFFFFFFFFL;
+                int count = buffer.getInt(at + 28);
+                List<MoveCount> list = new ArrayList<>(count);
+                for (long i = first; i < first + count; i++) {
+                    ByteBuffer moveBuffer = moves[segment(i, MOVES_PER_SEGMENT)];
+                    int moveAt = offset(i, MOVES_PER_SEGMENT, MOVE_SIZE);
+                    list.add(new MoveCount(OpeningBook.decodeMove(moveBuffer.getShort(moveAt)),
+                        moveBuffer.getInt(moveAt + 2)));
+                }
+                return new Entry(key, buffer.getInt(at + 8), buffer.getInt(at + 12), buffer.getInt(at + 16),
+                    buffer.getInt(at + 20), list);
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    /**
+     * Closes the file channel. The mapping itself is released by the garbage collector.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long start,
+                                          long records, int recordSize, int recordsPerSegment) throws IOException {
+        int count = (int) ((records + recordsPerSegment - 1) / recordsPerSegment);
+        MappedByteBuffer[] segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long first = (long) i * recordsPerSegment;
+            long length = Math.min(recordsPerSegment, records - first) * recordSize;
+            segments[i] = channel.map(mode, start + first * recordSize, length);
+        }
+        return segments;
+    }
+
+    private static int segment(long index, int recordsPerSegment) {
+        return (int) (index / recordsPerSegment);
+    }
+
+    private static int offset(long index, int recordsPerSegment, int recordSize) {
+        return (int) (index % recordsPerSegment) * recordSize;
+    }
+
+    /**
+     * Builds or queries an index from the command line.
+     * Usage:
+     * <pre>
+     *   java data.PositionIndex build &lt;index&gt; &lt;threads&gt; &lt;maxPlies|0&gt; &lt;minOccurrences&gt; &lt;games.pgn&gt;...
+     *   java data.PositionIndex query &lt;index&gt; &lt;fen&gt;
+     * </pre>
+     *
+     * @param args command line arguments
+     * @throws Exception if a file cannot be read or written
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 6 && args[0].equals("build")) {
+            Builder builder = new Builder(Integer.parseInt(args[3]));
+            List<Path> files = new ArrayList<>();
+            for (int i = 5; i < args.length; i++) {
+                files.add(Paths.get(args[i]));
+            }
+            long start = System.nanoTime();
+            builder.addFiles(files, Integer.parseInt(args[2]));
+            long written = builder.write(Paths.get(args[1]), Integer.parseInt(args[4]));
+            System.out.printf("Games: %d (skipped %d), distinct positions: %d, written: %d, %.2f s%n",
+                builder.getGames(), builder.getSkippedGames(), builder.getPositions(), written,
+                (System.nanoTime() - start) / 1e9);
+        } else if (args.length >= 3 && args[0].equals("query")) {
+            String fen = String.join(" ", Arrays.copyOfRange(args, 2, args.length));
+            try (PositionIndex index = new PositionIndex(Paths.get(args[1]))) {
+                Entry entry = index.lookup(Fen.toBoard(fen), Fen.activeColor(fen));
+                System.out.println(entry == null ? "Not in index" : entry);
+            }
+        } else {
+            System.out.println("Usage: java data.PositionIndex build <index> <threads> <maxPlies|0> <minOccurrences> <games.pgn>...");
+            System.out.println("       java data.PositionIndex query <index> <fen>");
+            return;
+        }
+        Metrics.writeIfConfigured();
+    }
+}
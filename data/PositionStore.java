@@ -0,0 +1,341 @@
+package data;
+
+import board.Board;
+import board.Fen;
+import board.PackedPosition;
+import utils.Metrics;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A file of fixed-width position records ({@link PackedPosition}, 32 bytes each,
+ * so about 33 million positions per GB) read through memory mapping. The records
+ * live in the operating system's page cache rather than on the Java heap. A store
+ * supports random access by index, sequential streaming and parallel scans, all of
+ * which decode into a reused Board instead of allocating one per position.
+ * Files larger than 2 GB are mapped in 1 GB segments.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class PositionStore implements Closeable {
+    /** Records per mapped segment (1 GB). */
+    private static final int SEGMENT_RECORDS = 1 << 25;
+    /** Records handed to a scan thread at a time. */
+    private static final int SCAN_CHUNK = 1 << 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    /**
+     * Receives positions during a scan.
+     */
+    public interface Visitor {
+        /**
+         * Visits one position. The board is reused for the next position, so it must
+         * not be kept; copy it if needed.
+         *
+         * @param index the record index
+         * @param board the decoded position
+         * @param color the side to move
+         * @param tag the tag stored with the position
+         */
+        void visit(long index, Board board, String color, int tag);
+    }
+
+    /**
+     * Appends position records to a store file through a large write buffer.
+     */
+    public static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(SCAN_CHUNK * PackedPosition.SIZE);
+        private long count;
+
+        /**
+         * Opens a store file for writing.
+         *
+         * @param file the store file
+         * @param append true to add to an existing file, false to replace it
+         * @throws IOException if the file cannot be opened
+         */
+        public Writer(Path file, boolean append) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+            count = channel.size() / PackedPosition.SIZE;
+        }
+
+        /**
+         * Appends one position.
+         *
+         * @param board the position
+         * @param color the side to move
+         * @param tag a caller-defined value stored with the position, such as a game number
+         * @throws IOException if writing fails
+         */
+        public void add(Board board, String color, int tag) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            PackedPosition.write(buffer, buffer.position(), board, color, tag);
+            buffer.position(buffer.position() + PackedPosition.SIZE);
+            count++;
+        }
+
+        /**
+         * Gets the number of records in the file, including those still buffered.
+         *
+         * @return the record count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Writes buffered records to the file.
+         *
+         * @throws IOException if writing fails
+         */
+        public void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Flushes and closes the file.
+         *
+         * @throws IOException if writing fails
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Opens a store file for reading and maps it into memory.
+     *
+     * @param file the store file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public PositionStore(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size() / PackedPosition.SIZE;
+        int count = (int) ((size + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS);
+        segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long first = (long) i * SEGMENT_RECORDS;
+            long records = Math.min(SEGMENT_RECORDS, size - first);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * PackedPosition.SIZE,
+                records * PackedPosition.SIZE);
+        }
+    }
+
+    /**
+     * Gets the number of positions in the store.
+     *
+     * @return the record count
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Decodes one position into a board. Safe to call from several threads at once,
+     * each with its own board.
+     *
+     * @param index the record index
+     * @param board the board to overwrite
+     * @return the side to move
+     * @throws IndexOutOfBoundsException if the index is not in the store
+     */
+    public String read(long index, Board board) {
+        checkIndex(index);
+        return PackedPosition.read(segments[(int) (index / SEGMENT_RECORDS)], offset(index), board);
+    }
+
+    /**
+     * Gets the tag stored with a position.
+     *
+     * @param index the record index
+     * @return the tag
+     * @throws IndexOutOfBoundsException if the index is not in the store
+     */
+    public int tag(long index) {
+        checkIndex(index);
+        return PackedPosition.tag(segments[(int) (index / SEGMENT_RECORDS)], offset(index));
+    }
+
+    /**
+     * Streams every position in order through one reused board.
+     *
+     * @param visitor the visitor
+     */
+    public void forEach(Visitor visitor) {
+        scan(0, size, new Board(), visitor);
+    }
+
+    /**
+     * Scans every position on several threads. Each thread decodes into its own
+     * board and takes the next chunk of records when it finishes one, so the order
+     * of visits is unspecified and the visitor must be thread-safe.
+     *
+     * @param threads the number of threads
+     * @param visitor the visitor
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public void parallelForEach(int threads, Visitor visitor) throws InterruptedException {
+        AtomicLong next = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    Board board = new Board();
+                    long from;
+                    while ((from = next.getAndAdd(SCAN_CHUNK)) < size) {
+                        scan(from, Math.min(size, from + SCAN_CHUNK), board, visitor);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Scan failed", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Closes the file. The mapped memory is released once the store is no longer
+     * referenced.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void scan(long from, long to, Board board, Visitor visitor) {
+        for (long index = from; index < to; index++) {
+            ByteBuffer segment = segments[(int) (index / SEGMENT_RECORDS)];
+            int offset = offset(index);
+            String color = PackedPosition.read(segment, offset, board);
+            visitor.visit(index, board, color, PackedPosition.tag(segment, offset));
+        }
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Position " + index + " of " + size);
+        }
+    }
+
+    private static int offset(long index) {
+        return (int) (index % SEGMENT_RECORDS) * PackedPosition.SIZE;
+    }
+
+    /**
+     * Imports, prints or scans a position store from the command line.
+     * Usage:
+     * <pre>
+     *   java data.PositionStore import &lt;store&gt; &lt;fen-file|-&gt;   (tag = line number)
+     *   java data.PositionStore dump &lt;store&gt; [first] [count]
+     *   java data.PositionStore scan &lt;store&gt; [threads]
+     * </pre>
+     *
+     * @param args command line arguments
+     * @throws Exception if a file cannot be read or written
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: java data.PositionStore import|dump|scan <store> ...");
+            return;
+        }
+        Path file = Paths.get(args[1]);
+        switch (args[0]) {
+            case "import":
+                importFens(file, args.length > 2 ? args[2] : "-");
+                break;
+            case "dump":
+                try (PositionStore store = new PositionStore(file)) {
+                    long first = args.length > 2 ? Long.parseLong(args[2]) : 0;
+                    long count = args.length > 3 ? Long.parseLong(args[3]) : 10;
+                    Board board = new Board();
+                    for (long i = first; i < Math.min(store.size(), first + count); i++) {
+                        String color = store.read(i, board);
+                        System.out.println(i + " " + store.tag(i) + " " + Fen.fromBoard(board, color));
+                    }
+                }
+                break;
+            case "scan":
+                int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+                try (PositionStore store = new PositionStore(file)) {
+                    AtomicLong inCheck = new AtomicLong();
+                    long start = System.nanoTime();
+                    store.parallelForEach(threads, (index, board, color, tag) -> {
+                        if (board.isInCheck(color)) inCheck.incrementAndGet();
+                    });
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("%d positions, %d in check, %.2f s (%.0f positions/s on %d threads)%n",
+                        store.size(), inCheck.get(), seconds, store.size() / seconds, threads);
+                }
+                break;
+            default:
+                System.out.println("Unknown command: " + args[0]);
+                return;
+        }
+        Metrics.writeIfConfigured();
+    }
+
+    private static void importFens(Path file, String source) throws IOException {
+        BufferedReader in = source.equals("-")
+            ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+            : Files.newBufferedReader(Paths.get(source), StandardCharsets.UTF_8);
+        long skipped = 0;
+        try (BufferedReader reader = in; Writer writer = new Writer(file, false)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                try {
+                    writer.add(Fen.toBoard(line), Fen.activeColor(line), lineNumber);
+                } catch (IllegalArgumentException e) {
+                    skipped++;
+                }
+            }
+            System.out.printf("%d positions written to %s (%d lines skipped)%n", writer.getCount(), file, skipped);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package engine;
+
+import board.Board;
+import board.BoardSnapshot;
+import board.Fen;
+import board.GameStatus;
+import board.Move;
+import board.Zobrist;
+import utils.LruCache;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Answers position queries (legal moves, check and game state, and optionally an
+ * engine evaluation) and caches the answers by Zobrist key in a bounded LRU cache
+ * with a time-to-live. Repeated queries for the same position, however it is
+ * written, are served from the cache. The service is thread-safe: each thread
+ * searches with its own Searcher.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class AnalysisService {
+    private final LruCache<Long, Analysis> cache;
+    private final ThreadLocal<Searcher> searchers = ThreadLocal.withInitial(Searcher::new);
+
+    /**
+     * The analysis of one position.
+     */
+    public static final class Analysis {
+        private final long key;
+        private final BoardSnapshot position;
+        private final String color;
+        private final GameStatus status;
+        private final int depth;
+        private final Move bestMove;
+        private final int score;
+
+        Analysis(long key, BoardSnapshot position, String color, GameStatus status,
+                 int depth, Move bestMove, int score) {
+            this.key = key;
+            this.position = position;
+            this.color = color;
+            this.status = status;
+            this.depth = depth;
+            this.bestMove = bestMove;
+            this.score = score;
+        }
+
+        /**
+         * Gets the Zobrist key of the position.
+         *
+         * @return the key
+         */
+        public long getKey() {
+            return key;
+        }
+
+        /**
+         * Gets the position as FEN.
+         *
+         * @return the FEN (move counters are not tracked)
+         */
+        public String getFen() {
+            return Fen.fromBoard(position.toBoard(), color);
+        }
+
+        /**
+         * Gets the side to move.
+         *
+         * @return "white" or "black"
+         */
+        public String getColor() {
+            return color;
+        }
+
+        /**
+         * Gets the check state, legal moves and game state of the side to move.
+         *
+         * @return the status
+         */
+        public GameStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * Gets the legal moves of the side to move.
+         *
+         * @return the legal moves
+         */
+        public List<Move> getLegalMoves() {
+            return status.getLegalMoves();
+        }
+
+        /**
+         * Gets the depth of the engine evaluation.
+         *
+         * @return the search depth in plies, or 0 if the position was not searched
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Gets the engine's best move.
+         *
+         * @return the best move, or null if the position was not searched or has no moves
+         */
+        public Move getBestMove() {
+            return bestMove;
+        }
+
+        /**
+         * Gets the engine's score for the side to move.
+         *
+         * @return the score in centipawns (only meaningful if getDepth() is above 0)
+         */
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * Returns a one-line summary of the analysis.
+         *
+         * @return the summary
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%016x", key)).append(' ').append(color).append(' ').append(status.getState());
+            if (status.isInCheck()) sb.append(" check");
+            sb.append(", ").append(status.getLegalMoves().size()).append(" legal moves");
+            if (depth > 0 && bestMove != null) {
+                sb.append(", best ").append(bestMove).append(" (").append(score).append(" at depth ")
+                    .append(depth).append(')');
+            }
+            return sb.toString();
+        }
+
+        boolean matches(BoardSnapshot otherPosition, String otherColor) {
+            return color.equals(otherColor) && position.samePosition(otherPosition);
+        }
+
+        /**
+         * Returns this analysis with the draw state of the position as it was
+         * actually reached, since the fifty-move rule and repetitions depend on
+         * more than the cached position.
+         */
+        Analysis withDrawState(GameStatus.State drawState) {
+            GameStatus adjusted = status.withDrawState(drawState);
+            return adjusted == status ? this : new Analysis(key, position, color, adjusted, depth, bestMove, score);
+        }
+    }
+
+    /**
+     * Constructs a service.
+     *
+     * @param maxEntries the maximum number of cached positions
+     * @param ttlMillis how long a cached answer stays valid, or 0 to keep it until evicted
+     */
+    public AnalysisService(int maxEntries, long ttlMillis) {
+        this.cache = new LruCache<>(maxEntries, ttlMillis);
+    }
+
+    /**
+     * Analyzes a position given as FEN, without an engine search.
+     *
+     * @param fen the position
+     * @return the analysis
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public Analysis analyze(String fen) {
+        return analyze(fen, 0);
+    }
+
+    /**
+     * Analyzes a position given as FEN.
+     *
+     * @param fen the position
+     * @param depth the engine search depth in plies, or 0 for no search
+     * @return the analysis
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public Analysis analyze(String fen, int depth) {
+        return analyze(Fen.toBoard(fen), Fen.activeColor(fen), depth);
+    }
+
+    /**
+     * Analyzes a position. A cached answer is used if it belongs to the same
+     * position and was searched at least as deep as requested. The cache holds
+     * only what the position itself decides; the fifty-move rule and repetition
+     * draws are checked against the given board on every call.
+     *
+     * @param board the board (not modified)
+     * @param color the side to move
+     * @param depth the engine search depth in plies, or 0 for no search
+     * @return the analysis
+     */
+    public Analysis analyze(Board board, String color, int depth) {
+        long key = Zobrist.hash(board, color);
+        BoardSnapshot position = board.snapshot();
+        GameStatus.State drawState = GameStatus.drawState(board, color);
+        // Comparing the positions guards against Zobrist key collisions
+        Analysis cached = cache.get(key, entry -> entry.depth >= depth && entry.matches(position, color));
+        if (cached != null) {
+            return cached.withDrawState(drawState);
+        }
+        GameStatus status = GameStatus.compute(board, color).withDrawState(board.hasInsufficientMaterial()
+            ? GameStatus.State.INSUFFICIENT_MATERIAL : GameStatus.State.ONGOING);
+        Move bestMove = null;
+        int score = 0;
+        if (depth > 0 && !status.isGameOver()) {
+            Searcher searcher = searchers.get();
+            bestMove = searcher.findBestMove(board, color, depth);
+            score = searcher.getLastScore();
+        }
+        Analysis analysis = new Analysis(key, position, color, status, depth, bestMove, score);
+        cache.put(key, analysis);
+        return analysis.withDrawState(drawState);
+    }
+
+    /**
+     * Looks up a previously analyzed position by its Zobrist key.
+     *
+     * @param key the Zobrist key
+     * @return the cached analysis, or null if it is not cached. Its draw state
+     *         covers only insufficient material, since the key carries no history.
+     */
+    public Analysis lookup(long key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Gets the cache, for its hit rate and other statistics.
+     *
+     * @return the result cache
+     */
+    public LruCache<Long, Analysis> getCache() {
+        return cache;
+    }
+
+    /**
+     * Analyzes FEN positions read from standard input, one per line, and prints
+     * each answer followed by the cache statistics.
+     * Usage: java engine.AnalysisService [depth] [maxEntries] [ttlMillis]
+     *
+     * @param args command line arguments
+     * @throws Exception if reading standard input fails
+     */
+    public static void main(String[] args) throws Exception {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        int maxEntries = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        long ttlMillis = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        AnalysisService service = new AnalysisService(maxEntries, ttlMillis);
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            try {
+                System.out.println(service.analyze(line, depth));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid FEN: " + e.getMessage());
+            }
+        }
+        System.out.println("Cache: " + service.getCache());
+    }
+}
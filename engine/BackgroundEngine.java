@@ -0,0 +1,155 @@
+package engine;
+
+import board.Board;
+import board.BoardSnapshot;
+import board.Move;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs engine searches on a background daemon thread so that callers such as the
+ * Swing event thread never block, and ponders during the opponent's turn. After
+ * the engine moves, {@link #ponder(Board, String)} searches the position the
+ * engine expects after the opponent's most likely reply. If the opponent plays that
+ * reply (a ponder hit), the running search simply becomes the real one and the time
+ * already spent counts toward the move; otherwise it is stopped and a fresh search
+ * starts. Every search works on its own copy of the board.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class BackgroundEngine implements AutoCloseable {
+    private final Searcher searcher = new Searcher();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "engine-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final int maxDepth;
+
+    private SearchControl currentControl;
+    private volatile Move expectedReply;
+
+    private CompletableFuture<Move> ponderSearch;
+    private BoardSnapshot ponderPosition;
+    private String ponderColor;
+    private long ponderStart;
+    private int ponderHits;
+    private int ponderMisses;
+
+    /**
+     * Constructs an engine.
+     *
+     * @param maxDepth the deepest iteration any search may reach
+     */
+    public BackgroundEngine(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Starts choosing a move. If the engine is pondering on exactly this position,
+     * the ponder search is reused and given the budget, counted from when pondering
+     * began; otherwise pondering is stopped and a new search starts.
+     *
+     * @param board the current board (copied, so the caller may keep using it)
+     * @param color the side to move
+     * @param budgetMillis the time the move may take, for example from {@link TimeManager}
+     * @return a future completed on the engine thread with the move, or null if there is none
+     */
+    public synchronized CompletableFuture<Move> think(Board board, String color, long budgetMillis) {
+        if (ponderSearch != null) {
+            CompletableFuture<Move> search = ponderSearch;
+            boolean hit = color.equals(ponderColor) && board.snapshot().equals(ponderPosition);
+            ponderSearch = null;
+            ponderPosition = null;
+            if (hit) {
+                ponderHits++;
+                currentControl.setTimeLimit(ponderStart, budgetMillis);
+                return search;
+            }
+            ponderMisses++;
+            currentControl.stop();
+        }
+        return start(board.copy(), color, new SearchControl(budgetMillis));
+    }
+
+    /**
+     * Starts pondering after the engine's own move: searches, without a time limit,
+     * the position reached if the opponent plays the reply the last search expected.
+     * Does nothing if there is no expected reply.
+     *
+     * @param board the board after the engine's move (copied)
+     * @param opponentColor the side now to move
+     */
+    public synchronized void ponder(Board board, String opponentColor) {
+        Move reply = expectedReply;
+        if (reply == null || ponderSearch != null) {
+            return;
+        }
+        Board predicted = board.copy();
+        reply.applyTo(predicted);
+        ponderColor = Searcher.opposite(opponentColor);
+        ponderPosition = predicted.snapshot();
+        ponderStart = System.nanoTime();
+        ponderSearch = start(predicted, ponderColor, new SearchControl());
+    }
+
+    /**
+     * Stops any running search or ponder search. Its future still completes,
+     * with the best move found so far.
+     */
+    public synchronized void stop() {
+        if (currentControl != null) {
+            currentControl.stop();
+        }
+        ponderSearch = null;
+        ponderPosition = null;
+    }
+
+    /**
+     * Checks whether the engine is pondering.
+     *
+     * @return true if a ponder search is running
+     */
+    public synchronized boolean isPondering() {
+        return ponderSearch != null;
+    }
+
+    /**
+     * Gets the number of moves answered from a ponder search.
+     *
+     * @return the ponder hit count
+     */
+    public synchronized int getPonderHits() {
+        return ponderHits;
+    }
+
+    /**
+     * Gets the number of ponder searches thrown away because the opponent
+     * played something else.
+     *
+     * @return the ponder miss count
+     */
+    public synchronized int getPonderMisses() {
+        return ponderMisses;
+    }
+
+    /**
+     * Stops searching and shuts down the engine thread.
+     */
+    @Override
+    public void close() {
+        stop();
+        executor.shutdown();
+    }
+
+    private CompletableFuture<Move> start(Board board, String color, SearchControl control) {
+        currentControl = control;
+        return CompletableFuture.supplyAsync(() -> {
+            Move move = searcher.findBestMove(board, color, maxDepth, control);
+            expectedReply = searcher.getExpectedReply();
+            return move;
+        }, executor);
+    }
+}
@@ -0,0 +1,71 @@
+package engine;
+
+import board.Board;
+import pieces.*;
+
+/**
+ * Static position evaluation used by the engine. Scores material plus a small
+ * bonus for centralized knights, bishops and pawns.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class Evaluator {
+    /** Value of a pawn in centipawns. */
+    public static final int PAWN_VALUE = 100;
+    /** Value of a knight in centipawns. */
+    public static final int KNIGHT_VALUE = 320;
+    /** Value of a bishop in centipawns. */
+    public static final int BISHOP_VALUE = 330;
+    /** Value of a rook in centipawns. */
+    public static final int ROOK_VALUE = 500;
+    /** Value of a queen in centipawns. */
+    public static final int QUEEN_VALUE = 900;
+    /** Nominal value of a king, used only for capture ordering. */
+    public static final int KING_VALUE = 20000;
+
+    /**
+     * Evaluates the board from the point of view of the given side.
+     *
+     * @param board the board to evaluate
+     * @param color the side the score is relative to
+     * @return the score in centipawns (positive is good for color)
+     */
+    public static int evaluate(Board board, String color) {
+        int score = 0;
+        Piece[][] grid = board.getGrid();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = grid[row][col];
+                if (piece == null) continue;
+                int value = pieceValue(piece);
+                if (!(piece instanceof King) && !(piece instanceof Rook) && !(piece instanceof Queen)) {
+                    value += centerBonus(row, col);
+                }
+                score += piece.getColor().equals(color) ? value : -value;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Gets the material value of a piece.
+     *
+     * @param piece the piece
+     * @return its value in centipawns
+     */
+    public static int pieceValue(Piece piece) {
+        if (piece instanceof Pawn) return PAWN_VALUE;
+        if (piece instanceof Knight) return KNIGHT_VALUE;
+        if (piece instanceof Bishop) return BISHOP_VALUE;
+        if (piece instanceof Rook) return ROOK_VALUE;
+        if (piece instanceof Queen) return QUEEN_VALUE;
+        return KING_VALUE;
+    }
+
+    private static int centerBonus(int row, int col) {
+        int rowDistance = Math.min(row, 7 - row);
+        int colDistance = Math.min(col, 7 - col);
+        return 4 * (rowDistance + colDistance);
+    }
+}
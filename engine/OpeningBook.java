@@ -0,0 +1,212 @@
+package engine;
+
+import board.Board;
+import board.Move;
+import board.Zobrist;
+import position.Position;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Read-only opening book backed by a memory-mapped file. The file is a sorted array
+ * of fixed-size records (8-byte Zobrist key, 2-byte move, 2-byte weight), so a
+ * lookup is a binary search over the mapped pages: opening a book costs almost
+ * nothing and its contents never occupy the Java heap, whatever its size.
+ * Lookups only read the mapping and are safe to run from several threads.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class OpeningBook implements Closeable {
+    /** Size of one book record in bytes. */
+    public static final int RECORD_SIZE = 12;
+
+    // Records per mapped segment; keeps each mapping below the 2 GB buffer limit
+    private static final int RECORDS_PER_SEGMENT = 1 << 26;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long recordCount;
+
+    /**
+     * A candidate book move and its weight.
+     */
+    public static class BookEntry {
+        private final Move move;
+        private final int weight;
+
+        BookEntry(Move move, int weight) {
+            this.move = move;
+            this.weight = weight;
+        }
+
+        /**
+         * Gets the book move.
+         *
+         * @return the move
+         */
+        public Move getMove() {
+            return move;
+        }
+
+        /**
+         * Gets the relative weight of the move.
+         *
+         * @return the weight (higher is played more often)
+         */
+        public int getWeight() {
+            return weight;
+        }
+    }
+
+    /**
+     * Opens and memory-maps a book file.
+     *
+     * @param path the book file
+     * @throws IOException if the file cannot be opened or is not a whole number of records
+     */
+    public OpeningBook(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size % RECORD_SIZE != 0) {
+            channel.close();
+            throw new IOException("Book file size is not a multiple of " + RECORD_SIZE + ": " + path);
+        }
+        recordCount = size / RECORD_SIZE;
+        int segmentCount = (int) ((recordCount + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+        segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long start = (long) i * RECORDS_PER_SEGMENT * RECORD_SIZE;
+            long length = Math.min((long) RECORDS_PER_SEGMENT * RECORD_SIZE, size - start);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            segments[i].order(ByteOrder.BIG_ENDIAN);
+        }
+    }
+
+    /**
+     * Gets the number of records in the book.
+     *
+     * @return the record count
+     */
+    public long size() {
+        return recordCount;
+    }
+
+    /**
+     * Looks up all book moves for a position.
+     *
+     * @param board the current board
+     * @param color the side to move
+     * @return the book entries, empty if the position is not in the book
+     */
+    public List<BookEntry> lookup(Board board, String color) {
+        return lookup(Zobrist.hash(board, color));
+    }
+
+    /**
+     * Looks up all book moves stored under a Zobrist key.
+     *
+     * @param key the position key
+     * @return the book entries, empty if the key is not in the book
+     */
+    public List<BookEntry> lookup(long key) {
+        List<BookEntry> entries = new ArrayList<>();
+        long low = 0;
+        long high = recordCount;
+        // Find the first record whose key is not less than the target
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (keyAt(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (long i = low; i < recordCount && keyAt(i) == key; i++) {
+            MappedByteBuffer segment = segments[(int) (i / RECORDS_PER_SEGMENT)];
+            int offset = (int) (i % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+            Move move = decodeMove(segment.getShort(offset + 8));
+            int weight = segment.getShort(offset + 10) & 0xFFFF;
+            entries.add(new BookEntry(move, weight));
+        }
+        return entries;
+    }
+
+    /**
+     * Picks a book move for a position, choosing randomly in proportion to the weights.
+     *
+     * @param board the current board
+     * @param color the side to move
+     * @param random the source of randomness
+     * @return a book move, or null if the position is not in the book
+     */
+    public Move probe(Board board, String color, Random random) {
+        List<BookEntry> entries = lookup(board, color);
+        long total = 0;
+        for (BookEntry entry : entries) {
+            total += entry.weight;
+        }
+        if (total == 0) {
+            return entries.isEmpty() ? null : entries.get(0).move;
+        }
+        long pick = (long) (random.nextDouble() * total);
+        for (BookEntry entry : entries) {
+            pick -= entry.weight;
+            if (pick < 0) {
+                return entry.move;
+            }
+        }
+        return entries.get(entries.size() - 1).move;
+    }
+
+    /**
+     * Closes the file channel. The mapping itself is released by the garbage collector.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Packs a move into 16 bits: from square (6 bits), to square (6 bits) and
+     * promotion piece (3 bits: 0 none, 1 N, 2 B, 3 R, 4 Q).
+     *
+     * @param move the move to encode
+     * @return the packed move
+     */
+    public static short encodeMove(Move move) {
+        int from = move.getFrom().row * 8 + move.getFrom().col;
+        int to = move.getTo().row * 8 + move.getTo().col;
+        int promotion = " NBRQ".indexOf(move.getPromotion());
+        return (short) (from << 9 | to << 3 | Math.max(promotion, 0));
+    }
+
+    /**
+     * Unpacks a move produced by {@link #encodeMove(Move)}.
+     *
+     * @param packed the packed move
+     * @return the move
+     */
+    public static Move decodeMove(short packed) {
+        int bits = packed & 0xFFFF;
+        int from = bits >>> 9 & 63;
+        int to = bits >>> 3 & 63;
+        char promotion = " NBRQ".charAt(Math.min(bits & 7, 4));
+        return new Move(new Position(from / 8, from % 8), new Position(to / 8, to % 8), promotion);
+    }
+
+    private long keyAt(long index) {
+        MappedByteBuffer segment = segments[(int) (index / RECORDS_PER_SEGMENT)];
+        return segment.getLong((int) (index % RECORDS_PER_SEGMENT) * RECORD_SIZE);
+    }
+}
@@ -0,0 +1,169 @@
+package engine;
+
+import board.Board;
+import board.Fen;
+import board.Move;
+import board.PgnReader;
+import board.San;
+import board.Zobrist;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an OpeningBook file from PGN game collections. Every position in the first
+ * plies of each game is hashed and the move played from it is counted; the counts
+ * become the record weights. Records are written sorted by key so the book can be
+ * binary-searched in place.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class OpeningBookBuilder {
+    private final int maxPlies;
+    private final Map<Long, Map<Short, Integer>> counts = new HashMap<>();
+    private long games;
+    private long skippedGames;
+
+    /**
+     * Constructs a builder.
+     *
+     * @param maxPlies the number of plies from the start of each game to record
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Adds all games from a PGN source. Games containing an illegal or unreadable
+     * move are counted up to that move and then skipped; games with a malformed
+     * FEN tag are skipped entirely.
+     *
+     * @param reader the PGN text
+     * @throws IOException if reading fails
+     */
+    public void addGames(Reader reader) throws IOException {
+        try (PgnReader pgn = new PgnReader(reader)) {
+            PgnReader.PgnGame game;
+            while ((game = pgn.next()) != null) {
+                addGame(game);
+            }
+        }
+    }
+
+    /**
+     * Adds the opening moves of a single game.
+     *
+     * @param game the game to add
+     */
+    public void addGame(PgnReader.PgnGame game) {
+        games++;
+        Board board;
+        String color;
+        try {
+            String fen = game.getStartFen();
+            board = Fen.toBoard(fen);
+            color = Fen.activeColor(fen);
+        } catch (IllegalArgumentException e) {
+            skippedGames++;
+            return;
+        }
+        int plies = 0;
+        for (String san : game.getMoves()) {
+            if (plies >= maxPlies) break;
+            Move move;
+            try {
+                move = San.parse(board, color, san);
+            } catch (IllegalArgumentException e) {
+                skippedGames++;
+                return;
+            }
+            long key = Zobrist.hash(board, color);
+            counts.computeIfAbsent(key, k -> new HashMap<>())
+                .merge(OpeningBook.encodeMove(move), 1, Integer::sum);
+            move.applyTo(board);
+            color = color.equals("white") ? "black" : "white";
+            plies++;
+        }
+    }
+
+    /**
+     * Gets the number of games seen so far.
+     *
+     * @return the game count
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the number of games that stopped early because of an unreadable move.
+     *
+     * @return the skipped game count
+     */
+    public long getSkippedGames() {
+        return skippedGames;
+    }
+
+    /**
+     * Writes the book file. Records are sorted by key and, within a key, by
+     * descending weight. Weights are capped at 65535.
+     *
+     * @param path the output file
+     * @param minCount moves seen fewer times than this are left out
+     * @return the number of records written
+     * @throws IOException if writing fails
+     */
+    public long write(String path, int minCount) throws IOException {
+        List<Long> keys = new ArrayList<>(counts.keySet());
+        keys.sort(Long::compare);
+        long records = 0;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(path), 1 << 16))) {
+            for (Long key : keys) {
+                List<Map.Entry<Short, Integer>> moves = new ArrayList<>(counts.get(key).entrySet());
+                moves.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+                for (Map.Entry<Short, Integer> entry : moves) {
+                    if (entry.getValue() < minCount) continue;
+                    out.writeLong(key);
+                    out.writeShort(entry.getKey());
+                    out.writeShort(Math.min(entry.getValue(), 0xFFFF));
+                    records++;
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Builds a book from the command line.
+     * Usage: java engine.OpeningBookBuilder &lt;output.bin&gt; &lt;maxPlies&gt; &lt;minCount&gt; &lt;games.pgn&gt;...
+     *
+     * @param args command line arguments
+     * @throws IOException if reading or writing fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println("Usage: java engine.OpeningBookBuilder <output.bin> <maxPlies> <minCount> <games.pgn>...");
+            return;
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder(Integer.parseInt(args[1]));
+        for (int i = 3; i < args.length; i++) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(args[i]), StandardCharsets.ISO_8859_1)) {
+                builder.addGames(reader);
+            }
+        }
+        long records = builder.write(args[0], Integer.parseInt(args[2]));
+        System.out.println("Games: " + builder.getGames() + " (skipped " + builder.getSkippedGames()
+            + "), records written: " + records);
+    }
+}
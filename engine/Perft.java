@@ -0,0 +1,125 @@
+package engine;
+
+import board.Board;
+import board.BoardBenchmark;
+import board.Fen;
+import board.Move;
+import board.MoveGenerator;
+import utils.Metrics;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth (perft), the
+ * standard way of checking a move generator against published counts, with the
+ * counting done by {@link BoardBenchmark#perft(Board, String, int)}.
+ * Includes a suite of reference positions covering castling, en passant,
+ * promotions, checks and Chess960 castling.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class Perft {
+    /** Reference positions: FEN followed by the expected counts from depth 1 upward. */
+    private static final String[][] SUITE = {
+        {Fen.START_POSITION, "20", "400", "8902", "197281", "4865609"},
+        {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "48", "2039", "97862", "4085603"},
+        {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "14", "191", "2812", "43238", "674624"},
+        {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "6", "264", "9467", "422333"},
+        {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", "44", "1486", "62379", "2103487"},
+        {"bqnb1rkr/pp3ppp/3ppn2/2p5/5P2/P2P4/NPP1P1PP/BQ1BNRKR w HFhf - 2 9",
+            "21", "528", "12189", "326672", "8146062"},
+        {"2nnrbkr/p1qppppp/8/1ppb4/6PP/3PP3/PPP2P2/BQNNRBKR w HEhe - 1 9", "21", "807", "18002", "667366"},
+        {"b1q1rrkb/pppppppp/3nn3/8/P7/1PPP4/4PPPP/BQNNRKRB w GE - 1 9", "20", "479", "10471", "273318"},
+        {"qbbnnrkr/2pp2pp/p7/1p2pp2/8/P3PP2/1PPP1KPP/QBBNNR1R w hf - 0 9", "22", "593", "13440", "382958"},
+        {"1nbbnrkr/p1p1ppp1/3p4/1p3P1p/3Pq2P/8/PPP1P1P1/QNBBNRKR w HFhf - 0 9",
+            "28", "1120", "31058", "1171749"},
+        {"qnbnr1kr/ppp1b1pp/4p3/3p1p2/8/2NPP3/PPP1BPPP/QNB1R1KR w HEhe - 1 9", "29", "899", "26578", "824055"},
+    };
+
+    private Perft() {
+    }
+
+    /**
+     * Runs perft from the command line.
+     * Usage:
+     * <pre>
+     *   java engine.Perft &lt;fen|startpos|960:n&gt; &lt;depth&gt; [divide]
+     *   java engine.Perft suite [maxDepth]
+     * </pre>
+     * "960:n" is Chess960 start position number n. "divide" prints the count below
+     * each root move. The suite exits with status 1 if any count is wrong.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || (!args[0].equals("suite") && args.length < 2)) {
+            System.out.println("Usage: java engine.Perft <fen|startpos|960:n> <depth> [divide] | suite [maxDepth]");
+            return;
+        }
+        boolean passed = true;
+        if (args[0].equals("suite")) {
+            passed = runSuite(args.length > 1 ? Integer.parseInt(args[1]) : 4);
+        } else {
+            String fen = position(args[0]);
+            int depth = Integer.parseInt(args[1]);
+            boolean divide = args.length > 2 && args[2].equals("divide");
+            Board board = Fen.toBoard(fen);
+            String color = Fen.activeColor(fen);
+            long start = System.nanoTime();
+            long nodes = 0;
+            if (divide) {
+                for (Move move : MoveGenerator.legalMoves(board, color)) {
+                    Board child = board.copy();
+                    move.applyTo(child);
+                    long count = depth > 1 ? BoardBenchmark.perft(child, Searcher.opposite(color), depth - 1) : 1;
+                    System.out.println(move.toUci() + ": " + count);
+                    nodes += count;
+                }
+            } else {
+                nodes = BoardBenchmark.perft(board, color, depth);
+            }
+            printResult(fen, depth, nodes, System.nanoTime() - start);
+        }
+        Metrics.writeIfConfigured();
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean runSuite(int maxDepth) {
+        int failures = 0;
+        for (String[] entry : SUITE) {
+            Board board = Fen.toBoard(entry[0]);
+            String color = Fen.activeColor(entry[0]);
+            for (int depth = 1; depth < entry.length && depth <= maxDepth; depth++) {
+                long expected = Long.parseLong(entry[depth]);
+                long start = System.nanoTime();
+                long nodes = BoardBenchmark.perft(board, color, depth);
+                if (nodes != expected) {
+                    failures++;
+                    System.out.printf("FAIL %s depth %d: %d, expected %d%n", entry[0], depth, nodes, expected);
+                } else if (depth == Math.min(entry.length - 1, maxDepth)) {
+                    printResult(entry[0], depth, nodes, System.nanoTime() - start);
+                }
+            }
+        }
+        System.out.println(failures == 0 ? "All positions passed" : failures + " counts wrong");
+        return failures == 0;
+    }
+
+    private static String position(String arg) {
+        if (arg.equals("startpos")) {
+            return Fen.START_POSITION;
+        }
+        if (arg.startsWith("960:")) {
+            return Fen.chess960(Integer.parseInt(arg.substring(4)));
+        }
+        return arg;
+    }
+
+    private static void printResult(String fen, int depth, long nodes, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%s depth %d: %d nodes, %.2f s (%.0f nodes/s)%n",
+            fen, depth, nodes, seconds, seconds > 0 ? nodes / seconds : 0);
+    }
+}
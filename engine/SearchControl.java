@@ -0,0 +1,72 @@
+package engine;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits one search: an atomic stop flag that any thread may set, and an optional
+ * deadline. The searching thread polls it every few thousand nodes and unwinds
+ * cleanly, keeping the result of the last depth it completed. Each search gets its
+ * own control, so stopping an old search can never stop the next one by accident.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public final class SearchControl {
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private volatile boolean timed;
+    private volatile long deadline;
+
+    /**
+     * Constructs a control without a time limit; the search runs until it reaches
+     * its maximum depth or is stopped.
+     */
+    public SearchControl() {
+    }
+
+    /**
+     * Constructs a control whose time limit starts now.
+     *
+     * @param timeLimitMillis the time limit in milliseconds
+     */
+    public SearchControl(long timeLimitMillis) {
+        setTimeLimit(System.nanoTime(), timeLimitMillis);
+    }
+
+    /**
+     * Sets or replaces the time limit, for example when a ponder search becomes
+     * the real search. May be called while the search runs.
+     *
+     * @param startNanos the System.nanoTime() value the limit is measured from
+     * @param timeLimitMillis the time limit in milliseconds
+     */
+    public void setTimeLimit(long startNanos, long timeLimitMillis) {
+        deadline = startNanos + timeLimitMillis * 1_000_000L;
+        timed = true;
+    }
+
+    /**
+     * Asks the search to stop as soon as possible. Safe to call from any thread.
+     */
+    public void stop() {
+        stopped.set(true);
+    }
+
+    /**
+     * Checks whether stop() has been called.
+     *
+     * @return true if the search was stopped
+     */
+    public boolean isStopped() {
+        return stopped.get();
+    }
+
+    /**
+     * Checks whether the search should stop, either because it was stopped or
+     * because its time is up.
+     *
+     * @return true if the search should stop
+     */
+    public boolean shouldStop() {
+        return stopped.get() || (timed && System.nanoTime() - deadline >= 0);
+    }
+}
@@ -0,0 +1,24 @@
+package engine;
+
+import board.Move;
+
+/**
+ * Receives progress reports from a Searcher. Called on the searching thread after
+ * every completed iteration, so implementations should return quickly.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public interface SearchListener {
+    /**
+     * Reports a completed iteration.
+     *
+     * @param depth the depth just completed, in plies
+     * @param score the score of the best move for the side to move, in centipawns
+     * @param nodes the nodes searched so far in this search
+     * @param elapsedNanos the time since the search started
+     * @param bestMove the best move found at this depth
+     * @param expectedReply the opponent's expected reply, or null if not known
+     */
+    void iterationCompleted(int depth, int score, long nodes, long elapsedNanos, Move bestMove, Move expectedReply);
+}
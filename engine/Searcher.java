@@ -0,0 +1,349 @@
+package engine;
+
+import board.Board;
+import board.Move;
+import board.MoveGenerator;
+import pieces.Piece;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fixed-depth alpha-beta search over the legal moves produced by MoveGenerator.
+ * Each node works on its own Board copy, so a Searcher never modifies the board
+ * it is given. If an opening book is set, book positions are answered from the
+ * book without searching, and if a tablebase is set, positions with few pieces
+ * are scored exactly instead of being searched further. At the horizon a quiescence
+ * search keeps resolving captures until the position is quiet, skipping captures
+ * that static exchange evaluation says lose material. Searches given a
+ * SearchControl deepen one ply at a time and can be stopped from another thread.
+ * A Searcher keeps a node counter and is not thread-safe; use one instance per thread.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class Searcher {
+    /** Score of a position where the side to move is checkmated. */
+    public static final int MATE_SCORE = 100000;
+    /** Pushes captures that lose material behind the quiet moves when ordering. */
+    private static final int LOSING_CAPTURE_PENALTY = 20 * Evaluator.QUEEN_VALUE;
+
+    private final Random random = new Random();
+    private OpeningBook openingBook;
+    private Tablebase tablebase;
+    private long nodes;
+    private int lastScore;
+    private Move expectedReply;
+    private int completedDepth;
+    private SearchControl control;
+    private SearchListener listener;
+    /** Best reply found so far at ply 1 under the root move being searched. */
+    private Move reply;
+
+    /**
+     * Sets the opening book consulted before searching.
+     *
+     * @param openingBook the book, or null to always search
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Sets the endgame tablebase probed during search.
+     *
+     * @param tablebase the tablebase, or null to search endgames normally
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Sets the listener told about each completed iteration.
+     *
+     * @param listener the listener, or null for none
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Searches the position and returns the best move for the side to move.
+     *
+     * @param board the current board (not modified)
+     * @param color the side to move
+     * @param depth the search depth in plies (at least 1)
+     * @return the best move, or null if the side to move has no legal moves
+     */
+    public Move findBestMove(Board board, String color, int depth) {
+        return findBestMove(board, color, depth, null);
+    }
+
+    /**
+     * Searches the position with iterative deepening until the maximum depth is
+     * reached or the control says to stop, and returns the best move of the deepest
+     * completed iteration. Without a control this is a single fixed-depth search.
+     *
+     * @param board the current board (not modified)
+     * @param color the side to move
+     * @param maxDepth the maximum search depth in plies (at least 1)
+     * @param control the stop flag and time limit, or null to search to maxDepth
+     * @return the best move, or null if the side to move has no legal moves
+     */
+    public Move findBestMove(Board board, String color, int maxDepth, SearchControl control) {
+        List<Move> legalMoves = MoveGenerator.legalMoves(board, color);
+        lastScore = 0;
+        expectedReply = null;
+        completedDepth = 0;
+        if (openingBook != null) {
+            Move bookMove = openingBook.probe(board, color, random);
+            // The legality test also guards against Zobrist key collisions
+            if (bookMove != null && legalMoves.contains(bookMove)) {
+                return bookMove;
+            }
+        }
+        if (legalMoves.isEmpty()) {
+            return null;
+        }
+        List<Move> moves = orderMoves(board, legalMoves);
+        // Used only if even the first iteration is cut short
+        Move bestMove = moves.get(0);
+        this.control = control;
+        long start = System.nanoTime();
+        long startNodes = nodes;
+        try {
+            for (int depth = control == null ? maxDepth : 1; depth <= maxDepth; depth++) {
+                if (control != null && control.shouldStop()) {
+                    break;
+                }
+                bestMove = searchRoot(board, color, depth, moves);
+                completedDepth = depth;
+                if (listener != null) {
+                    listener.iterationCompleted(depth, lastScore, nodes - startNodes, System.nanoTime() - start,
+                        bestMove, expectedReply);
+                }
+                // Search the best move first in the next iteration
+                moves.remove(bestMove);
+                moves.add(0, bestMove);
+            }
+        } catch (SearchAborted e) {
+            // Keep the result of the last completed iteration
+        } finally {
+            this.control = null;
+        }
+        return bestMove;
+    }
+
+    /**
+     * Gets the number of nodes visited since this Searcher was created
+     * or since the last call to {@link #resetNodes()}.
+     *
+     * @return the node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the score of the move returned by the last call to findBestMove, from the
+     * mover's point of view in centipawns (0 for book moves and positions without moves).
+     *
+     * @return the search score
+     */
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    /**
+     * Gets the reply the last search expects from the opponent after its best move,
+     * which is the position worth pondering on.
+     *
+     * @return the expected reply, or null if the search was too shallow to have one
+     */
+    public Move getExpectedReply() {
+        return expectedReply;
+    }
+
+    /**
+     * Gets the depth of the deepest iteration the last search completed.
+     *
+     * @return the completed depth in plies (0 for book moves and aborted first iterations)
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Resets the node counter to zero.
+     */
+    public void resetNodes() {
+        nodes = 0;
+    }
+
+    private Move searchRoot(Board board, String color, int depth, List<Move> moves) {
+        Move bestMove = null;
+        Move bestReply = null;
+        int alpha = -MATE_SCORE - 1;
+        int beta = MATE_SCORE + 1;
+        for (Move move : moves) {
+            Board child = board.copy();
+            move.applyTo(child);
+            reply = null;
+            int score = -search(child, opposite(color), depth - 1, -beta, -alpha, 1);
+            if (bestMove == null || score > alpha) {
+                alpha = score;
+                bestMove = move;
+                bestReply = reply;
+            }
+        }
+        lastScore = alpha;
+        expectedReply = bestReply;
+        return bestMove;
+    }
+
+    private int search(Board board, String color, int depth, int alpha, int beta, int ply) {
+        countNode();
+        if (tablebase != null && Tablebase.isCandidate(board)) {
+            Tablebase.Result result = tablebase.probe(board, color);
+            if (result != null) {
+                if (result.isWin()) return MATE_SCORE - ply - result.getPlies();
+                if (result.isLoss()) return -MATE_SCORE + ply + result.getPlies();
+                return 0;
+            }
+        }
+        List<Move> moves = MoveGenerator.legalMoves(board, color);
+        if (moves.isEmpty()) {
+            return board.isInCheck(color) ? -MATE_SCORE + ply : 0;
+        }
+        if (depth <= 0) {
+            return quiesce(board, color, alpha, beta, ply, moves);
+        }
+        for (Move move : orderMoves(board, moves)) {
+            Board child = board.copy();
+            move.applyTo(child);
+            int score = -search(child, opposite(color), depth - 1, -beta, -alpha, ply + 1);
+            if (score >= beta) {
+                return score;
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (ply == 1) {
+                    reply = move;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Searches captures and queen promotions only, so the static evaluation is never
+     * taken in the middle of an exchange. The side to move may stand pat on the
+     * static score instead of capturing.
+     */
+    private int quiesce(Board board, String color, int alpha, int beta, int ply, List<Move> moves) {
+        int standPat = Evaluator.evaluate(board, color);
+        if (standPat >= beta) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+        List<Move> captures = new ArrayList<>();
+        for (Move move : moves) {
+            if ((StaticExchange.isCapture(board, move) || move.getPromotion() == 'Q')
+                    && StaticExchange.evaluate(board, move) >= 0) {
+                captures.add(move);
+            }
+        }
+        for (Move move : orderMoves(board, captures)) {
+            Board child = board.copy();
+            move.applyTo(child);
+            String next = opposite(color);
+            countNode();
+            List<Move> replies = MoveGenerator.legalMoves(child, next);
+            int score;
+            if (replies.isEmpty()) {
+                score = child.isInCheck(next) ? MATE_SCORE - ply - 1 : 0;
+            } else {
+                score = -quiesce(child, next, -beta, -alpha, ply + 1, replies);
+            }
+            if (score >= beta) {
+                return score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Orders moves so that captures that win material (by static exchange evaluation)
+     * come first, most valuable victim first, followed by promotions, then quiet moves
+     * in generation order, then captures that lose material.
+     */
+    private static List<Move> orderMoves(Board board, List<Move> moves) {
+        List<Move> ordered = new ArrayList<>(moves);
+        int[] keys = new int[ordered.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = orderingScore(board, ordered.get(i));
+        }
+        // Insertion sort keeps quiet moves in their original order
+        for (int i = 1; i < keys.length; i++) {
+            int key = keys[i];
+            Move move = ordered.get(i);
+            int j = i - 1;
+            while (j >= 0 && keys[j] < key) {
+                keys[j + 1] = keys[j];
+                ordered.set(j + 1, ordered.get(j));
+                j--;
+            }
+            keys[j + 1] = key;
+            ordered.set(j + 1, move);
+        }
+        return ordered;
+    }
+
+    private static int orderingScore(Board board, Move move) {
+        Piece victim = board.getPiece(move.getTo());
+        Piece attacker = board.getPiece(move.getFrom());
+        int score = 0;
+        if (victim != null && !victim.getColor().equals(attacker.getColor())) {
+            score += 10 * Evaluator.pieceValue(victim) - Evaluator.pieceValue(attacker) / 10;
+            if (StaticExchange.evaluate(board, move) < 0) {
+                score -= LOSING_CAPTURE_PENALTY;
+            }
+        }
+        if (move.getPromotion() == 'Q') {
+            score += Evaluator.QUEEN_VALUE;
+        }
+        return score;
+    }
+
+    /**
+     * Counts a node and, every 1024 nodes, polls the search control.
+     */
+    private void countNode() {
+        nodes++;
+        if ((nodes & 1023) == 0 && control != null && control.shouldStop()) {
+            throw SearchAborted.INSTANCE;
+        }
+    }
+
+    /**
+     * Unwinds an aborted search. Thrown only by countNode and caught by findBestMove,
+     * so it needs no stack trace.
+     */
+    private static final class SearchAborted extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        static final SearchAborted INSTANCE = new SearchAborted();
+
+        private SearchAborted() {
+            super(null, null, false, false);
+        }
+    }
+
+    static String opposite(String color) {
+        return color.equals("white") ? "black" : "white";
+    }
+}
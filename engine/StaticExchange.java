@@ -0,0 +1,177 @@
+package engine;
+
+import board.Board;
+import board.BoardSnapshot;
+import board.Mailbox;
+import board.Move;
+import pieces.Pawn;
+import pieces.Piece;
+import position.Position;
+
+/**
+ * Static exchange evaluation: the material balance of the capture sequence on one
+ * square, assuming both sides keep recapturing with their least valuable attacker
+ * and either side may stop when continuing would lose material. Attackers are found
+ * by looking outward from the target square along pawn diagonals, knight jumps and
+ * the eight rays of a {@link Mailbox} copy of the board. Each capture empties the
+ * capturing piece's square, so sliders lined up behind it (x-rays) join the
+ * exchange. Pins are ignored, as usual for this kind of estimate.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public final class StaticExchange {
+    /** Per-thread mailbox copy that each evaluation overwrites and clears as it goes. */
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[Mailbox.SIZE]);
+    /** Piece values indexed by BoardSnapshot type code. */
+    private static final int[] VALUES = {
+        0, Evaluator.PAWN_VALUE, Evaluator.KNIGHT_VALUE, Evaluator.BISHOP_VALUE,
+        Evaluator.ROOK_VALUE, Evaluator.QUEEN_VALUE, Evaluator.KING_VALUE
+    };
+
+    private StaticExchange() {
+    }
+
+    /**
+     * Checks whether a move captures a piece, including en passant. A Chess960
+     * castling move lands on the king's own rook and is not a capture.
+     *
+     * @param board the board before the move
+     * @param move the move
+     * @return true if the move removes an enemy piece
+     */
+    public static boolean isCapture(Board board, Move move) {
+        Piece victim = board.getPiece(move.getTo());
+        if (victim != null) {
+            return !victim.getColor().equals(board.getPiece(move.getFrom()).getColor());
+        }
+        return isEnPassant(board, move);
+    }
+
+    /**
+     * Evaluates the exchange started by a move. Quiet moves are scored as the
+     * exchange that follows if the opponent captures the moved piece.
+     *
+     * @param board the board before the move (not modified)
+     * @param move the move, which must be pseudo-legal
+     * @return the expected material gain for the mover in centipawns (negative if it loses material)
+     */
+    public static int evaluate(Board board, Move move) {
+        byte[] squares = SCRATCH.get();
+        board.copyMailbox(squares);
+        Position from = move.getFrom();
+        Position to = move.getTo();
+        int fromIndex = Mailbox.index(from.row, from.col);
+        int target = Mailbox.index(to.row, to.col);
+        int mover = squares[fromIndex];
+        boolean black = (mover & BoardSnapshot.BLACK) != 0;
+        if (squares[target] != BoardSnapshot.EMPTY && ((squares[target] & BoardSnapshot.BLACK) != 0) == black) {
+            // Castling onto the king's own rook exchanges nothing
+            return 0;
+        }
+
+        int[] gain = new int[32];
+        gain[0] = VALUES[squares[target] & BoardSnapshot.TYPE_MASK];
+        if (isEnPassant(board, move)) {
+            gain[0] = Evaluator.PAWN_VALUE;
+            squares[Mailbox.index(from.row, to.col)] = BoardSnapshot.EMPTY;
+        }
+        int onSquare = VALUES[mover & BoardSnapshot.TYPE_MASK];
+        if (move.getPromotion() != ' ') {
+            int promoted = promotionValue(move.getPromotion());
+            gain[0] += promoted - Evaluator.PAWN_VALUE;
+            onSquare = promoted;
+        }
+        squares[fromIndex] = BoardSnapshot.EMPTY;
+        boolean lastRank = to.row == 0 || to.row == 7;
+
+        int depth = 0;
+        boolean side = !black;
+        while (depth + 1 < gain.length) {
+            int attacker = leastValuableAttacker(squares, target, side);
+            if (attacker < 0) {
+                break;
+            }
+            int type = squares[attacker] & BoardSnapshot.TYPE_MASK;
+            squares[attacker] = BoardSnapshot.EMPTY;
+            // A king may only capture if nothing recaptures
+            if (type == BoardSnapshot.KING && leastValuableAttacker(squares, target, !side) >= 0) {
+                break;
+            }
+            depth++;
+            gain[depth] = onSquare - gain[depth - 1];
+            onSquare = VALUES[type];
+            if (type == BoardSnapshot.PAWN && lastRank) {
+                gain[depth] += Evaluator.QUEEN_VALUE - Evaluator.PAWN_VALUE;
+                onSquare = Evaluator.QUEEN_VALUE;
+            }
+            side = !side;
+        }
+        // Walk back through the sequence; each side stops capturing when that is better
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    /**
+     * Finds the cheapest piece of one side that attacks a square. Only the first
+     * piece along each ray counts, so pieces removed from the mailbox uncover the
+     * sliders behind them.
+     *
+     * @return the mailbox index of the attacker, or -1 if there is none
+     */
+    private static int leastValuableAttacker(byte[] squares, int target, boolean black) {
+        int side = black ? BoardSnapshot.BLACK : 0;
+
+        int pawn = BoardSnapshot.PAWN | side;
+        int pawnSquare = target + (black ? -10 : 10);
+        if (squares[pawnSquare - 1] == pawn) return pawnSquare - 1;
+        if (squares[pawnSquare + 1] == pawn) return pawnSquare + 1;
+
+        int knight = BoardSnapshot.KNIGHT | side;
+        for (int i = 0; i < 8; i++) {
+            int s = target + Mailbox.knightJump(i);
+            if (squares[s] == knight) return s;
+        }
+
+        int best = -1;
+        int bestValue = Integer.MAX_VALUE;
+        for (int dir = 0; dir < 8; dir++) {
+            int step = Mailbox.ray(dir);
+            int s = target + step;
+            while (squares[s] == BoardSnapshot.EMPTY) {
+                s += step;
+            }
+            int code = squares[s];
+            if (code == Mailbox.OFF_BOARD || (code & BoardSnapshot.BLACK) != side) {
+                continue;
+            }
+            int type = code & BoardSnapshot.TYPE_MASK;
+            boolean attacks = type == BoardSnapshot.QUEEN
+                || type == (dir < 4 ? BoardSnapshot.ROOK : BoardSnapshot.BISHOP)
+                || (type == BoardSnapshot.KING && s == target + step);
+            if (attacks && VALUES[type] < bestValue) {
+                best = s;
+                bestValue = VALUES[type];
+            }
+        }
+        return best;
+    }
+
+    private static boolean isEnPassant(Board board, Move move) {
+        return board.getPiece(move.getFrom()) instanceof Pawn
+            && move.getTo().equals(board.getEnPassantTarget())
+            && move.getFrom().col != move.getTo().col;
+    }
+
+    private static int promotionValue(char promotion) {
+        switch (Character.toUpperCase(promotion)) {
+            case 'R': return Evaluator.ROOK_VALUE;
+            case 'B': return Evaluator.BISHOP_VALUE;
+            case 'N': return Evaluator.KNIGHT_VALUE;
+            default: return Evaluator.QUEEN_VALUE;
+        }
+    }
+}
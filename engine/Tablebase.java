@@ -0,0 +1,407 @@
+package engine;
+
+import board.Board;
+import board.BoardSnapshot;
+import pieces.Piece;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Probes endgame tablebases produced by TablebaseGenerator. Each material
+ * combination (e.g., "KQK", "KRKN") is a separate file that is memory-mapped the
+ * first time it is needed, so probing reads exact distance-to-mate results
+ * straight from the page cache. Positions with castling rights or an en passant
+ * target are not covered and return null.
+ *
+ * Table layout: one signed byte per position, indexed by side to move and the
+ * square of each piece in signature order. A value v &gt; 0 means the side to move
+ * mates in v plies, v &lt; 0 means it is mated in (-v - 1) plies, and 0 is a draw.
+ * Positions where the stronger side is black are looked up color-flipped.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class Tablebase implements Closeable {
+    /** Largest number of pieces (kings included) a table can cover. */
+    public static final int MAX_PIECES = 4;
+    /** File name extension of table files. */
+    public static final String FILE_EXTENSION = ".ctb";
+
+    static final int MAGIC = 0x43544231;
+    private static final String PIECE_ORDER = "KQRBNP";
+    private static final String TYPE_LETTERS = "?PNBRQK";
+
+    private final Path directory;
+    private final ConcurrentHashMap<String, MappedByteBuffer> tables = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Boolean> missing = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> errors = new ConcurrentHashMap<>();
+    private final List<FileChannel> channels = new ArrayList<>();
+
+    /**
+     * The exact game-theoretic result of a position.
+     */
+    public static final class Result {
+        private final int value;
+
+        Result(int value) {
+            this.value = value;
+        }
+
+        /**
+         * Checks whether the side to move wins.
+         *
+         * @return true if the side to move can force mate
+         */
+        public boolean isWin() {
+            return value > 0;
+        }
+
+        /**
+         * Checks whether the side to move loses.
+         *
+         * @return true if the side to move is mated with best play
+         */
+        public boolean isLoss() {
+            return value < 0;
+        }
+
+        /**
+         * Checks whether the position is a draw.
+         *
+         * @return true if neither side can force mate
+         */
+        public boolean isDraw() {
+            return value == 0;
+        }
+
+        /**
+         * Gets the number of plies until mate with best play.
+         *
+         * @return the distance to mate in plies, or 0 for a draw
+         */
+        public int getPlies() {
+            return Tablebase.plies(value);
+        }
+
+        /**
+         * Returns a short description such as "win in 7 plies".
+         *
+         * @return the description
+         */
+        @Override
+        public String toString() {
+            if (value == 0) return "draw";
+            return (value > 0 ? "win" : "loss") + " in " + getPlies() + " plies";
+        }
+    }
+
+    /**
+     * Identifies a position inside a table: which table and which index.
+     */
+    static final class Location {
+        final String signature;
+        final int index;
+
+        Location(String signature, int index) {
+            this.signature = signature;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Opens a tablebase directory. Tables are mapped lazily on first probe.
+     *
+     * @param directory the directory holding the table files
+     */
+    public Tablebase(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Looks up the exact result of a position.
+     *
+     * @param board the board
+     * @param color the side to move
+     * @return the result, or null if no table covers the position
+     */
+    public Result probe(Board board, String color) {
+        if (board.getEnPassantTarget() != null
+                || board.hasCastlingRight("white", true) || board.hasCastlingRight("white", false)
+                || board.hasCastlingRight("black", true) || board.hasCastlingRight("black", false)) {
+            return null;
+        }
+        int[] codes = new int[MAX_PIECES];
+        int[] squares = new int[MAX_PIECES];
+        int count = 0;
+        Piece[][] grid = board.getGrid();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Piece piece = grid[row][col];
+                if (piece == null) continue;
+                if (count == MAX_PIECES) return null;
+                codes[count] = BoardSnapshot.encode(piece) & (BoardSnapshot.TYPE_MASK | BoardSnapshot.BLACK);
+                squares[count] = row * 8 + col;
+                count++;
+            }
+        }
+        if (count == 2) {
+            return new Result(0);
+        }
+        Location location = locate(codes, squares, count, color.equals("black"));
+        if (location == null) {
+            return null;
+        }
+        MappedByteBuffer table = table(location.signature);
+        if (table == null) {
+            return null;
+        }
+        return new Result(table.get(headerSize(location.signature) + location.index));
+    }
+
+    /**
+     * Checks whether a board has few enough pieces to be looked up.
+     *
+     * @param board the board
+     * @return true if the board has at most MAX_PIECES pieces
+     */
+    public static boolean isCandidate(Board board) {
+        int count = 0;
+        for (Piece[] row : board.getGrid()) {
+            for (Piece piece : row) {
+                if (piece != null && ++count > MAX_PIECES) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the tables that exist but could not be used, such as truncated or
+     * foreign files. Such tables are treated as missing, so probes of their
+     * positions return null.
+     *
+     * @return the reason for each unusable table, keyed by signature (a read-only view)
+     */
+    public Map<String, String> getErrors() {
+        return Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * Releases the file channels. Mappings are freed by the garbage collector.
+     *
+     * @throws IOException if closing a channel fails
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (channels) {
+            for (FileChannel channel : channels) {
+                channel.close();
+            }
+            channels.clear();
+        }
+    }
+
+    private MappedByteBuffer table(String signature) {
+        MappedByteBuffer table = tables.get(signature);
+        if (table != null || missing.containsKey(signature)) {
+            return table;
+        }
+        synchronized (channels) {
+            table = tables.get(signature);
+            if (table != null) return table;
+            Path path = directory.resolve(signature + FILE_EXTENSION);
+            if (!Files.isRegularFile(path)) {
+                missing.put(signature, Boolean.TRUE);
+                return null;
+            }
+            try {
+                table = map(path, headerSize(signature) + tableSize(signature.length()));
+            } catch (IOException e) {
+                errors.put(signature, e.getMessage());
+                missing.put(signature, Boolean.TRUE);
+                return null;
+            }
+            tables.put(signature, table);
+            return table;
+        }
+    }
+
+    /**
+     * Maps a table file and checks its size and magic number. The size is checked
+     * first, so a truncated file is never read past its end. The channel is kept
+     * open for {@link #close()} only if the file is valid.
+     */
+    private MappedByteBuffer map(Path path, long expectedSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        boolean valid = false;
+        try {
+            if (channel.size() != expectedSize) {
+                throw new IOException("Wrong table size: " + path);
+            }
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, expectedSize);
+            if (table.getInt(0) != MAGIC) {
+                throw new IOException("Not a valid table file: " + path);
+            }
+            channels.add(channel);
+            valid = true;
+            return table;
+        } finally {
+            if (!valid) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of positions in a table with the given number of pieces.
+     *
+     * @param pieces the number of pieces
+     * @return 2 * 64^pieces
+     */
+    static int tableSize(int pieces) {
+        return 2 << (6 * pieces);
+    }
+
+    /**
+     * Gets the size of a table file header: magic, piece count and signature letters.
+     *
+     * @param signature the table signature
+     * @return the header size in bytes
+     */
+    static int headerSize(String signature) {
+        return 5 + signature.length();
+    }
+
+    /**
+     * Converts a stored value to plies until mate.
+     *
+     * @param value the stored value
+     * @return the distance to mate in plies (0 for draws)
+     */
+    static int plies(int value) {
+        return value > 0 ? value : value < 0 ? -value - 1 : 0;
+    }
+
+    /**
+     * Gets the piece codes of each slot of a signature, in index order.
+     *
+     * @param signature a canonical signature such as "KRKN"
+     * @return the piece code for each slot (type plus BLACK flag)
+     */
+    static int[] slotCodes(String signature) {
+        int[] codes = new int[signature.length()];
+        int blackStart = signature.indexOf('K', 1);
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = TYPE_LETTERS.indexOf(signature.charAt(i)) | (i >= blackStart ? BoardSnapshot.BLACK : 0);
+        }
+        return codes;
+    }
+
+    /**
+     * Puts a signature in canonical form, with the stronger side first.
+     *
+     * @param signature a signature such as "KKQ"
+     * @return the canonical signature (e.g., "KQK")
+     */
+    static String canonical(String signature) {
+        int blackStart = signature.indexOf('K', 1);
+        String white = sortSide(signature.substring(0, blackStart));
+        String black = sortSide(signature.substring(blackStart));
+        return compareSides(white, black) >= 0 ? white + black : black + white;
+    }
+
+    /**
+     * Finds the table and index of a position given as a list of pieces.
+     *
+     * @param codes the piece codes
+     * @param squares the square of each piece (row * 8 + col)
+     * @param count the number of pieces
+     * @param blackToMove true if black is to move
+     * @return the location, or null if the pieces do not form a valid signature
+     */
+    static Location locate(int[] codes, int[] squares, int count, boolean blackToMove) {
+        StringBuilder white = new StringBuilder();
+        StringBuilder black = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            char letter = TYPE_LETTERS.charAt(codes[i] & BoardSnapshot.TYPE_MASK);
+            ((codes[i] & BoardSnapshot.BLACK) != 0 ? black : white).append(letter);
+        }
+        String whiteSide = sortSide(white.toString());
+        String blackSide = sortSide(black.toString());
+        if (!whiteSide.startsWith("K") || !blackSide.startsWith("K")
+                || whiteSide.indexOf('K', 1) >= 0 || blackSide.indexOf('K', 1) >= 0) {
+            return null;
+        }
+        boolean flip = compareSides(whiteSide, blackSide) < 0;
+        String signature = flip ? blackSide + whiteSide : whiteSide + blackSide;
+        int[] slots = slotCodes(signature);
+        int[] slotSquares = new int[count];
+        boolean[] used = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            int code = flip ? codes[i] ^ BoardSnapshot.BLACK : codes[i];
+            int square = flip ? squares[i] ^ 56 : squares[i];
+            for (int slot = 0; slot < count; slot++) {
+                if (!used[slot] && slots[slot] == code) {
+                    used[slot] = true;
+                    slotSquares[slot] = square;
+                    break;
+                }
+            }
+        }
+        int index = (blackToMove != flip) ? 1 : 0;
+        for (int slot = 0; slot < count; slot++) {
+            index = index * 64 + slotSquares[slot];
+        }
+        return new Location(signature, index);
+    }
+
+    private static String sortSide(String side) {
+        char[] letters = side.toCharArray();
+        for (int i = 1; i < letters.length; i++) {
+            char letter = letters[i];
+            int j = i - 1;
+            while (j >= 0 && PIECE_ORDER.indexOf(letters[j]) > PIECE_ORDER.indexOf(letter)) {
+                letters[j + 1] = letters[j];
+                j--;
+            }
+            letters[j + 1] = letter;
+        }
+        return new String(letters);
+    }
+
+    private static int compareSides(String a, String b) {
+        int difference = material(a) - material(b);
+        if (difference != 0) return difference;
+        if (a.length() != b.length()) return a.length() - b.length();
+        // Earlier letters in PIECE_ORDER are stronger
+        for (int i = 0; i < a.length(); i++) {
+            int order = PIECE_ORDER.indexOf(b.charAt(i)) - PIECE_ORDER.indexOf(a.charAt(i));
+            if (order != 0) return order;
+        }
+        return 0;
+    }
+
+    private static int material(String side) {
+        int total = 0;
+        for (char c : side.toCharArray()) {
+            switch (c) {
+                case 'Q': total += 9; break;
+                case 'R': total += 5; break;
+                case 'B':
+                case 'N': total += 3; break;
+                case 'P': total += 1; break;
+                default: break;
+            }
+        }
+        return total;
+    }
+}
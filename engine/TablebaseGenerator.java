@@ -0,0 +1,599 @@
+package engine;
+
+import board.BoardSnapshot;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Generates endgame tablebases with up to four pieces by retrograde analysis.
+ * Tables store the exact distance to mate for every position of one material
+ * combination and are written in the format read by Tablebase.
+ *
+ * Generation starts from checkmates and from moves that leave the table (captures
+ * and promotions, resolved through smaller tables generated on demand). It then
+ * works backwards one ply at a time with un-moves: a position is won once any
+ * move reaches a lost position, and lost once every move reaches a won one.
+ * Castling and en passant are not modelled, so tables with pawns on both sides
+ * are rejected.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class TablebaseGenerator {
+    private static final byte UNKNOWN = 0;
+    private static final byte FINAL = 1;
+    private static final byte ILLEGAL = 2;
+    private static final byte NO_EXTERNAL = Byte.MIN_VALUE;
+    private static final int MAX_PLIES = 126;
+
+    private static final int[][] KING_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+    private static final int[][] KNIGHT_STEPS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+    private static final int[][] ROOK_STEPS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_STEPS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final int[] PROMOTIONS = {BoardSnapshot.QUEEN, BoardSnapshot.ROOK, BoardSnapshot.BISHOP, BoardSnapshot.KNIGHT};
+
+    private final Path directory;
+    private final Map<String, byte[]> tables = new HashMap<>();
+
+    /**
+     * Constructs a generator that reads and writes tables in a directory.
+     *
+     * @param directory the tablebase directory
+     */
+    public TablebaseGenerator(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the values of a table, loading it from disk or generating it (and any
+     * smaller tables it depends on) if it does not exist yet.
+     *
+     * @param signature the material signature, e.g. "KQK" or "KRKN"
+     * @return one value per position index
+     * @throws IOException if a table cannot be read or written
+     * @throws IllegalArgumentException if the signature is not supported
+     */
+    public byte[] generate(String signature) throws IOException {
+        String canonical = Tablebase.canonical(signature.toUpperCase());
+        byte[] values = tables.get(canonical);
+        if (values != null) {
+            return values;
+        }
+        int pieces = canonical.length();
+        if (pieces < 3 || pieces > Tablebase.MAX_PIECES) {
+            throw new IllegalArgumentException("Tables need 3 to " + Tablebase.MAX_PIECES + " pieces: " + signature);
+        }
+        int blackStart = canonical.indexOf('K', 1);
+        if (canonical.substring(0, blackStart).contains("P") && canonical.substring(blackStart).contains("P")) {
+            throw new IllegalArgumentException("Pawns on both sides need en passant, which is not modelled: " + signature);
+        }
+
+        Path path = directory.resolve(canonical + Tablebase.FILE_EXTENSION);
+        if (Files.isRegularFile(path)) {
+            byte[] file = Files.readAllBytes(path);
+            values = new byte[Tablebase.tableSize(pieces)];
+            System.arraycopy(file, Tablebase.headerSize(canonical), values, 0, values.length);
+        } else {
+            long start = System.nanoTime();
+            values = new Generation(canonical).run();
+            write(path, canonical, values);
+            System.out.printf("Generated %s in %.1f s%n", canonical, (System.nanoTime() - start) / 1e9);
+        }
+        tables.put(canonical, values);
+        return values;
+    }
+
+    private static void write(Path path, String signature, byte[] values) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeByte(signature.length());
+            out.writeBytes(signature);
+            out.write(values);
+        }
+    }
+
+    /**
+     * Looks up a position that has left the current table through a capture or promotion.
+     */
+    private int lookup(int[] codes, int[] squares, int count, boolean blackToMove) throws IOException {
+        if (count == 2) {
+            return 0;
+        }
+        Tablebase.Location location = Tablebase.locate(codes, squares, count, blackToMove);
+        return generate(location.signature)[location.index];
+    }
+
+    /**
+     * State for generating a single table.
+     */
+    private final class Generation {
+        private final int pieces;
+        private final int[] slots;
+        private final byte[] values;
+        private final byte[] status;
+        private final byte[] remaining;
+        private final byte[] external;
+
+        // Scratch arrays for the position being examined
+        private final int[] squares;
+        private final int[] childCodes;
+        private final int[] childSquares;
+
+        Generation(String signature) {
+            pieces = signature.length();
+            slots = Tablebase.slotCodes(signature);
+            int size = Tablebase.tableSize(pieces);
+            values = new byte[size];
+            status = new byte[size];
+            remaining = new byte[size];
+            external = new byte[size];
+            squares = new int[pieces];
+            childCodes = new int[pieces];
+            childSquares = new int[pieces];
+        }
+
+        byte[] run() throws IOException {
+            int maxExternalPlies = initialize();
+            for (int level = 1; level <= MAX_PLIES; level++) {
+                boolean changed = propagate(level);
+                changed |= resolveExternal(level);
+                if (!changed && level > maxExternalPlies) {
+                    break;
+                }
+            }
+            // Whatever is still unresolved can never be forced either way
+            for (int index = 0; index < values.length; index++) {
+                if (status[index] != FINAL) {
+                    values[index] = 0;
+                }
+            }
+            return values;
+        }
+
+        /**
+         * Marks illegal positions, scores mates and stalemates, counts the moves that
+         * stay inside the table and records the best result among moves that leave it.
+         *
+         * @return the longest distance to mate found among moves leaving the table
+         */
+        private int initialize() throws IOException {
+            int maxExternalPlies = 0;
+            for (int index = 0; index < values.length; index++) {
+                boolean blackToMove = decode(index);
+                if (!isLegal(blackToMove)) {
+                    status[index] = ILLEGAL;
+                    continue;
+                }
+                int best = NO_EXTERNAL;
+                int quietMoves = 0;
+                boolean anyMove = false;
+                int side = blackToMove ? BoardSnapshot.BLACK : 0;
+                for (int slot = 0; slot < pieces; slot++) {
+                    if ((slots[slot] & BoardSnapshot.BLACK) != side) continue;
+                    for (int target : targets(slot, blackToMove)) {
+                        int[] outcome = playMove(slot, target, blackToMove);
+                        if (outcome == null) continue;
+                        anyMove = true;
+                        if (outcome[0] < 0) {
+                            quietMoves++;
+                        } else {
+                            best = better(best, outcome[1]);
+                        }
+                    }
+                }
+                if (!anyMove) {
+                    status[index] = FINAL;
+                    values[index] = (byte) (inCheck(blackToMove, squares, slots, pieces) ? -1 : 0);
+                    continue;
+                }
+                remaining[index] = (byte) quietMoves;
+                external[index] = (byte) best;
+                if (best != NO_EXTERNAL) {
+                    maxExternalPlies = Math.max(maxExternalPlies, Tablebase.plies(best));
+                }
+            }
+            return maxExternalPlies;
+        }
+
+        /**
+         * Walks back from every position resolved at the previous level.
+         */
+        private boolean propagate(int level) {
+            boolean changed = false;
+            int[] predecessor = new int[1];
+            for (int index = 0; index < values.length; index++) {
+                if (status[index] != FINAL || values[index] == 0 || Tablebase.plies(values[index]) != level - 1) {
+                    continue;
+                }
+                boolean childLost = values[index] < 0;
+                boolean blackToMove = decode(index);
+                // The side that just moved is the one not to move in the child
+                int mover = blackToMove ? 0 : BoardSnapshot.BLACK;
+                for (int slot = 0; slot < pieces; slot++) {
+                    if ((slots[slot] & BoardSnapshot.BLACK) != mover) continue;
+                    int from = squares[slot];
+                    for (int origin : unmoveOrigins(slot)) {
+                        squares[slot] = origin;
+                        predecessor[0] = encode(!blackToMove);
+                        squares[slot] = from;
+                        int p = predecessor[0];
+                        if (status[p] != UNKNOWN) continue;
+                        if (childLost) {
+                            values[p] = (byte) level;
+                            status[p] = FINAL;
+                            changed = true;
+                        } else if (--remaining[p] == 0) {
+                            int ext = external[p];
+                            if (ext == NO_EXTERNAL || (ext < 0 && Tablebase.plies(ext) <= level)) {
+                                values[p] = (byte) (-level - 1);
+                                status[p] = FINAL;
+                                changed = true;
+                            }
+                        }
+                    }
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * Resolves positions whose result at this level comes from moves leaving the table.
+         */
+        private boolean resolveExternal(int level) {
+            boolean changed = false;
+            for (int index = 0; index < values.length; index++) {
+                if (status[index] != UNKNOWN) continue;
+                int ext = external[index];
+                if (ext == NO_EXTERNAL || ext == 0 || Tablebase.plies(ext) != level) continue;
+                if (ext > 0 || remaining[index] == 0) {
+                    values[index] = (byte) ext;
+                    status[index] = FINAL;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * Plays a move from the current position.
+         *
+         * @return null if illegal; {-1, 0} for a move that stays in the table;
+         *         {1, value} with the mover's result for a move that leaves it
+         */
+        private int[] playMove(int slot, int target, boolean blackToMove) throws IOException {
+            int captured = -1;
+            for (int other = 0; other < pieces; other++) {
+                if (other != slot && squares[other] == target) {
+                    captured = other;
+                }
+            }
+            int type = slots[slot] & BoardSnapshot.TYPE_MASK;
+            int targetRow = target / 8;
+            boolean promotion = type == BoardSnapshot.PAWN && (targetRow == 0 || targetRow == 7);
+            if (captured < 0 && !promotion) {
+                int from = squares[slot];
+                squares[slot] = target;
+                boolean legal = !inCheck(blackToMove, squares, slots, pieces);
+                squares[slot] = from;
+                return legal ? new int[] {-1, 0} : null;
+            }
+
+            int count = 0;
+            for (int other = 0; other < pieces; other++) {
+                if (other == captured) continue;
+                childCodes[count] = slots[other];
+                childSquares[count] = other == slot ? target : squares[other];
+                count++;
+            }
+            if (!promotion) {
+                if (inCheck(blackToMove, childSquares, childCodes, count)) return null;
+                return new int[] {1, fromChild(lookup(childCodes, childSquares, count, !blackToMove))};
+            }
+            int moverIndex = slot > captured && captured >= 0 ? slot - 1 : slot;
+            int best = NO_EXTERNAL;
+            for (int promoted : PROMOTIONS) {
+                childCodes[moverIndex] = promoted | (slots[slot] & BoardSnapshot.BLACK);
+                if (inCheck(blackToMove, childSquares, childCodes, count)) return null;
+                best = better(best, fromChild(lookup(childCodes, childSquares, count, !blackToMove)));
+            }
+            return new int[] {1, best};
+        }
+
+        /**
+         * Gets the target squares of a piece, ignoring whether its own king ends up in check.
+         */
+        private int[] targets(int slot, boolean blackToMove) {
+            int code = slots[slot];
+            int from = squares[slot];
+            int row = from / 8;
+            int col = from % 8;
+            int[] result = new int[28];
+            int count = 0;
+            switch (code & BoardSnapshot.TYPE_MASK) {
+                case BoardSnapshot.PAWN: {
+                    int direction = blackToMove ? 1 : -1;
+                    int next = row + direction;
+                    if (next >= 0 && next < 8) {
+                        if (occupant(next * 8 + col) < 0) {
+                            result[count++] = next * 8 + col;
+                            int startRow = blackToMove ? 1 : 6;
+                            int two = next + direction;
+                            if (row == startRow && occupant(two * 8 + col) < 0) {
+                                result[count++] = two * 8 + col;
+                            }
+                        }
+                        for (int dc = -1; dc <= 1; dc += 2) {
+                            int c = col + dc;
+                            if (c < 0 || c >= 8) continue;
+                            int victim = occupant(next * 8 + c);
+                            if (victim >= 0 && isEnemyNonKing(victim, code)) {
+                                result[count++] = next * 8 + c;
+                            }
+                        }
+                    }
+                    break;
+                }
+                case BoardSnapshot.KNIGHT:
+                    count = steps(KNIGHT_STEPS, false, code, row, col, result, count);
+                    break;
+                case BoardSnapshot.BISHOP:
+                    count = steps(BISHOP_STEPS, true, code, row, col, result, count);
+                    break;
+                case BoardSnapshot.ROOK:
+                    count = steps(ROOK_STEPS, true, code, row, col, result, count);
+                    break;
+                case BoardSnapshot.QUEEN:
+                    count = steps(ROOK_STEPS, true, code, row, col, result, count);
+                    count = steps(BISHOP_STEPS, true, code, row, col, result, count);
+                    break;
+                default:
+                    count = steps(KING_STEPS, false, code, row, col, result, count);
+                    break;
+            }
+            int[] trimmed = new int[count];
+            System.arraycopy(result, 0, trimmed, 0, count);
+            return trimmed;
+        }
+
+        private int steps(int[][] directions, boolean slide, int code, int row, int col, int[] result, int count) {
+            for (int[] dir : directions) {
+                int r = row + dir[0];
+                int c = col + dir[1];
+                while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                    int victim = occupant(r * 8 + c);
+                    if (victim < 0) {
+                        result[count++] = r * 8 + c;
+                    } else {
+                        if (isEnemyNonKing(victim, code)) {
+                            result[count++] = r * 8 + c;
+                        }
+                        break;
+                    }
+                    if (!slide) break;
+                    r += dir[0];
+                    c += dir[1];
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Gets the squares a piece could have come from with a quiet move.
+         */
+        private int[] unmoveOrigins(int slot) {
+            int code = slots[slot];
+            int from = squares[slot];
+            int row = from / 8;
+            int col = from % 8;
+            int[] result = new int[28];
+            int count = 0;
+            switch (code & BoardSnapshot.TYPE_MASK) {
+                case BoardSnapshot.PAWN: {
+                    boolean black = (code & BoardSnapshot.BLACK) != 0;
+                    int back = black ? -1 : 1;
+                    int previous = row + back;
+                    int startRow = black ? 1 : 6;
+                    // A pawn never stands on its own back rank, so it cannot have come from there
+                    if (previous >= 0 && previous < 8 && previous != (black ? 0 : 7)
+                            && occupant(previous * 8 + col) < 0) {
+                        result[count++] = previous * 8 + col;
+                        if (previous + back == startRow && occupant(startRow * 8 + col) < 0) {
+                            result[count++] = startRow * 8 + col;
+                        }
+                    }
+                    break;
+                }
+                case BoardSnapshot.KNIGHT:
+                    count = emptySteps(KNIGHT_STEPS, false, row, col, result, count);
+                    break;
+                case BoardSnapshot.BISHOP:
+                    count = emptySteps(BISHOP_STEPS, true, row, col, result, count);
+                    break;
+                case BoardSnapshot.ROOK:
+                    count = emptySteps(ROOK_STEPS, true, row, col, result, count);
+                    break;
+                case BoardSnapshot.QUEEN:
+                    count = emptySteps(ROOK_STEPS, true, row, col, result, count);
+                    count = emptySteps(BISHOP_STEPS, true, row, col, result, count);
+                    break;
+                default:
+                    count = emptySteps(KING_STEPS, false, row, col, result, count);
+                    break;
+            }
+            int[] trimmed = new int[count];
+            System.arraycopy(result, 0, trimmed, 0, count);
+            return trimmed;
+        }
+
+        private int emptySteps(int[][] directions, boolean slide, int row, int col, int[] result, int count) {
+            for (int[] dir : directions) {
+                int r = row + dir[0];
+                int c = col + dir[1];
+                while (r >= 0 && r < 8 && c >= 0 && c < 8 && occupant(r * 8 + c) < 0) {
+                    result[count++] = r * 8 + c;
+                    if (!slide) break;
+                    r += dir[0];
+                    c += dir[1];
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Checks the current position: squares distinct, no pawns on the first or
+         * last rank, and the side that just moved not left in check.
+         */
+        private boolean isLegal(boolean blackToMove) {
+            for (int i = 0; i < pieces; i++) {
+                for (int j = i + 1; j < pieces; j++) {
+                    if (squares[i] == squares[j]) return false;
+                }
+                if ((slots[i] & BoardSnapshot.TYPE_MASK) == BoardSnapshot.PAWN) {
+                    int row = squares[i] / 8;
+                    if (row == 0 || row == 7) return false;
+                }
+            }
+            return !inCheck(!blackToMove, squares, slots, pieces);
+        }
+
+        private boolean decode(int index) {
+            int rest = index;
+            for (int slot = pieces - 1; slot >= 0; slot--) {
+                squares[slot] = rest & 63;
+                rest >>>= 6;
+            }
+            return rest == 1;
+        }
+
+        private int encode(boolean blackToMove) {
+            int index = blackToMove ? 1 : 0;
+            for (int slot = 0; slot < pieces; slot++) {
+                index = index * 64 + squares[slot];
+            }
+            return index;
+        }
+
+        private int occupant(int square) {
+            for (int slot = 0; slot < pieces; slot++) {
+                if (squares[slot] == square) return slot;
+            }
+            return -1;
+        }
+
+        private boolean isEnemyNonKing(int victim, int code) {
+            int victimCode = slots[victim];
+            return (victimCode & BoardSnapshot.BLACK) != (code & BoardSnapshot.BLACK)
+                && (victimCode & BoardSnapshot.TYPE_MASK) != BoardSnapshot.KING;
+        }
+    }
+
+    /**
+     * Checks whether the king of one side is attacked in a list of pieces.
+     *
+     * @param black true to test the black king, false for the white king
+     */
+    private static boolean inCheck(boolean black, int[] squares, int[] codes, int count) {
+        int side = black ? BoardSnapshot.BLACK : 0;
+        int king = -1;
+        long occupied = 0;
+        for (int i = 0; i < count; i++) {
+            occupied |= 1L << squares[i];
+            if (codes[i] == (BoardSnapshot.KING | side)) king = squares[i];
+        }
+        if (king < 0) return false;
+        int kingRow = king / 8;
+        int kingCol = king % 8;
+        for (int i = 0; i < count; i++) {
+            if ((codes[i] & BoardSnapshot.BLACK) == side) continue;
+            int row = squares[i] / 8;
+            int col = squares[i] % 8;
+            int dr = kingRow - row;
+            int dc = kingCol - col;
+            switch (codes[i] & BoardSnapshot.TYPE_MASK) {
+                case BoardSnapshot.PAWN:
+                    // A white pawn attacks towards row 0, a black pawn towards row 7
+                    if (Math.abs(dc) == 1 && dr == (side == 0 ? 1 : -1)) return true;
+                    break;
+                case BoardSnapshot.KNIGHT:
+                    if (Math.abs(dr * dc) == 2) return true;
+                    break;
+                case BoardSnapshot.KING:
+                    if (Math.max(Math.abs(dr), Math.abs(dc)) == 1) return true;
+                    break;
+                case BoardSnapshot.BISHOP:
+                    if (Math.abs(dr) == Math.abs(dc) && clearPath(row, col, dr, dc, occupied)) return true;
+                    break;
+                case BoardSnapshot.ROOK:
+                    if ((dr == 0 || dc == 0) && clearPath(row, col, dr, dc, occupied)) return true;
+                    break;
+                default:
+                    if ((dr == 0 || dc == 0 || Math.abs(dr) == Math.abs(dc))
+                            && clearPath(row, col, dr, dc, occupied)) return true;
+                    break;
+            }
+        }
+        return false;
+    }
+
+    private static boolean clearPath(int row, int col, int dr, int dc, long occupied) {
+        int length = Math.max(Math.abs(dr), Math.abs(dc));
+        int stepRow = Integer.signum(dr);
+        int stepCol = Integer.signum(dc);
+        for (int i = 1; i < length; i++) {
+            if ((occupied & 1L << ((row + stepRow * i) * 8 + col + stepCol * i)) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Converts a child's value (for the side to move in the child) into the mover's result.
+     */
+    private static int fromChild(int childValue) {
+        if (childValue == 0) return 0;
+        int plies = Tablebase.plies(childValue) + 1;
+        return childValue < 0 ? plies : -plies - 1;
+    }
+
+    /**
+     * Picks the better of two results for the side to move.
+     */
+    private static int better(int a, int b) {
+        if (a == NO_EXTERNAL) return b;
+        if (b == NO_EXTERNAL) return a;
+        return rank(a) >= rank(b) ? a : b;
+    }
+
+    private static int rank(int value) {
+        if (value > 0) return 1000 - value;
+        if (value < 0) return -1000 + Tablebase.plies(value);
+        return 0;
+    }
+
+    /**
+     * Generates tables from the command line.
+     * Usage: java engine.TablebaseGenerator &lt;directory&gt; &lt;signature&gt;...
+     * for example: java engine.TablebaseGenerator tb KQK KRK KPK KQKR
+     *
+     * @param args command line arguments
+     * @throws IOException if a table cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java engine.TablebaseGenerator <directory> <signature>...");
+            return;
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(Paths.get(args[0]));
+        for (int i = 1; i < args.length; i++) {
+            generator.generate(args[i]);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package engine;
+
+/**
+ * Keeps one side's clock and decides how long each engine move may take. The
+ * budget is an even share of the remaining time over the moves expected to be
+ * left, plus most of the increment, never so much that the clock could run out.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class TimeManager {
+    /** Number of moves assumed to be left when the time control does not say. */
+    public static final int DEFAULT_MOVES_TO_GO = 30;
+    /** Time kept in reserve for overhead such as move generation and repainting. */
+    private static final long SAFETY_MILLIS = 50;
+    /** Shortest budget handed out, so that at least a shallow search completes. */
+    private static final long MIN_BUDGET_MILLIS = 10;
+
+    private final long incrementMillis;
+    private long remainingMillis;
+
+    /**
+     * Constructs a clock.
+     *
+     * @param initialMillis the starting time on the clock
+     * @param incrementMillis the time added after every move
+     */
+    public TimeManager(long initialMillis, long incrementMillis) {
+        this.remainingMillis = initialMillis;
+        this.incrementMillis = incrementMillis;
+    }
+
+    /**
+     * Computes the budget for a move.
+     *
+     * @param remainingMillis the time left on the clock
+     * @param incrementMillis the time added after the move
+     * @param movesToGo the moves until the next time control, or 0 if unknown
+     * @return the time the search may use, in milliseconds
+     */
+    public static long allocate(long remainingMillis, long incrementMillis, int movesToGo) {
+        int moves = movesToGo > 0 ? Math.min(movesToGo, DEFAULT_MOVES_TO_GO) : DEFAULT_MOVES_TO_GO;
+        long budget = remainingMillis / moves + incrementMillis * 3 / 4;
+        long ceiling = Math.max(0, remainingMillis - SAFETY_MILLIS);
+        // With one move to go, use most of the clock; otherwise never more than a third
+        if (moves > 1) {
+            ceiling = Math.min(ceiling, remainingMillis / 3 + incrementMillis);
+        }
+        return Math.max(MIN_BUDGET_MILLIS, Math.min(budget, ceiling));
+    }
+
+    /**
+     * Computes the budget for the next move on this clock.
+     *
+     * @return the time the search may use, in milliseconds
+     */
+    public long allocate() {
+        return allocate(remainingMillis, incrementMillis, 0);
+    }
+
+    /**
+     * Charges a move to this clock and adds the increment.
+     *
+     * @param elapsedMillis the time the move took
+     */
+    public void moveMade(long elapsedMillis) {
+        remainingMillis = remainingMillis - elapsedMillis + incrementMillis;
+    }
+
+    /**
+     * Gets the time left on the clock.
+     *
+     * @return the remaining time in milliseconds (negative if the flag fell)
+     */
+    public long getRemainingMillis() {
+        return remainingMillis;
+    }
+
+    /**
+     * Gets the time added after every move.
+     *
+     * @return the increment in milliseconds
+     */
+    public long getIncrementMillis() {
+        return incrementMillis;
+    }
+}
@@ -0,0 +1,399 @@
+package engine;
+
+import board.Board;
+import board.Fen;
+import board.Move;
+import board.MoveGenerator;
+import position.Position;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Universal Chess Interface front-end over standard input and output, so the engine
+ * can be driven by standard chess GUIs and tournament tools. Commands are read on
+ * the calling thread while searches run on a separate daemon thread, which streams
+ * an info line after every completed depth; "stop", "ponderhit" and "isready" are
+ * therefore answered even in the middle of a search.
+ * Supported: uci, isready, ucinewgame, position (startpos or fen, with moves),
+ * go (wtime, btime, winc, binc, movestogo, movetime, depth, infinite, ponder),
+ * stop, ponderhit and quit. The UCI_Chess960 option switches castling moves to
+ * the king-takes-rook notation Chess960 GUIs use; other options and debug mode
+ * are accepted and ignored.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class UciEngine {
+    /** Depth used when "go" gives no depth; the clock or "stop" ends the search first. */
+    private static final int MAX_DEPTH = 64;
+    /** Scores this close to MATE_SCORE are reported as mate distances. */
+    private static final int MATE_THRESHOLD = Searcher.MATE_SCORE - 1000;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final Searcher searcher = new Searcher();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "uci-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Board board = Fen.toBoard(Fen.START_POSITION);
+    private String color = "white";
+    /** Board the running search started from, for writing its moves. */
+    private volatile Board searchRoot = board;
+    private volatile boolean chess960;
+    private Future<?> search;
+    private SearchControl control;
+
+    /** Guards holdBestMove, which keeps an infinite or ponder search from answering early. */
+    private final Object lock = new Object();
+    private boolean holdBestMove;
+    private long ponderBudget;
+    private long ponderStart;
+
+    /**
+     * Constructs a UCI front-end.
+     *
+     * @param in the command input
+     * @param out the response output
+     */
+    public UciEngine(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+        searcher.setListener(this::sendInfo);
+    }
+
+    /**
+     * Reads and handles commands until "quit" or the end of input.
+     *
+     * @throws IOException if reading the input fails
+     */
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line.trim())) {
+                break;
+            }
+        }
+        stopSearch();
+        executor.shutdown();
+    }
+
+    /**
+     * Handles one command.
+     *
+     * @param line the command line
+     * @return false if the command was "quit"
+     */
+    boolean handle(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                send("id name CS3554 Chess");
+                send("id author Jacob Sierra and Robert Zamora");
+                send("option name UCI_Chess960 type check default false");
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "ucinewgame":
+                stopSearch();
+                board = Fen.toBoard(Fen.START_POSITION);
+                color = "white";
+                break;
+            case "position":
+                stopSearch();
+                setPosition(tokens);
+                break;
+            case "go":
+                stopSearch();
+                go(tokens);
+                break;
+            case "stop":
+                if (control != null) {
+                    control.stop();
+                }
+                release();
+                break;
+            case "ponderhit":
+                ponderHit();
+                break;
+            case "setoption":
+                setOption(line);
+                break;
+            case "quit":
+                return false;
+            default:
+                // debug, register and unknown commands are ignored
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Sets up the position on a local board and only replaces the current one if
+     * the FEN and every move are valid, so a bad command leaves the previous
+     * position in place for the next "go".
+     */
+    private void setPosition(String[] tokens) {
+        int movesAt = tokens.length;
+        for (int i = 1; i < tokens.length; i++) {
+            if (tokens[i].equals("moves")) {
+                movesAt = i;
+                break;
+            }
+        }
+        Board position;
+        String side;
+        try {
+            if (tokens.length > 1 && tokens[1].equals("fen")) {
+                String fen = String.join(" ", Arrays.copyOfRange(tokens, 2, movesAt));
+                position = Fen.toBoard(fen);
+                side = Fen.activeColor(fen);
+            } else {
+                position = Fen.toBoard(Fen.START_POSITION);
+                side = "white";
+            }
+        } catch (RuntimeException e) {
+            send("info string invalid position: " + e.getMessage());
+            return;
+        }
+        for (int i = movesAt + 1; i < tokens.length; i++) {
+            Move move;
+            try {
+                move = Move.fromUci(tokens[i]);
+            } catch (IllegalArgumentException e) {
+                send("info string " + e.getMessage());
+                return;
+            }
+            List<Move> legalMoves = MoveGenerator.legalMoves(position, side);
+            move = fromChess960(position, legalMoves, move);
+            if (!legalMoves.contains(move)) {
+                send("info string illegal move: " + tokens[i]);
+                return;
+            }
+            move.applyTo(position);
+            side = Searcher.opposite(side);
+        }
+        board = position;
+        color = side;
+    }
+
+    private void go(String[] tokens) {
+        long time = -1;
+        long increment = 0;
+        int movesToGo = 0;
+        long moveTime = -1;
+        int depth = MAX_DEPTH;
+        boolean infinite = false;
+        boolean ponder = false;
+        boolean white = color.equals("white");
+        for (int i = 1; i < tokens.length; i++) {
+            String name = tokens[i];
+            boolean hasValue = i + 1 < tokens.length;
+            try {
+                if (name.equals("infinite")) infinite = true;
+                else if (name.equals("ponder")) ponder = true;
+                else if (!hasValue) break;
+                else if (name.equals(white ? "wtime" : "btime")) time = Long.parseLong(tokens[++i]);
+                else if (name.equals(white ? "winc" : "binc")) increment = Long.parseLong(tokens[++i]);
+                else if (name.equals("movestogo")) movesToGo = Integer.parseInt(tokens[++i]);
+                else if (name.equals("movetime")) moveTime = Long.parseLong(tokens[++i]);
+                else if (name.equals("depth")) depth = Math.max(1, Integer.parseInt(tokens[++i]));
+            } catch (NumberFormatException e) {
+                send("info string bad value for " + name);
+            }
+        }
+
+        long budget = -1;
+        if (moveTime >= 0) {
+            budget = moveTime;
+        } else if (time >= 0) {
+            budget = TimeManager.allocate(time, increment, movesToGo);
+        }
+        SearchControl searchControl = new SearchControl();
+        if (budget >= 0 && !infinite && !ponder) {
+            searchControl.setTimeLimit(System.nanoTime(), budget);
+        }
+        synchronized (lock) {
+            holdBestMove = infinite || ponder;
+            ponderBudget = ponder && !infinite ? budget : -1;
+            ponderStart = System.nanoTime();
+        }
+
+        Board position = board.copy();
+        Board root = board.copy();
+        String side = color;
+        int maxDepth = depth;
+        control = searchControl;
+        searchRoot = root;
+        search = executor.submit(() -> {
+            searcher.resetNodes();
+            Move best = searcher.findBestMove(position, side, maxDepth, searchControl);
+            Move reply = searcher.getExpectedReply();
+            awaitRelease(searchControl);
+            send("bestmove " + (best == null ? "0000" : toUci(root, best))
+                + (best != null && reply != null ? " ponder " + toUci(after(root, best), reply) : ""));
+        });
+    }
+
+    /**
+     * Turns the running ponder search into a normal timed search; the time spent
+     * pondering counts toward the move.
+     */
+    private void ponderHit() {
+        synchronized (lock) {
+            if (control != null && ponderBudget >= 0) {
+                control.setTimeLimit(ponderStart, ponderBudget);
+            }
+            holdBestMove = false;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits, after an infinite or ponder search ends on its own, until "stop" or
+     * "ponderhit" allows the best move to be sent, as the protocol requires.
+     */
+    private void awaitRelease(SearchControl searchControl) {
+        synchronized (lock) {
+            while (holdBestMove && !searchControl.isStopped()) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void release() {
+        synchronized (lock) {
+            holdBestMove = false;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Stops the running search, if any, and waits until it has sent its best move.
+     */
+    private void stopSearch() {
+        if (search == null) {
+            return;
+        }
+        control.stop();
+        release();
+        try {
+            search.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            send("info string search failed: " + e.getCause());
+        }
+        search = null;
+        control = null;
+    }
+
+    private void sendInfo(int depth, int score, long nodes, long elapsedNanos, Move bestMove, Move expectedReply) {
+        StringBuilder sb = new StringBuilder("info depth ").append(depth).append(" score ");
+        if (Math.abs(score) >= MATE_THRESHOLD) {
+            int plies = Searcher.MATE_SCORE - Math.abs(score);
+            sb.append("mate ").append(score > 0 ? (plies + 1) / 2 : -(plies / 2));
+        } else {
+            sb.append("cp ").append(score);
+        }
+        long millis = elapsedNanos / 1_000_000;
+        sb.append(" nodes ").append(nodes)
+            .append(" nps ").append(elapsedNanos > 0 ? nodes * 1_000_000_000L / elapsedNanos : 0)
+            .append(" time ").append(millis)
+            .append(" pv ").append(toUci(searchRoot, bestMove));
+        if (expectedReply != null) {
+            sb.append(' ').append(toUci(after(searchRoot, bestMove), expectedReply));
+        }
+        send(sb.toString());
+    }
+
+    /**
+     * Handles "setoption name &lt;id&gt; [value &lt;x&gt;]"; only UCI_Chess960 is recognized.
+     */
+    private void setOption(String line) {
+        int name = line.indexOf(" name ");
+        if (name < 0) {
+            return;
+        }
+        int value = line.indexOf(" value ", name);
+        String id = (value < 0 ? line.substring(name + 6) : line.substring(name + 6, value)).trim();
+        if (id.equalsIgnoreCase("UCI_Chess960")) {
+            chess960 = value >= 0 && line.substring(value + 7).trim().equalsIgnoreCase("true");
+        }
+    }
+
+    /**
+     * Writes a move in UCI notation. In Chess960 mode castling is written as the
+     * king moving onto its rook even from the standard squares.
+     */
+    private String toUci(Board position, Move move) {
+        if (chess960 && move.getTo().col != move.getFrom().col
+                && MoveGenerator.isCastling(position, move.getFrom(), move.getTo())) {
+            String side = position.getPiece(move.getFrom()).getColor();
+            int rookCol = position.getCastlingRookColumn(side, move.getTo().col > move.getFrom().col);
+            return new Move(move.getFrom(), new Position(move.getFrom().row, rookCol)).toUci();
+        }
+        return move.toUci();
+    }
+
+    /**
+     * Reads a Chess960 castling move written as king-takes-rook from the standard
+     * squares, which the board writes as the king's two-square move.
+     */
+    private Move fromChess960(Board position, List<Move> legalMoves, Move move) {
+        if (!chess960) {
+            return move;
+        }
+        for (Move legal : legalMoves) {
+            if (legal.getFrom().equals(move.getFrom()) && !legal.equals(move)
+                    && MoveGenerator.isCastling(position, legal.getFrom(), legal.getTo())
+                    && toUci(position, legal).equals(move.toUci())) {
+                return legal;
+            }
+        }
+        return move;
+    }
+
+    private static Board after(Board position, Move move) {
+        Board next = position.copy();
+        move.applyTo(next);
+        return next;
+    }
+
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs the UCI front-end on standard input and output.
+     * Usage: java engine.UciEngine
+     *
+     * @param args command line arguments (unused)
+     * @throws IOException if reading standard input fails
+     */
+    public static void main(String[] args) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        new UciEngine(in, System.out).run();
+    }
+}
@@ -0,0 +1,313 @@
+package game;
+
+import board.Board;
+import board.Fen;
+import board.GameStatus;
+import players.MoveResult;
+import players.MoveSource;
+import players.Player;
+import utils.Metrics;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Replays recorded games non-interactively. Each file holds one move per line in
+ * the console format ("E2 E4", optionally followed by a promotion piece); blank
+ * lines and lines starting with '#' are ignored. Moves are streamed from the file
+ * and checked with the same rules as the interactive game, stopping at the first
+ * illegal move. Nothing is rendered, and several files are replayed in parallel.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class BatchReplay {
+    /**
+     * The outcome of replaying one file.
+     */
+    public static final class Result {
+        private final Path file;
+        private final int moves;
+        private final int illegalLine;
+        private final String illegalMove;
+        private final MoveResult illegalResult;
+        private final String finalFen;
+        private final GameStatus.State state;
+        private final String error;
+
+        Result(Path file, int moves, int illegalLine, String illegalMove, MoveResult illegalResult,
+               String finalFen, GameStatus.State state, String error) {
+            this.file = file;
+            this.moves = moves;
+            this.illegalLine = illegalLine;
+            this.illegalMove = illegalMove;
+            this.illegalResult = illegalResult;
+            this.finalFen = finalFen;
+            this.state = state;
+            this.error = error;
+        }
+
+        /**
+         * Gets the replayed file.
+         *
+         * @return the file path
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * Gets the number of moves played before the replay stopped.
+         *
+         * @return the number of legal moves applied
+         */
+        public int getMoves() {
+            return moves;
+        }
+
+        /**
+         * Checks whether every move in the file was legal and the file could be read.
+         *
+         * @return true if the replay completed
+         */
+        public boolean isClean() {
+            return illegalResult == null && error == null;
+        }
+
+        /**
+         * Gets the line number of the first illegal move.
+         *
+         * @return the line number (from 1), or 0 if every move was legal
+         */
+        public int getIllegalLine() {
+            return illegalLine;
+        }
+
+        /**
+         * Gets the text of the first illegal move.
+         *
+         * @return the move text, or null if every move was legal
+         */
+        public String getIllegalMove() {
+            return illegalMove;
+        }
+
+        /**
+         * Gets why the first illegal move was rejected.
+         *
+         * @return the rejection reason, or null if every move was legal
+         */
+        public MoveResult getIllegalResult() {
+            return illegalResult;
+        }
+
+        /**
+         * Gets the position reached, with the side to move.
+         *
+         * @return the final position in FEN
+         */
+        public String getFinalFen() {
+            return finalFen;
+        }
+
+        /**
+         * Gets whether the game continues or how it ended in the final position.
+         *
+         * @return the final game state
+         */
+        public GameStatus.State getState() {
+            return state;
+        }
+
+        /**
+         * Gets the read error that stopped the replay.
+         *
+         * @return the error message, or null if the file was read completely
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Returns a one-line report such as "game1.txt: 42 moves, CHECKMATE".
+         *
+         * @return the report
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(file).append(": ").append(moves).append(" moves, ").append(state);
+            if (illegalResult != null) {
+                sb.append(", illegal move \"").append(illegalMove).append("\" at line ").append(illegalLine)
+                    .append(" (").append(illegalResult).append(')');
+            }
+            if (error != null) {
+                sb.append(", read error: ").append(error);
+            }
+            sb.append(" [").append(finalFen).append(']');
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Replays one file.
+     *
+     * @param file the move file
+     * @return the outcome of the replay
+     */
+    public static Result replay(Path file) {
+        Board board = new Board();
+        Player white = new Player("white");
+        Player black = new Player("black");
+        Player current = white;
+        int moves = 0;
+        String error = null;
+        int illegalLine = 0;
+        String illegalMove = null;
+        MoveResult illegalResult = null;
+
+        try (LineNumberReader reader = new LineNumberReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            FileMoveSource source = new FileMoveSource(reader);
+            while (true) {
+                MoveResult result = current.makeMove(board, source);
+                if (result == MoveResult.END_OF_INPUT) break;
+                if (!result.isLegal()) {
+                    illegalLine = reader.getLineNumber();
+                    illegalMove = source.lastLine;
+                    illegalResult = result;
+                    break;
+                }
+                moves++;
+                current = current == white ? black : white;
+            }
+        } catch (IOException | UncheckedIOException e) {
+            error = e.getMessage();
+        }
+
+        String color = current.getColor();
+        return new Result(file, moves, illegalLine, illegalMove, illegalResult,
+            Fen.fromBoard(board, color), GameStatus.compute(board, color).getState(), error);
+    }
+
+    /**
+     * Replays several files in parallel.
+     *
+     * @param files the move files
+     * @param threads the number of worker threads
+     * @return the results, in the same order as the files
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public static List<Result> replayAll(List<Path> files, int threads) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Path file : files) {
+                futures.add(pool.submit(() -> replay(file)));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Replay failed", e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs a batch replay from the command line and prints one line per file plus totals.
+     * Usage: java game.Main --batch [--threads N] &lt;file|directory&gt;...
+     * Directories are expanded to the regular files they contain.
+     *
+     * @param args the arguments after "--batch"
+     * @return the number of files that did not replay cleanly
+     * @throws IOException if a directory cannot be listed
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public static int run(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                Path path = Paths.get(args[i]);
+                if (Files.isDirectory(path)) {
+                    try (Stream<Path> listing = Files.list(path)) {
+                        files.addAll(listing.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+                    }
+                } else {
+                    files.add(path);
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            System.out.println("Usage: java game.Main --batch [--threads N] <file|directory>...");
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        List<Result> results = replayAll(files, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long totalMoves = 0;
+        int failures = 0;
+        StringBuilder report = new StringBuilder();
+        for (Result result : results) {
+            totalMoves += result.getMoves();
+            if (!result.isClean()) failures++;
+            report.append(result).append('\n');
+        }
+        System.out.print(report);
+        System.out.printf("%d files, %d moves, %d with errors in %.2f s (%.0f moves/s on %d threads)%n",
+            results.size(), totalMoves, failures, seconds, totalMoves / seconds, threads);
+        Metrics.writeIfConfigured();
+        return failures;
+    }
+
+    /**
+     * Streams moves from a file, skipping blank lines and comments.
+     */
+    private static final class FileMoveSource implements MoveSource {
+        private final BufferedReader reader;
+        private String lastLine;
+
+        FileMoveSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public String nextMove(Board board, String color) {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        lastLine = line;
+                        return line;
+                    }
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
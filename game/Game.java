@@ -1,7 +1,14 @@
 package game;
 
 import board.Board;
+import board.ConsoleRenderer;
+import board.GameStatus;
+import players.ConsoleMoveSource;
+import players.MoveResult;
+import players.MoveSource;
 import players.Player;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Scanner;
 
 /**
@@ -17,22 +24,36 @@ public class Game {
     private final Player blackPlayer;
     private Player currentPlayer;
     private final Scanner scanner;
+    /** Reused for every turn, so each frame is built in the same buffer. */
+    private final ConsoleRenderer renderer = new ConsoleRenderer(System.out);
 
     /**
      * Constructs a new chess game with an initialized board and two players.
      * White player is set to move first.
      */
     public Game() {
+        this(null);
+    }
+
+    /**
+     * Constructs a game in which white is played at the console and black by
+     * another move source, such as an engine.
+     *
+     * @param blackSource the source of black's moves, or null to play black at the console too
+     */
+    public Game(MoveSource blackSource) {
         board = new Board();
-        whitePlayer = new Player("white");
-        blackPlayer = new Player("black");
-        currentPlayer = whitePlayer;
         scanner = new Scanner(System.in);
+        ConsoleMoveSource console = new ConsoleMoveSource(scanner, System.out);
+        whitePlayer = new Player("white", console);
+        blackPlayer = new Player("black", blackSource != null ? blackSource : console);
+        currentPlayer = whitePlayer;
     }
 
     /**
-     * Main game loop that runs until checkmate or stalemate is reached.
-     * Displays the board, checks for check/checkmate/stalemate conditions,
+     * Main game loop that runs until checkmate, stalemate or a draw by insufficient
+     * material, the fifty-move rule or threefold repetition.
+     * Displays the board, checks for check/checkmate/stalemate and draw conditions,
      * prompts the current player for a move, and switches turns.
      */
     public void play() {
@@ -40,7 +61,7 @@ public class Game {
         System.out.println("Enter moves in format: E2 E4\n");
 
         while (true) {
-            board.display();
+            display();
 
             // Check if current player is in check
             if (board.isInCheck(currentPlayer.getColor())) {
@@ -58,9 +79,19 @@ public class Game {
                 scanner.close();
                 return;
             }
+            GameStatus.State draw = GameStatus.drawState(board, currentPlayer.getColor());
+            if (draw != GameStatus.State.ONGOING) {
+                System.out.println(GameStatus.describe(draw, currentPlayer.getColor()));
+                scanner.close();
+                return;
+            }
 
-            boolean moved = currentPlayer.makeMove(board, scanner);
-            if (moved) {
+            MoveResult result = currentPlayer.makeMove(board);
+            if (result == MoveResult.END_OF_INPUT) {
+                scanner.close();
+                return;
+            }
+            if (result.isLegal()) {
                 switchTurn();
             }
         }
@@ -72,4 +103,15 @@ public class Game {
     private void switchTurn() {
         currentPlayer = (currentPlayer == whitePlayer) ? blackPlayer : whitePlayer;
     }
+
+    /**
+     * Draws the board with the game's renderer, reusing its frame buffer.
+     */
+    private void display() {
+        try {
+            renderer.draw(board);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -0,0 +1,214 @@
+package game;
+
+import board.ConsoleRenderer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts console chess games over TCP. Every connection gets its own game, played
+ * with the same text dialogue as the console version (e.g., "telnet localhost 5000").
+ * All connections are served by a single thread with an NIO selector, so an idle
+ * game costs only its board and a few small buffers rather than a thread or a JVM.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class GameServer implements Closeable {
+    /** Longest input line accepted before the connection is dropped. */
+    private static final int MAX_LINE_LENGTH = 256;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(4096);
+    private final ConsoleRenderer renderer = new ConsoleRenderer(new StringWriter());
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private volatile boolean running = true;
+
+    /**
+     * Per-connection state: the game plus partial input and unsent output.
+     */
+    private static final class Connection {
+        final GameSession session;
+        final StringBuilder line = new StringBuilder();
+        ByteBuffer pending;
+
+        Connection(GameSession session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * Opens a server socket on the given address. Use port 0 to pick a free port.
+     *
+     * @param address the address to listen on
+     * @throws IOException if the socket cannot be bound
+     */
+    public GameServer(InetSocketAddress address) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return the local port
+     * @throws IOException if the port cannot be determined
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Gets the number of connected clients.
+     *
+     * @return the number of open sessions
+     */
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Serves connections until {@link #close()} is called. Blocks the calling thread.
+     *
+     * @throws IOException if the selector fails
+     */
+    public void serve() throws IOException {
+        while (running) {
+            selector.select();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                try {
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        if (key.isReadable()) read(key);
+                        if (key.isValid() && key.isWritable()) write(key);
+                    }
+                } catch (IOException e) {
+                    // A failing client only ends its own session
+                    disconnect(key);
+                }
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() != null) disconnect(key);
+        }
+        serverChannel.close();
+        selector.close();
+    }
+
+    /**
+     * Stops the server. Open sessions are closed by the serving thread.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        Connection connection = new Connection(new GameSession(renderer));
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+        activeSessions.incrementAndGet();
+        connection.session.start();
+        write(key);
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        readBuffer.clear();
+        int count = ((SocketChannel) key.channel()).read(readBuffer);
+        if (count < 0) {
+            disconnect(key);
+            return;
+        }
+        readBuffer.flip();
+        while (readBuffer.hasRemaining()) {
+            char c = (char) (readBuffer.get() & 0xFF);
+            if (c == '\n') {
+                connection.session.handleLine(connection.line.toString());
+                connection.line.setLength(0);
+            } else if (c != '\r') {
+                if (connection.line.length() == MAX_LINE_LENGTH) {
+                    throw new IOException("Input line too long");
+                }
+                connection.line.append(c);
+            }
+        }
+        write(key);
+    }
+
+    /**
+     * Sends as much pending output as the socket accepts. While output is left over,
+     * the connection waits for OP_WRITE and stops reading, so a client that does not
+     * read cannot make the server buffer without limit.
+     */
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        StringBuilder output = connection.session.getOutput();
+        if (connection.pending == null && output.length() > 0) {
+            connection.pending = StandardCharsets.UTF_8.encode(CharBuffer.wrap(output));
+            output.setLength(0);
+        }
+        if (connection.pending != null) {
+            ((SocketChannel) key.channel()).write(connection.pending);
+            if (connection.pending.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+            connection.pending = null;
+        }
+        if (connection.session.isFinished()) {
+            disconnect(key);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void disconnect(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Already closed by the peer
+        }
+        if (key.attachment() != null) {
+            key.attach(null);
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Starts a game server from the command line.
+     * Usage: java game.GameServer [port]
+     *
+     * @param args command line arguments
+     * @throws IOException if the server cannot be started
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        GameServer server = new GameServer(new InetSocketAddress(port));
+        System.out.println("Chess server listening on port " + server.getPort());
+        server.serve();
+    }
+}
@@ -0,0 +1,159 @@
+package game;
+
+import board.Board;
+import board.ConsoleRenderer;
+import board.GameStatus;
+import board.Move;
+import board.MoveGenerator;
+import pieces.Piece;
+import players.MoveResult;
+import players.MoveValidator;
+import position.Position;
+
+/**
+ * One console game hosted by the GameServer. Plays the same dialogue as Game and
+ * Player (board, prompt, "E2 E4" input, promotion choice, check and end-of-game
+ * messages), but is driven one input line at a time and collects its replies in a
+ * buffer instead of reading System.in and printing to System.out. A session holds
+ * only its board, side to move and pending output, so many can share one thread.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+class GameSession {
+    private final Board board = new Board();
+    private final ConsoleRenderer renderer;
+    private final StringBuilder output = new StringBuilder();
+    private String currentColor = "white";
+    private Position promotionSquare;
+    private boolean finished;
+
+    /**
+     * Constructs a session with a new game and an empty output buffer.
+     *
+     * @param renderer the renderer used to build board frames; may be shared by
+     *                 all sessions handled on the same thread
+     */
+    GameSession(ConsoleRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Writes the welcome message, the board and the first prompt.
+     */
+    void start() {
+        output.append("Welcome to Chess!\n");
+        output.append("Enter moves in format: E2 E4 (QUIT to leave)\n\n");
+        showPosition();
+    }
+
+    /**
+     * Handles one line of input from the client.
+     *
+     * @param line the line without its terminator
+     */
+    void handleLine(String line) {
+        if (finished) return;
+        String input = line.trim().toUpperCase();
+        if (input.equals("QUIT")) {
+            output.append("Goodbye.\n");
+            finished = true;
+            return;
+        }
+        if (promotionSquare != null) {
+            promote(input);
+            switchTurn();
+            showPosition();
+            return;
+        }
+        if (makeMove(input)) {
+            if (promotionSquare != null) {
+                output.append("Pawn promotion! Choose piece (Q/R/B/N): \n");
+                return;
+            }
+            switchTurn();
+        }
+        showPosition();
+    }
+
+    /**
+     * Gets the output buffer. The server drains it after every call.
+     *
+     * @return the pending output
+     */
+    StringBuilder getOutput() {
+        return output;
+    }
+
+    /**
+     * Checks whether the game has ended or the client has quit.
+     *
+     * @return true once no more input will be accepted
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Draws the board, reports check, and either ends the game or prompts for a move.
+     */
+    private void showPosition() {
+        output.append(renderer.render(board));
+        if (board.isInCheck(currentColor)) {
+            output.append(currentColor).append(" is in check!\n");
+        }
+        if (!board.hasAnyLegalMoves(currentColor)) {
+            if (board.isInCheck(currentColor)) {
+                String winner = currentColor.equals("white") ? "Black" : "White";
+                output.append("Checkmate! ").append(winner).append(" wins!\n");
+            } else {
+                output.append("Stalemate! It's a draw.\n");
+            }
+            finished = true;
+            return;
+        }
+        GameStatus.State draw = GameStatus.drawState(board, currentColor);
+        if (draw != GameStatus.State.ONGOING) {
+            output.append(GameStatus.describe(draw, currentColor)).append('\n');
+            finished = true;
+            return;
+        }
+        output.append(Character.toUpperCase(currentColor.charAt(0)))
+            .append(currentColor.substring(1)).append(" to move: ");
+    }
+
+    /**
+     * Validates and plays a move with MoveValidator, using the same messages as Player.
+     */
+    private boolean makeMove(String input) {
+        Move move = MoveValidator.parse(input);
+        MoveResult result = move == null
+            ? MoveResult.INVALID_FORMAT
+            : MoveValidator.validate(board, currentColor, move);
+        if (!result.isLegal()) {
+            output.append(result.getMessage(move == null ? null : move.getFrom())).append('\n');
+            return false;
+        }
+        Piece piece = board.getPiece(move.getFrom());
+        if (MoveGenerator.isPromotion(piece, move.getTo()) && move.getPromotion() == ' ') {
+            board.movePiece(move.getFrom(), move.getTo());
+            promotionSquare = move.getTo();
+        } else {
+            move.applyTo(board);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the pawn awaiting promotion, defaulting to a queen.
+     */
+    private void promote(String choice) {
+        char piece = choice.length() == 1 ? choice.charAt(0) : 'Q';
+        board.setPiece(promotionSquare, Move.createPromotionPiece(piece, currentColor, promotionSquare));
+        promotionSquare = null;
+    }
+
+    private void switchTurn() {
+        currentColor = currentColor.equals("white") ? "black" : "white";
+    }
+}
@@ -1,19 +1,46 @@
 package game;
 
+import engine.BackgroundEngine;
+import engine.TimeManager;
+import players.ClockedEngineMoveSource;
+import java.util.Arrays;
+
 /**
  * Main entry point for the Console-based Chess Game.
- * This class initializes and starts a new chess game.
+ * This class initializes and starts a new chess game, or replays recorded
+ * move files when started with "--batch".
  *
  * @author Jacob Sierra and Robert Zamora
  * @version 1.0
  */
 public class Main {
+    /** Deepest iteration the console engine searches; the clock normally stops it sooner. */
+    private static final int ENGINE_MAX_DEPTH = 20;
+
     /**
      * Main method that creates and starts a chess game.
+     * With "--batch [--threads N] &lt;file|directory&gt;..." it replays move files
+     * instead and exits with status 1 if any file has an illegal move. With
+     * "--engine [minutes] [incrementSeconds]" the engine plays black on a clock
+     * (5 minutes plus 3 seconds a move by default).
      *
-     * @param args command line arguments (not used)
+     * @param args command line arguments
+     * @throws Exception if a batch replay cannot list its input or is interrupted
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            int failures = BatchReplay.run(Arrays.copyOfRange(args, 1, args.length));
+            System.exit(failures == 0 ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--engine")) {
+            double minutes = args.length > 1 ? Double.parseDouble(args[1]) : 5;
+            double increment = args.length > 2 ? Double.parseDouble(args[2]) : 3;
+            try (BackgroundEngine engine = new BackgroundEngine(ENGINE_MAX_DEPTH)) {
+                TimeManager clock = new TimeManager((long) (minutes * 60000), (long) (increment * 1000));
+                new Game(new ClockedEngineMoveSource(engine, clock)).play();
+            }
+            return;
+        }
         Game game = new Game();
         game.play();
     }
@@ -0,0 +1,228 @@
+package game;
+
+import board.Board;
+import board.Fen;
+import board.GameStatus;
+import board.Move;
+import engine.OpeningBook;
+import engine.Searcher;
+import engine.Tablebase;
+import utils.Metrics;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless engine-vs-engine match runner. Plays many games concurrently on a
+ * bounded thread pool, starting each game from an opening position read from a
+ * FEN file, and aggregates the results into MatchStatistics. Engine A plays white
+ * in even-numbered games and black in odd-numbered games.
+ * Games end on checkmate or stalemate using the Board's own rules, or are
+ * adjudicated as a draw after a maximum number of plies.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class MatchRunner {
+    private final List<String> openings;
+    private final int depthA;
+    private final int depthB;
+    private final int maxPlies;
+    private OpeningBook openingBook;
+    private Tablebase tablebase;
+
+    /**
+     * Constructs a match runner.
+     *
+     * @param openings the starting positions as FEN strings (at least one)
+     * @param depthA the search depth of engine A
+     * @param depthB the search depth of engine B
+     * @param maxPlies the number of plies after which a game is adjudicated a draw
+     */
+    public MatchRunner(List<String> openings, int depthA, int depthB, int maxPlies) {
+        if (openings.isEmpty()) {
+            throw new IllegalArgumentException("At least one opening position is required");
+        }
+        this.openings = openings;
+        this.depthA = depthA;
+        this.depthB = depthB;
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Sets an opening book shared by both engines.
+     *
+     * @param openingBook the book, or null to search from the first move
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Sets an endgame tablebase shared by both engines.
+     *
+     * @param tablebase the tablebase, or null to search endgames normally
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Plays a number of games on a fixed-size thread pool and waits for all of them.
+     *
+     * @param games the number of games to play
+     * @param threads the number of worker threads
+     * @return the aggregated statistics
+     * @throws InterruptedException if interrupted while waiting for the games
+     */
+    public MatchStatistics run(int games, int threads) throws InterruptedException {
+        MatchStatistics stats = new MatchStatistics();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < games; i++) {
+                final int gameIndex = i;
+                futures.add(pool.submit(() -> playGame(gameIndex, stats)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Game failed", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return stats;
+    }
+
+    /**
+     * Plays a single game to completion and records it.
+     *
+     * @param gameIndex the game number (selects the opening and the colors)
+     * @param stats the statistics to record the result in
+     */
+    void playGame(int gameIndex, MatchStatistics stats) {
+        String fen = openings.get(gameIndex % openings.size());
+        Board board = Fen.toBoard(fen);
+        String currentPlayer = Fen.activeColor(fen);
+        String engineAColor = gameIndex % 2 == 0 ? "white" : "black";
+        Searcher searcher = new Searcher();
+        searcher.setOpeningBook(openingBook);
+        searcher.setTablebase(tablebase);
+        long searchNanos = 0;
+        int plies = 0;
+        int score = 0;
+        boolean finished = false;
+
+        while (plies < maxPlies) {
+            // Check for checkmate, stalemate and draws
+            if (!board.hasAnyLegalMoves(currentPlayer)) {
+                if (board.isInCheck(currentPlayer)) {
+                    score = currentPlayer.equals(engineAColor) ? -1 : 1;
+                }
+                finished = true;
+                break;
+            }
+            if (GameStatus.drawState(board, currentPlayer) != GameStatus.State.ONGOING) {
+                finished = true;
+                break;
+            }
+
+            int depth = currentPlayer.equals(engineAColor) ? depthA : depthB;
+            long start = System.nanoTime();
+            Move move = searcher.findBestMove(board, currentPlayer, depth);
+            searchNanos += System.nanoTime() - start;
+
+            move.applyTo(board);
+            plies++;
+            currentPlayer = currentPlayer.equals("white") ? "black" : "white";
+        }
+
+        stats.record(score, plies, searcher.getNodes(), searchNanos);
+        if (!finished) {
+            stats.recordAdjudicated();
+        }
+    }
+
+    /**
+     * Reads opening positions from a file with one FEN per line.
+     * Blank lines and lines starting with '#' are ignored.
+     *
+     * @param path the file to read
+     * @return the list of FEN strings
+     * @throws IOException if the file cannot be read
+     */
+    public static List<String> readOpenings(String path) throws IOException {
+        List<String> openings = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                openings.add(line);
+            }
+        }
+        return openings;
+    }
+
+    /**
+     * Runs a match from the command line.
+     * Usage: java game.MatchRunner &lt;fen-file|-|960&gt; [games] [threads] [depthA] [depthB] [maxPlies] [book|-] [tablebase-dir]
+     * A FEN file of "-" plays every game from the standard starting position, and
+     * "960" cycles through the 960 Chess960 starting positions.
+     *
+     * @param args command line arguments
+     * @throws Exception if the openings cannot be read or a game fails
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: java game.MatchRunner <fen-file|-|960> [games] [threads] [depthA] [depthB] [maxPlies] [book|-] [tablebase-dir]");
+            return;
+        }
+        List<String> openings = new ArrayList<>();
+        if (args[0].equals("-")) {
+            openings.add(Fen.START_POSITION);
+        } else if (args[0].equals("960")) {
+            for (int number = 0; number < 960; number++) {
+                openings.add(Fen.chess960(number));
+            }
+        } else {
+            openings = readOpenings(args[0]);
+        }
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int depthA = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int depthB = args.length > 4 ? Integer.parseInt(args[4]) : depthA;
+        int maxPlies = args.length > 5 ? Integer.parseInt(args[5]) : 200;
+
+        MatchRunner runner = new MatchRunner(openings, depthA, depthB, maxPlies);
+        if (args.length > 6 && !args[6].equals("-")) {
+            runner.setOpeningBook(new OpeningBook(Paths.get(args[6])));
+        }
+        Tablebase tablebase = null;
+        if (args.length > 7) {
+            tablebase = new Tablebase(Paths.get(args[7]));
+            runner.setTablebase(tablebase);
+        }
+        long start = System.nanoTime();
+        MatchStatistics stats = runner.run(games, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (tablebase != null) {
+            for (Map.Entry<String, String> error : tablebase.getErrors().entrySet()) {
+                System.err.println("Tablebase " + error.getKey() + " not used: " + error.getValue());
+            }
+        }
+        System.out.println(stats);
+        System.out.printf("Wall time: %.1f s (%.2f games/s on %d threads)%n",
+            seconds, stats.getGames() / seconds, threads);
+        Metrics.writeIfConfigured();
+    }
+}
@@ -0,0 +1,126 @@
+package game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe aggregate of the results of many engine games. Results are
+ * counted from the point of view of engine A (the first engine of a match).
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class MatchStatistics {
+    private final AtomicLong wins = new AtomicLong();
+    private final AtomicLong draws = new AtomicLong();
+    private final AtomicLong losses = new AtomicLong();
+    private final AtomicLong moves = new AtomicLong();
+    private final AtomicLong nodes = new AtomicLong();
+    private final AtomicLong searchNanos = new AtomicLong();
+    private final AtomicLong adjudicated = new AtomicLong();
+
+    /**
+     * Records the outcome of one finished game.
+     *
+     * @param score 1 for a win by engine A, 0 for a draw, -1 for a loss
+     * @param gameMoves the number of moves (plies) played
+     * @param gameNodes the number of search nodes visited by both engines
+     * @param gameSearchNanos the total time spent searching, in nanoseconds
+     */
+    public void record(int score, long gameMoves, long gameNodes, long gameSearchNanos) {
+        if (score > 0) {
+            wins.incrementAndGet();
+        } else if (score < 0) {
+            losses.incrementAndGet();
+        } else {
+            draws.incrementAndGet();
+        }
+        moves.addAndGet(gameMoves);
+        nodes.addAndGet(gameNodes);
+        searchNanos.addAndGet(gameSearchNanos);
+    }
+
+    /**
+     * Records that a game already passed to {@link #record} was stopped at the ply
+     * limit and adjudicated a draw, rather than ending by the rules.
+     */
+    public void recordAdjudicated() {
+        adjudicated.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of games stopped at the ply limit.
+     *
+     * @return the adjudicated game count
+     */
+    public long getAdjudicated() {
+        return adjudicated.get();
+    }
+
+    /**
+     * Gets the number of games won by engine A.
+     *
+     * @return the win count
+     */
+    public long getWins() {
+        return wins.get();
+    }
+
+    /**
+     * Gets the number of drawn games.
+     *
+     * @return the draw count
+     */
+    public long getDraws() {
+        return draws.get();
+    }
+
+    /**
+     * Gets the number of games lost by engine A.
+     *
+     * @return the loss count
+     */
+    public long getLosses() {
+        return losses.get();
+    }
+
+    /**
+     * Gets the number of finished games.
+     *
+     * @return the game count
+     */
+    public long getGames() {
+        return wins.get() + draws.get() + losses.get();
+    }
+
+    /**
+     * Gets the search speed across all games.
+     *
+     * @return nodes searched per second of search time
+     */
+    public double getNodesPerSecond() {
+        long nanos = searchNanos.get();
+        return nanos == 0 ? 0 : nodes.get() * 1e9 / nanos;
+    }
+
+    /**
+     * Gets the average time taken to choose a move.
+     *
+     * @return the average move latency in milliseconds
+     */
+    public double getAverageMoveMillis() {
+        long count = moves.get();
+        return count == 0 ? 0 : searchNanos.get() / 1e6 / count;
+    }
+
+    /**
+     * Returns a one-line summary of the statistics.
+     *
+     * @return the summary text
+     */
+    @Override
+    public String toString() {
+        return String.format("Games: %d  W/D/L: %d/%d/%d  Adjudicated: %d  Moves: %d  NPS: %.0f  Avg move: %.2f ms",
+            getGames(), getWins(), getDraws(), getLosses(), getAdjudicated(), moves.get(),
+            getNodesPerSecond(), getAverageMoveMillis());
+    }
+}
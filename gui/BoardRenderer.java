@@ -0,0 +1,213 @@
+package gui;
+
+import board.Board;
+import pieces.*;
+import utils.Metrics;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws chess boards with Java2D, independently of any Swing component.
+ * The empty board (squares, borders and coordinate labels) and the twelve piece
+ * glyphs are rendered once when the renderer is created and then only copied, so
+ * painting a position is a handful of image blits. A renderer is immutable after
+ * construction and can be shared by several threads, each painting into its own
+ * image. Works with java.awt.headless=true.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 2.0
+ */
+public class BoardRenderer {
+    /** Color of the light squares. */
+    public static final Color LIGHT_SQUARE = new Color(240, 217, 181);
+    /** Color of the dark squares. */
+    public static final Color DARK_SQUARE = new Color(181, 136, 99);
+
+    private static final Font LABEL_FONT = new Font("Arial", Font.BOLD, 11);
+    private static final String[] SYMBOLS = {"♔", "♕", "♖", "♗", "♘", "♙", "♚", "♛", "♜", "♝", "♞", "♟"};
+
+    private final int squareSize;
+    private final Font pieceFont;
+    private final BufferedImage background;
+    private final Map<String, BufferedImage> pieceSprites = new HashMap<>();
+
+    /**
+     * Constructs a renderer and pre-renders the board and piece glyphs.
+     *
+     * @param squareSize the size of one square in pixels
+     */
+    public BoardRenderer(int squareSize) {
+        this.squareSize = squareSize;
+        this.pieceFont = new Font("Arial Unicode MS", Font.PLAIN, squareSize * 3 / 4);
+
+        background = new BufferedImage(squareSize * 8, squareSize * 8, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = background.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                drawSquare(g2d, row, col, (row + col) % 2 == 0 ? LIGHT_SQUARE : DARK_SQUARE);
+            }
+        }
+        g2d.dispose();
+
+        for (int i = 0; i < SYMBOLS.length; i++) {
+            pieceSprites.put(SYMBOLS[i], createSprite(SYMBOLS[i], i < 6 ? Color.WHITE : Color.BLACK));
+        }
+    }
+
+    /**
+     * Gets the size of one square in pixels.
+     *
+     * @return the square size
+     */
+    public int getSquareSize() {
+        return squareSize;
+    }
+
+    /**
+     * Gets the size of a whole board image in pixels.
+     *
+     * @return the width and height of the board
+     */
+    public int getBoardSize() {
+        return squareSize * 8;
+    }
+
+    /**
+     * Renders a board into a new image.
+     *
+     * @param board the board to draw
+     * @return a new image of the board
+     */
+    public BufferedImage render(Board board) {
+        BufferedImage image = new BufferedImage(getBoardSize(), getBoardSize(), BufferedImage.TYPE_INT_RGB);
+        render(board, image);
+        return image;
+    }
+
+    /**
+     * Renders a board into an existing image, overwriting its contents.
+     * Reusing one image per thread avoids allocating a buffer per diagram.
+     *
+     * @param board the board to draw
+     * @param image the target image (at least getBoardSize() pixels square)
+     */
+    public void render(Board board, BufferedImage image) {
+        long start = Metrics.start();
+        Graphics2D g2d = image.createGraphics();
+        try {
+            drawBackground(g2d);
+            Piece[][] grid = board.getGrid();
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    drawPiece(g2d, grid[row][col], col * squareSize, row * squareSize);
+                }
+            }
+        } finally {
+            g2d.dispose();
+            Metrics.record(Metrics.Phase.RENDER, start);
+        }
+    }
+
+    /**
+     * Draws the cached empty board.
+     *
+     * @param g2d the graphics context
+     */
+    public void drawBackground(Graphics2D g2d) {
+        g2d.drawImage(background, 0, 0, null);
+    }
+
+    /**
+     * Draws a single square with the given fill color, including its border
+     * and any coordinate label.
+     *
+     * @param g2d the graphics context
+     * @param row the row of the square
+     * @param col the column of the square
+     * @param squareColor the fill color
+     */
+    public void drawSquare(Graphics2D g2d, int row, int col, Color squareColor) {
+        g2d.setColor(squareColor);
+        g2d.fillRect(col * squareSize, row * squareSize, squareSize, squareSize);
+
+        // Draw border
+        g2d.setColor(Color.BLACK);
+        g2d.drawRect(col * squareSize, row * squareSize, squareSize, squareSize);
+
+        // Draw coordinate labels only on outer edges
+        g2d.setFont(LABEL_FONT);
+        Color labelColor = (row + col) % 2 == 0 ? DARK_SQUARE : LIGHT_SQUARE;
+        g2d.setColor(labelColor);
+
+        // File labels (A-H) only on bottom rank (row 7)
+        if (row == 7) {
+            char file = (char) ('A' + col);
+            g2d.drawString(String.valueOf(file),
+                col * squareSize + squareSize - 12,
+                row * squareSize + squareSize - 3);
+        }
+
+        // Rank labels (1-8) only on leftmost file (col 0)
+        if (col == 0) {
+            int rank = 8 - row;
+            g2d.drawString(String.valueOf(rank),
+                col * squareSize + 3,
+                row * squareSize + 13);
+        }
+    }
+
+    /**
+     * Draws a piece sprite with its top-left corner at the given point.
+     *
+     * @param g2d the graphics context
+     * @param piece the piece to draw, or null to draw nothing
+     * @param x the left edge of the square-sized sprite
+     * @param y the top edge of the square-sized sprite
+     */
+    public void drawPiece(Graphics2D g2d, Piece piece, int x, int y) {
+        if (piece == null) return;
+        g2d.drawImage(pieceSprites.get(getPieceSymbol(piece)), x, y, null);
+    }
+
+    /**
+     * Returns the Unicode symbol for a chess piece.
+     *
+     * @param piece the piece
+     * @return the chess glyph for the piece
+     */
+    public static String getPieceSymbol(Piece piece) {
+        boolean isWhite = piece.getColor().equals("white");
+
+        if (piece instanceof King) return isWhite ? "♔" : "♚";
+        if (piece instanceof Queen) return isWhite ? "♕" : "♛";
+        if (piece instanceof Rook) return isWhite ? "♖" : "♜";
+        if (piece instanceof Bishop) return isWhite ? "♗" : "♝";
+        if (piece instanceof Knight) return isWhite ? "♘" : "♞";
+        if (piece instanceof Pawn) return isWhite ? "♙" : "♟";
+
+        return "";
+    }
+
+    /**
+     * Renders one glyph into a transparent, square-sized sprite.
+     */
+    private BufferedImage createSprite(String symbol, Color color) {
+        BufferedImage sprite = new BufferedImage(squareSize, squareSize, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = sprite.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.setFont(pieceFont);
+        FontMetrics fm = g2d.getFontMetrics();
+
+        int x = (squareSize - fm.stringWidth(symbol)) / 2;
+        int y = (squareSize + fm.getAscent()) / 2 - squareSize / 16;
+
+        g2d.setColor(color);
+        g2d.drawString(symbol, x, y);
+        g2d.dispose();
+        return sprite;
+    }
+}
@@ -1,17 +1,33 @@
 package gui;
 
 import board.Board;
+import board.GameStatus;
+import board.Move;
+import board.MoveGenerator;
+import engine.BackgroundEngine;
+import engine.TimeManager;
 import pieces.*;
 import position.Position;
 import javax.swing.*;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.List;
 import java.io.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Main GUI class for the chess game using Swing.
  * Displays an 8x8 chessboard with pieces and handles user interaction.
+ * Game status (legal moves, check, the end of the game) is computed on a
+ * background thread from a copy of the board and published back to the event
+ * thread, so the window stays responsive; the board ignores input until the
+ * status of the new position arrives. Illegal moves and the game result are shown
+ * in the window's message bar rather than in modal dialogs, and closing the
+ * window disposes it without exiting the JVM, so the GUI can run inside a larger
+ * application.
  *
  * @author Jacob Sierra and Robert Zamora
  * @version 2.0
@@ -21,11 +37,35 @@ public class ChessGUI extends JFrame {
     private BoardPanel boardPanel;
     private String currentPlayer;
     private Position selectedPosition;
+    private GameStatus status;
     private static final int SQUARE_SIZE = 80;
-    private static final Color LIGHT_SQUARE = new Color(240, 217, 181);
-    private static final Color DARK_SQUARE = new Color(181, 136, 99);
     private static final Color SELECTED_COLOR = new Color(186, 202, 68);
     private static final Color VALID_MOVE_COLOR = new Color(186, 202, 68, 100);
+    private static final Color GAME_OVER_COLOR = new Color(0, 0, 0, 120);
+    private static final int ENGINE_MAX_DEPTH = 20;
+    private static final long ENGINE_TIME_MILLIS = 5 * 60 * 1000;
+    private static final long ENGINE_INCREMENT_MILLIS = 3000;
+
+    private BackgroundEngine engine;
+    private TimeManager engineClock;
+    private String engineColor;
+    private boolean engineThinking;
+    /** Incremented whenever a running engine search becomes stale (new game, load, engine off). */
+    private int engineGeneration;
+
+    /** Computes game status and move explanations off the event thread. */
+    private final ExecutorService statusExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gui-status");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Incremented whenever the position changes, so stale status results are dropped. */
+    private int positionGeneration;
+    /** True while the status of the current position is being computed. */
+    private boolean statusPending;
+    /** True while the promotion menu waits for a choice. */
+    private boolean promotionPending;
+    private final JLabel messageLabel = new JLabel(" ");
 
     /**
      * Constructs the chess GUI with initialized board and game state.
@@ -36,18 +76,35 @@ public class ChessGUI extends JFrame {
         selectedPosition = null;
 
         setTitle("Chess Game");
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         setResizable(false);
 
         // Create menu bar
         createMenuBar();
 
         boardPanel = new BoardPanel();
-        add(boardPanel);
+        add(boardPanel, BorderLayout.CENTER);
+        messageLabel.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+        add(messageLabel, BorderLayout.SOUTH);
 
         pack();
         setLocationRelativeTo(null);
         setVisible(true);
+        refreshStatus();
+    }
+
+    /**
+     * Closes the window and stops the engine and status threads. The JVM keeps
+     * running if the application has other work.
+     */
+    @Override
+    public void dispose() {
+        cancelEngineSearch();
+        if (engine != null) {
+            engine.close();
+        }
+        statusExecutor.shutdownNow();
+        super.dispose();
     }
 
     /**
@@ -88,10 +145,21 @@ public class ChessGUI extends JFrame {
         // Exit menu item
         JMenuItem exitItem = new JMenuItem("Exit");
         exitItem.setMnemonic(KeyEvent.VK_X);
-        exitItem.addActionListener(e -> System.exit(0));
+        exitItem.addActionListener(e -> dispose());
         fileMenu.add(exitItem);
 
         menuBar.add(fileMenu);
+
+        // Engine menu
+        JMenu engineMenu = new JMenu("Engine");
+        engineMenu.setMnemonic(KeyEvent.VK_E);
+
+        JCheckBoxMenuItem engineItem = new JCheckBoxMenuItem("Engine Plays Black");
+        engineItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_E, InputEvent.CTRL_DOWN_MASK));
+        engineItem.addActionListener(e -> setEngineColor(engineItem.isSelected() ? "black" : null));
+        engineMenu.add(engineItem);
+
+        menuBar.add(engineMenu);
         setJMenuBar(menuBar);
     }
 
@@ -107,11 +175,13 @@ public class ChessGUI extends JFrame {
         );
 
         if (confirm == JOptionPane.YES_OPTION) {
+            cancelEngineSearch();
             board = new Board();
             currentPlayer = "white";
             selectedPosition = null;
-            setTitle("Chess Game - White's turn");
+            promotionPending = false;
             boardPanel.repaint();
+            refreshStatus();
         }
     }
 
@@ -154,16 +224,17 @@ public class ChessGUI extends JFrame {
             File file = fileChooser.getSelectedFile();
             try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
                 GameState gameState = (GameState) ois.readObject();
+                cancelEngineSearch();
                 board = gameState.getBoard();
                 currentPlayer = gameState.getCurrentPlayer();
                 selectedPosition = null;
-                setTitle("Chess Game - " + currentPlayer.substring(0, 1).toUpperCase() +
-                         currentPlayer.substring(1) + "'s turn");
+                promotionPending = false;
                 boardPanel.repaint();
                 JOptionPane.showMessageDialog(this,
                     "Game loaded successfully!",
                     "Load Game",
                     JOptionPane.INFORMATION_MESSAGE);
+                refreshStatus();
             } catch (IOException | ClassNotFoundException ex) {
                 JOptionPane.showMessageDialog(this,
                     "Error loading game: " + ex.getMessage(),
@@ -173,12 +244,164 @@ public class ChessGUI extends JFrame {
         }
     }
 
+    /**
+     * Starts computing the game status of the current position on the status thread.
+     * Called once per position; everything else reads the cached status. Until the
+     * result arrives the board ignores input and the engine waits.
+     */
+    private void refreshStatus() {
+        int generation = ++positionGeneration;
+        statusPending = true;
+        updateTitle();
+        Board position = board.copy();
+        String color = currentPlayer;
+        CompletableFuture.supplyAsync(() -> GameStatus.compute(position, color), statusExecutor)
+            .whenComplete((computed, error) -> SwingUtilities.invokeLater(
+                () -> statusComputed(computed, error, generation)));
+    }
+
+    /**
+     * Installs a computed status on the event thread, ends the game in the window if
+     * it is over, and otherwise lets the engine move if it is its turn.
+     */
+    private void statusComputed(GameStatus computed, Throwable error, int generation) {
+        if (generation != positionGeneration) {
+            return;
+        }
+        if (error != null) {
+            // Leave the board locked: without a status no move can be validated
+            showMessage("Could not compute the game status: " + error.getMessage());
+            return;
+        }
+        status = computed;
+        statusPending = false;
+        updateTitle();
+        if (status.isGameOver()) {
+            showMessage("Game over: " + status.getResultMessage());
+        } else {
+            showMessage(status.isInCheck() ? "Check!" : " ");
+        }
+        boardPanel.repaint();
+        startEngineIfToMove();
+    }
+
+    /**
+     * Updates the title bar from the side to move, the cached status and the engine.
+     */
+    private void updateTitle() {
+        String title = "Chess Game - " + currentPlayer.substring(0, 1).toUpperCase() +
+                      currentPlayer.substring(1) + "'s turn";
+        if (status != null && !statusPending) {
+            if (status.isGameOver()) {
+                title = "Chess Game - Game Over";
+            } else if (status.isInCheck()) {
+                title += " (Check!)";
+            }
+        }
+        if (engineThinking) {
+            title += " - engine thinking";
+        }
+        setTitle(title);
+    }
+
+    /**
+     * Shows a message in the message bar below the board.
+     */
+    private void showMessage(String message) {
+        messageLabel.setText(message);
+    }
+
+    /**
+     * Checks whether the board should react to the mouse: not while a status is
+     * being computed, the engine is thinking, a promotion is being chosen, or after
+     * the game has ended.
+     */
+    private boolean acceptsInput() {
+        return !statusPending && !engineThinking && !promotionPending && status != null && !status.isGameOver();
+    }
+
+    /**
+     * Switches to the other player after a move and computes the new position's
+     * status in the background; the result ends the game or lets the engine move.
+     */
+    private void moveCompleted() {
+        currentPlayer = currentPlayer.equals("white") ? "black" : "white";
+        selectedPosition = null;
+        boardPanel.repaint();
+        refreshStatus();
+    }
+
+    /**
+     * Turns engine play on for one side, or off. The engine gets a fresh clock.
+     *
+     * @param color the side the engine plays, or null to turn the engine off
+     */
+    private void setEngineColor(String color) {
+        cancelEngineSearch();
+        engineColor = color;
+        if (color != null && engine == null) {
+            engine = new BackgroundEngine(ENGINE_MAX_DEPTH);
+        }
+        engineClock = new TimeManager(ENGINE_TIME_MILLIS, ENGINE_INCREMENT_MILLIS);
+        updateTitle();
+        startEngineIfToMove();
+    }
+
+    /**
+     * Starts an engine search if the engine plays the side to move. The search runs
+     * on the engine's thread with a copy of the board, so the event thread stays free;
+     * the move is applied back on the event thread.
+     */
+    private void startEngineIfToMove() {
+        if (engineColor == null || engineThinking || !currentPlayer.equals(engineColor)
+                || statusPending || status == null || status.isGameOver()) {
+            return;
+        }
+        engineThinking = true;
+        updateTitle();
+        int generation = engineGeneration;
+        long start = System.nanoTime();
+        engine.think(board, currentPlayer, engineClock.allocate())
+            .thenAccept(move -> SwingUtilities.invokeLater(() -> engineMoved(move, generation, start)));
+    }
+
+    /**
+     * Plays the engine's move, unless the game changed while it was searching,
+     * and ponders on the opponent's expected reply.
+     */
+    private void engineMoved(Move move, int generation, long start) {
+        if (generation != engineGeneration) {
+            return;
+        }
+        engineThinking = false;
+        engineClock.moveMade((System.nanoTime() - start) / 1_000_000);
+        if (move == null) {
+            updateTitle();
+            return;
+        }
+        move.applyTo(board);
+        moveCompleted();
+        engine.ponder(board, currentPlayer);
+    }
+
+    /**
+     * Stops any engine search or ponder search and discards its result.
+     */
+    private void cancelEngineSearch() {
+        engineGeneration++;
+        engineThinking = false;
+        if (engine != null) {
+            engine.stop();
+        }
+    }
+
     /**
      * Custom JPanel that renders the chess board and handles mouse events.
      */
     private class BoardPanel extends JPanel {
         private Position draggedFrom;
         private Point dragPoint;
+        private final BoardRenderer renderer = new BoardRenderer(SQUARE_SIZE);
 
         public BoardPanel() {
             setPreferredSize(new Dimension(SQUARE_SIZE * 8, SQUARE_SIZE * 8));
@@ -208,6 +431,7 @@ public class ChessGUI extends JFrame {
          * Handles mouse press events for piece selection and drag start.
          */
         private void handleMousePressed(MouseEvent e) {
+            if (!acceptsInput()) return;
             Position pos = getPositionFromPoint(e.getPoint());
             if (pos == null) return;
 
@@ -217,12 +441,20 @@ public class ChessGUI extends JFrame {
             if (piece != null && piece.getColor().equals(currentPlayer)) {
                 draggedFrom = pos;
                 dragPoint = e.getPoint();
+                repaint(squareBounds(pos));
+                repaint(dragBounds(dragPoint));
+                repaintTargets(pos);
             }
 
-            // Click to select
-            if (selectedPosition == null && piece != null && piece.getColor().equals(currentPlayer)) {
+            // Click to select (clicking another own piece switches the selection)
+            if (piece != null && piece.getColor().equals(currentPlayer)
+                    && (selectedPosition == null || !status.isLegalMove(selectedPosition, pos))) {
+                if (selectedPosition != null) {
+                    repaint();
+                }
                 selectedPosition = pos;
-                repaint();
+                repaint(squareBounds(pos));
+                repaintTargets(pos);
             } else if (selectedPosition != null) {
                 // Click to move
                 attemptMove(selectedPosition, pos);
@@ -237,6 +469,13 @@ public class ChessGUI extends JFrame {
         private void handleMouseReleased(MouseEvent e) {
             if (draggedFrom != null) {
                 Position draggedTo = getPositionFromPoint(e.getPoint());
+                if (draggedFrom.equals(draggedTo)) {
+                    // Released where it started: a plain click, so keep the selection
+                    draggedFrom = null;
+                    dragPoint = null;
+                    repaint();
+                    return;
+                }
                 if (draggedTo != null) {
                     attemptMove(draggedFrom, draggedTo);
                 }
@@ -252,8 +491,14 @@ public class ChessGUI extends JFrame {
          */
         private void handleMouseDragged(MouseEvent e) {
             if (draggedFrom != null) {
+                // Repaint only where the piece was and where it is now
+                if (dragPoint != null) {
+                    repaint(dragBounds(dragPoint));
+                } else {
+                    repaint(squareBounds(draggedFrom));
+                }
                 dragPoint = e.getPoint();
-                repaint();
+                repaint(dragBounds(dragPoint));
             }
         }
 
@@ -271,7 +516,9 @@ public class ChessGUI extends JFrame {
 
         /**
          * Attempts to move a piece from one position to another.
-         * Validates the move and updates game state.
+         * Validates the move against the cached game status and updates game state.
+         * Illegal moves are explained in the message bar once the explanation has
+         * been worked out in the background.
          */
         private void attemptMove(Position from, Position to) {
             Piece piece = board.getPiece(from);
@@ -279,118 +526,87 @@ public class ChessGUI extends JFrame {
                 return;
             }
 
-            // Get valid moves for the piece
-            List<Position> validMoves;
-            if (piece instanceof Pawn) {
-                validMoves = ((Pawn) piece).possibleMovesWithEnPassant(
-                    board.getGrid(), board.getEnPassantTarget());
-            } else {
-                validMoves = piece.possibleMoves(board.getGrid());
-            }
-
-            // Check if move is valid
-            if (!validMoves.contains(to)) {
-                JOptionPane.showMessageDialog(this, "Invalid move for that piece!");
+            if (!status.isLegalMove(from, to)) {
+                explainIllegalMove(from, to);
                 return;
             }
 
-            // Check if move would leave king in check
-            if (board.wouldMoveLeaveKingInCheck(from, to, currentPlayer)) {
-                JOptionPane.showMessageDialog(this, "That move would leave your king in check!");
+            if (MoveGenerator.isPromotion(piece, to)) {
+                choosePromotion(from, to);
                 return;
             }
+            new Move(from, to).applyTo(board);
+            moveCompleted();
+        }
 
-            // Check castling restrictions
-            if (piece instanceof King && Math.abs(to.col - from.col) == 2) {
-                // Can't castle if in check
-                if (board.isInCheck(currentPlayer)) {
-                    JOptionPane.showMessageDialog(this, "Cannot castle while in check!");
-                    return;
-                }
+        /**
+         * Works out on the status thread why a move is not in the legal move set
+         * and shows the reason, unless the position has changed in the meantime.
+         */
+        private void explainIllegalMove(Position from, Position to) {
+            int generation = positionGeneration;
+            Board position = board.copy();
+            String color = currentPlayer;
+            boolean inCheck = status.isInCheck();
+            CompletableFuture.supplyAsync(() -> illegalMoveReason(position, color, inCheck, from, to), statusExecutor)
+                .thenAccept(reason -> SwingUtilities.invokeLater(() -> {
+                    if (generation == positionGeneration) {
+                        showMessage(reason);
+                    }
+                }));
+        }
 
-                // Check intermediate square isn't under attack
-                int intermediateCol = (from.col + to.col) / 2;
-                Position intermediatePos = new Position(from.row, intermediateCol);
-                String opponentColor = currentPlayer.equals("white") ? "black" : "white";
-                if (board.isPositionUnderAttack(intermediatePos, opponentColor)) {
-                    JOptionPane.showMessageDialog(this, "Cannot castle through check!");
-                    return;
-                }
+        /**
+         * Offers the promotion choices in a menu at the target square. The move is
+         * made when a piece is chosen; closing the menu promotes to a queen.
+         */
+        private void choosePromotion(Position from, Position to) {
+            promotionPending = true;
+            JPopupMenu menu = new JPopupMenu("Promote pawn to");
+            String[] names = {"Queen", "Rook", "Bishop", "Knight"};
+            char[] choices = {'Q', 'R', 'B', 'N'};
+            boolean[] chosen = {false};
+            for (int i = 0; i < names.length; i++) {
+                char choice = choices[i];
+                JMenuItem item = new JMenuItem(names[i]);
+                item.addActionListener(e -> {
+                    chosen[0] = true;
+                    promote(from, to, choice);
+                });
+                menu.add(item);
             }
-
-            // Execute the move
-            board.movePiece(from, to);
-
-            // Handle pawn promotion
-            if (piece instanceof Pawn) {
-                int promotionRow = currentPlayer.equals("white") ? 0 : 7;
-                if (to.row == promotionRow) {
-                    handlePawnPromotion(to);
+            menu.addPopupMenuListener(new PopupMenuListener() {
+                @Override
+                public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
                 }
-            }
 
-            // Switch players
-            currentPlayer = currentPlayer.equals("white") ? "black" : "white";
-
-            // Check for checkmate or stalemate after switching players
-            if (!board.hasAnyLegalMoves(currentPlayer)) {
-                String message;
-                if (board.isInCheck(currentPlayer)) {
-                    // Checkmate - previous player wins
-                    String winner = currentPlayer.equals("white") ? "Black" : "White";
-                    message = "Checkmate! " + winner + " wins!";
-                } else {
-                    // Stalemate - draw
-                    message = "Stalemate! The game is a draw.";
+                @Override
+                public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
                 }
-                JOptionPane.showMessageDialog(this, message, "Game Over",
-                    JOptionPane.INFORMATION_MESSAGE);
-                System.exit(0);
-            }
-
-            // Update title with check notification
-            String title = "Chess Game - " + currentPlayer.substring(0, 1).toUpperCase() +
-                          currentPlayer.substring(1) + "'s turn";
-            if (board.isInCheck(currentPlayer)) {
-                title += " (Check!)";
-            }
-            setTitle(title);
 
-            repaint();
+                @Override
+                public void popupMenuCanceled(PopupMenuEvent e) {
+                    // Menu items fire after the menu closes, so wait for them before defaulting
+                    SwingUtilities.invokeLater(() -> {
+                        if (!chosen[0]) {
+                            promote(from, to, 'Q');
+                        }
+                    });
+                }
+            });
+            menu.show(this, to.col * SQUARE_SIZE, to.row * SQUARE_SIZE);
         }
 
         /**
-         * Displays a dialog for pawn promotion and replaces the pawn.
+         * Plays a promotion chosen from the promotion menu.
          */
-        private void handlePawnPromotion(Position position) {
-            String[] options = {"Queen", "Rook", "Bishop", "Knight"};
-            int choice = JOptionPane.showOptionDialog(
-                this,
-                "Promote pawn to:",
-                "Pawn Promotion",
-                JOptionPane.DEFAULT_OPTION,
-                JOptionPane.QUESTION_MESSAGE,
-                null,
-                options,
-                options[0]
-            );
-
-            Piece promotedPiece;
-            switch (choice) {
-                case 1:
-                    promotedPiece = new Rook(currentPlayer, position);
-                    break;
-                case 2:
-                    promotedPiece = new Bishop(currentPlayer, position);
-                    break;
-                case 3:
-                    promotedPiece = new Knight(currentPlayer, position);
-                    break;
-                default:
-                    promotedPiece = new Queen(currentPlayer, position);
-                    break;
+        private void promote(Position from, Position to, char choice) {
+            if (!promotionPending) {
+                return;
             }
-            board.setPiece(position, promotedPiece);
+            promotionPending = false;
+            new Move(from, to, choice).applyTo(board);
+            moveCompleted();
         }
 
         @Override
@@ -399,18 +615,38 @@ public class ChessGUI extends JFrame {
             Graphics2D g2d = (Graphics2D) g;
             g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-            // Draw board squares
-            for (int row = 0; row < 8; row++) {
-                for (int col = 0; col < 8; col++) {
-                    drawSquare(g2d, row, col);
+            // Only squares inside the clip need repainting
+            Rectangle clip = g2d.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            int firstCol = Math.max(0, clip.x / SQUARE_SIZE);
+            int lastCol = Math.min(7, (clip.x + clip.width - 1) / SQUARE_SIZE);
+            int firstRow = Math.max(0, clip.y / SQUARE_SIZE);
+            int lastRow = Math.min(7, (clip.y + clip.height - 1) / SQUARE_SIZE);
+
+            // Draw board squares from the cached background
+            renderer.drawBackground(g2d);
+            if (selectedPosition != null) {
+                renderer.drawSquare(g2d, selectedPosition.row, selectedPosition.col, SELECTED_COLOR);
+            }
+
+            // Highlight legal targets of the selected or dragged piece
+            Position origin = draggedFrom != null ? draggedFrom : selectedPosition;
+            if (origin != null) {
+                long targets = status.getTargetMask(origin);
+                g2d.setColor(VALID_MOVE_COLOR);
+                while (targets != 0) {
+                    int square = Long.numberOfTrailingZeros(targets);
+                    g2d.fillRect((square % 8) * SQUARE_SIZE, (square / 8) * SQUARE_SIZE, SQUARE_SIZE, SQUARE_SIZE);
+                    targets &= targets - 1;
                 }
             }
 
             // Draw pieces (except dragged piece)
-            for (int row = 0; row < 8; row++) {
-                for (int col = 0; col < 8; col++) {
-                    Position pos = new Position(row, col);
-                    if (draggedFrom == null || !pos.equals(draggedFrom)) {
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int col = firstCol; col <= lastCol; col++) {
+                    if (draggedFrom == null || draggedFrom.row != row || draggedFrom.col != col) {
                         drawPiece(g2d, row, col);
                     }
                 }
@@ -420,94 +656,81 @@ public class ChessGUI extends JFrame {
             if (draggedFrom != null && dragPoint != null) {
                 Piece draggedPiece = board.getPiece(draggedFrom);
                 if (draggedPiece != null) {
-                    String symbol = getPieceSymbol(draggedPiece);
-                    g2d.setFont(new Font("Arial Unicode MS", Font.PLAIN, 60));
-                    FontMetrics fm = g2d.getFontMetrics();
-                    g2d.setColor(draggedPiece.getColor().equals("white") ? Color.WHITE : Color.BLACK);
-                    g2d.drawString(symbol,
-                        dragPoint.x - fm.stringWidth(symbol) / 2,
-                        dragPoint.y + fm.getAscent() / 2);
+                    Rectangle bounds = dragBounds(dragPoint);
+                    renderer.drawPiece(g2d, draggedPiece, bounds.x, bounds.y);
                 }
             }
+
+            // Dim the finished game under its result
+            if (status != null && !statusPending && status.isGameOver()) {
+                drawGameOver(g2d);
+            }
         }
 
         /**
-         * Draws a single square on the board with appropriate coloring.
+         * Draws the game result over a dimmed board.
          */
-        private void drawSquare(Graphics2D g2d, int row, int col) {
-            Position pos = new Position(row, col);
-
-            // Determine square color
-            Color squareColor = (row + col) % 2 == 0 ? LIGHT_SQUARE : DARK_SQUARE;
-
-            // Highlight selected square
-            if (selectedPosition != null && selectedPosition.equals(pos)) {
-                squareColor = SELECTED_COLOR;
-            }
-
-            g2d.setColor(squareColor);
-            g2d.fillRect(col * SQUARE_SIZE, row * SQUARE_SIZE, SQUARE_SIZE, SQUARE_SIZE);
-
-            // Draw border
-            g2d.setColor(Color.BLACK);
-            g2d.drawRect(col * SQUARE_SIZE, row * SQUARE_SIZE, SQUARE_SIZE, SQUARE_SIZE);
-
-            // Draw coordinate labels only on outer edges
-            g2d.setFont(new Font("Arial", Font.BOLD, 11));
-            Color labelColor = (row + col) % 2 == 0 ? DARK_SQUARE : LIGHT_SQUARE;
-            g2d.setColor(labelColor);
+        private void drawGameOver(Graphics2D g2d) {
+            g2d.setColor(GAME_OVER_COLOR);
+            g2d.fillRect(0, 0, getWidth(), getHeight());
+            String message = status.getResultMessage();
+            g2d.setFont(getFont().deriveFont(Font.BOLD, 22f));
+            FontMetrics metrics = g2d.getFontMetrics();
+            g2d.setColor(Color.WHITE);
+            g2d.drawString(message, (getWidth() - metrics.stringWidth(message)) / 2,
+                (getHeight() + metrics.getAscent()) / 2);
+        }
 
-            // File labels (A-H) only on bottom rank (row 7)
-            if (row == 7) {
-                char file = (char) ('A' + col);
-                g2d.drawString(String.valueOf(file),
-                    col * SQUARE_SIZE + SQUARE_SIZE - 12,
-                    row * SQUARE_SIZE + SQUARE_SIZE - 3);
-            }
+        /**
+         * Gets the screen area covered by the dragged piece sprite at a cursor point.
+         * The sprite is placed so its glyph is centered on the cursor.
+         */
+        private Rectangle dragBounds(Point point) {
+            return new Rectangle(point.x - SQUARE_SIZE / 2, point.y - SQUARE_SIZE / 2 + 5,
+                SQUARE_SIZE, SQUARE_SIZE);
+        }
 
-            // Rank labels (1-8) only on leftmost file (col 0)
-            if (col == 0) {
-                int rank = 8 - row;
-                g2d.drawString(String.valueOf(rank),
-                    col * SQUARE_SIZE + 3,
-                    row * SQUARE_SIZE + 13);
+        /**
+         * Repaints the squares a piece can legally move to.
+         */
+        private void repaintTargets(Position from) {
+            for (Position target : status.getTargets(from)) {
+                repaint(squareBounds(target));
             }
         }
 
         /**
-         * Draws a chess piece at the specified position.
+         * Gets the screen area of a board square.
          */
-        private void drawPiece(Graphics2D g2d, int row, int col) {
-            Piece piece = board.getPiece(new Position(row, col));
-            if (piece == null) return;
-
-            String symbol = getPieceSymbol(piece);
-            g2d.setFont(new Font("Arial Unicode MS", Font.PLAIN, 60));
-            FontMetrics fm = g2d.getFontMetrics();
-
-            int x = col * SQUARE_SIZE + (SQUARE_SIZE - fm.stringWidth(symbol)) / 2;
-            int y = row * SQUARE_SIZE + (SQUARE_SIZE + fm.getAscent()) / 2 - 5;
-
-            // Draw piece with shadow for better visibility
-            g2d.setColor(piece.getColor().equals("white") ? Color.WHITE : Color.BLACK);
-            g2d.drawString(symbol, x, y);
+        private Rectangle squareBounds(Position pos) {
+            return new Rectangle(pos.col * SQUARE_SIZE, pos.row * SQUARE_SIZE, SQUARE_SIZE + 1, SQUARE_SIZE + 1);
         }
 
         /**
-         * Returns the Unicode symbol for a chess piece.
+         * Draws the piece on a board square, if any.
          */
-        private String getPieceSymbol(Piece piece) {
-            boolean isWhite = piece.getColor().equals("white");
-
-            if (piece instanceof King) return isWhite ? "♔" : "♚";
-            if (piece instanceof Queen) return isWhite ? "♕" : "♛";
-            if (piece instanceof Rook) return isWhite ? "♖" : "♜";
-            if (piece instanceof Bishop) return isWhite ? "♗" : "♝";
-            if (piece instanceof Knight) return isWhite ? "♘" : "♞";
-            if (piece instanceof Pawn) return isWhite ? "♙" : "♟";
+        private void drawPiece(Graphics2D g2d, int row, int col) {
+            renderer.drawPiece(g2d, board.getGrid()[row][col], col * SQUARE_SIZE, row * SQUARE_SIZE);
+        }
+    }
 
-            return "";
+    /**
+     * Works out why a move is not in the legal move set. Only runs when the player
+     * tries an illegal move, so it may recompute what it needs.
+     */
+    private static String illegalMoveReason(Board position, String color, boolean inCheck,
+                                            Position from, Position to) {
+        Piece piece = position.getPiece(from);
+        if (!MoveGenerator.pseudoLegalTargets(position, piece).contains(to)) {
+            return "Invalid move for that piece!";
+        }
+        if (position.wouldMoveLeaveKingInCheck(from, to, color)) {
+            return "That move would leave your king in check!";
+        }
+        if (MoveGenerator.isCastling(position, from, to)) {
+            return inCheck ? "Cannot castle while in check!" : "Cannot castle through check!";
         }
+        return "Invalid move for that piece!";
     }
 
     /**
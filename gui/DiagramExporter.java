@@ -0,0 +1,155 @@
+package gui;
+
+import board.Fen;
+import utils.Metrics;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+
+/**
+ * Renders positions given as FEN strings to PNG diagrams without a display.
+ * A single BoardRenderer (and its glyph cache) is shared by all worker threads,
+ * and each thread reuses one image buffer for every diagram it draws. FENs are
+ * read as a stream and handed to a bounded queue, so arbitrarily long inputs are
+ * processed in constant memory.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 2.0
+ */
+public class DiagramExporter {
+    private final BoardRenderer renderer;
+    private final Path outputDirectory;
+    private final ThreadLocal<BufferedImage> buffers;
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * Constructs an exporter writing into the given directory.
+     *
+     * @param outputDirectory the directory for the PNG files (created if missing)
+     * @param squareSize the size of one square in pixels
+     * @throws IOException if the directory cannot be created
+     */
+    public DiagramExporter(Path outputDirectory, int squareSize) throws IOException {
+        this.renderer = new BoardRenderer(squareSize);
+        this.outputDirectory = Files.createDirectories(outputDirectory);
+        final int size = renderer.getBoardSize();
+        this.buffers = ThreadLocal.withInitial(() -> new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB));
+        // Write PNGs straight to the file instead of through a temporary disk cache
+        ImageIO.setUseCache(false);
+    }
+
+    /**
+     * Renders one position and writes it as a PNG file.
+     *
+     * @param fen the position in FEN
+     * @param file the output file
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public void export(String fen, Path file) throws IOException {
+        BufferedImage image = buffers.get();
+        renderer.render(Fen.toBoard(fen), image);
+        if (!ImageIO.write(image, "png", file.toFile())) {
+            throw new IOException("No PNG writer available");
+        }
+    }
+
+    /**
+     * Renders every FEN read from a stream, one per line, using several threads.
+     * The n-th position is written to "diagram-n.png" (n counted from 1, zero-padded
+     * to six digits). Blank lines and lines starting with '#' are skipped but still
+     * counted, so file numbers match input line numbers. Malformed FENs are
+     * reported on standard error and do not stop the batch.
+     *
+     * @param fens the FEN source
+     * @param threads the number of worker threads
+     * @return the number of diagrams written
+     * @throws IOException if reading the input fails
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public int exportAll(BufferedReader fens, int threads) throws IOException, InterruptedException {
+        int startWritten = written.get();
+        // Bounded queue: when workers fall behind, the reader renders the next diagram itself
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(threads * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = fens.readLine()) != null) {
+                lineNumber++;
+                final String fen = line.trim();
+                if (fen.isEmpty() || fen.startsWith("#")) continue;
+                final int number = lineNumber;
+                pool.execute(() -> exportLine(fen, number));
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        return written.get() - startWritten;
+    }
+
+    /**
+     * Gets the number of positions that could not be rendered or written.
+     *
+     * @return the failure count
+     */
+    public int getFailures() {
+        return failed.get();
+    }
+
+    private void exportLine(String fen, int lineNumber) {
+        Path file = outputDirectory.resolve(String.format("diagram-%06d.png", lineNumber));
+        try {
+            export(fen, file);
+            written.incrementAndGet();
+        } catch (IOException | IllegalArgumentException e) {
+            failed.incrementAndGet();
+            System.err.println("Line " + lineNumber + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Exports diagrams from the command line.
+     * Usage: java gui.DiagramExporter &lt;fen-file|-&gt; &lt;output-dir&gt; [threads] [squareSize]
+     * A FEN file of "-" reads positions from standard input.
+     *
+     * @param args command line arguments
+     * @throws Exception if the input cannot be read or the output directory created
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: java gui.DiagramExporter <fen-file|-> <output-dir> [threads] [squareSize]");
+            return;
+        }
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int squareSize = args.length > 3 ? Integer.parseInt(args[3]) : 80;
+
+        DiagramExporter exporter = new DiagramExporter(Paths.get(args[1]), squareSize);
+        long start = System.nanoTime();
+        int count;
+        try (BufferedReader reader = args[0].equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            count = exporter.exportAll(reader, threads);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Wrote %d diagrams (%d failed) in %.1f s (%.1f diagrams/s on %d threads)%n",
+            count, exporter.getFailures(), seconds, count / seconds, threads);
+        Metrics.writeIfConfigured();
+    }
+}
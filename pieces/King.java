@@ -7,7 +7,8 @@ import java.util.List;
 /**
  * Represents a King chess piece.
  * Kings move one square in any direction (horizontally, vertically, or diagonally).
- * The King can also perform castling with a rook if neither piece has moved.
+ * Castling depends on the castling rights of the whole position, so the board
+ * generates it rather than the piece.
  *
  * @author Jacob Sierra and Robert Zamora
  * @version 1.0
@@ -24,10 +25,8 @@ public class King extends Piece {
     }
 
     /**
-     * Calculates all possible moves for this king, including castling.
-     * Normal moves: one square in any of 8 directions.
-     * Castling: if the king hasn't moved, can castle kingside or queenside
-     * with an unmoved rook if squares between them are empty.
+     * Calculates the king's steps: one square in any of 8 directions.
+     * Castling moves are added by the board's move generation.
      *
      * @param board the current board state
      * @return a list of all possible destination positions
@@ -50,28 +49,6 @@ public class King extends Piece {
                 }
             }
         }
-
-        // Castling
-        if (!hasMoved) {
-            int row = position.row;
-            // Kingside castling
-            Piece kingsideRook = board[row][7];
-            if (kingsideRook instanceof Rook && !kingsideRook.hasMoved() &&
-                kingsideRook.getColor().equals(color)) {
-                if (board[row][5] == null && board[row][6] == null) {
-                    moves.add(new Position(row, 6));
-                }
-            }
-            // Queenside castling
-            Piece queensideRook = board[row][0];
-            if (queensideRook instanceof Rook && !queensideRook.hasMoved() &&
-                queensideRook.getColor().equals(color)) {
-                if (board[row][1] == null && board[row][2] == null && board[row][3] == null) {
-                    moves.add(new Position(row, 2));
-                }
-            }
-        }
-
         return moves;
     }
 
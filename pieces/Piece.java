@@ -78,6 +78,16 @@ public abstract class Piece implements Serializable {
         return hasMoved;
     }
 
+    /**
+     * Sets the hasMoved flag directly without changing the position.
+     * Used when rebuilding a board from a compact snapshot or FEN record.
+     *
+     * @param hasMoved true if the piece should be treated as having moved
+     */
+    public void setHasMoved(boolean hasMoved) {
+        this.hasMoved = hasMoved;
+    }
+
     /**
      * Calculates all possible moves for this piece given the current board state.
      * This method must be implemented by each specific piece type.
@@ -0,0 +1,60 @@
+package players;
+
+import board.Board;
+import board.Move;
+import engine.BackgroundEngine;
+import engine.TimeManager;
+
+/**
+ * Lets the engine choose moves against a clock. Each move gets a budget from the
+ * TimeManager, and after moving the engine ponders on the opponent's expected
+ * reply while the opponent thinks.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class ClockedEngineMoveSource implements MoveSource {
+    private final BackgroundEngine engine;
+    private final TimeManager clock;
+
+    /**
+     * Constructs a clocked engine move source.
+     *
+     * @param engine the engine to search with
+     * @param clock the engine's clock
+     */
+    public ClockedEngineMoveSource(BackgroundEngine engine, TimeManager clock) {
+        this.engine = engine;
+        this.clock = clock;
+    }
+
+    /**
+     * Searches within the move's time budget, charges the clock and starts pondering.
+     *
+     * @param board the current board (not modified)
+     * @param color the color of the moving player
+     * @return the best move, including any promotion, or null if there is none
+     */
+    @Override
+    public String nextMove(Board board, String color) {
+        long start = System.nanoTime();
+        Move move = engine.think(board, color, clock.allocate()).join();
+        clock.moveMade((System.nanoTime() - start) / 1_000_000);
+        if (move == null) {
+            return null;
+        }
+        Board after = board.copy();
+        move.applyTo(after);
+        engine.ponder(after, color.equals("white") ? "black" : "white");
+        return move.toString();
+    }
+
+    /**
+     * Gets the engine's clock.
+     *
+     * @return the clock
+     */
+    public TimeManager getClock() {
+        return clock;
+    }
+}
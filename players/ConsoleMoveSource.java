@@ -0,0 +1,67 @@
+package players;
+
+import board.Board;
+import position.Position;
+import java.io.PrintStream;
+import java.util.Scanner;
+
+/**
+ * Reads moves typed by a person, prompting on a console stream.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class ConsoleMoveSource implements MoveSource {
+    private final Scanner scanner;
+    private final PrintStream out;
+
+    /**
+     * Constructs a console move source.
+     *
+     * @param scanner the Scanner to read moves from
+     * @param out the stream for prompts and messages
+     */
+    public ConsoleMoveSource(Scanner scanner, PrintStream out) {
+        this.scanner = scanner;
+        this.out = out;
+    }
+
+    /**
+     * Prompts for and reads the next move.
+     *
+     * @param board the current board
+     * @param color the color of the moving player
+     * @return the line typed, or null at end of input
+     */
+    @Override
+    public String nextMove(Board board, String color) {
+        out.print(color.substring(0, 1).toUpperCase() + color.substring(1) + " to move: ");
+        return scanner.hasNextLine() ? scanner.nextLine() : null;
+    }
+
+    /**
+     * Prompts for the promotion piece. Anything other than R, B or N means a queen.
+     *
+     * @param board the board after the pawn has moved
+     * @param color the color of the promoting player
+     * @param square the promotion square
+     * @return 'Q', 'R', 'B' or 'N'
+     */
+    @Override
+    public char choosePromotion(Board board, String color, Position square) {
+        out.println("Pawn promotion! Choose piece (Q/R/B/N): ");
+        String choice = scanner.hasNextLine() ? scanner.nextLine().trim().toUpperCase() : "";
+        return choice.length() == 1 && "RBN".indexOf(choice.charAt(0)) >= 0 ? choice.charAt(0) : 'Q';
+    }
+
+    /**
+     * Prints the reason the last move was rejected.
+     *
+     * @param result the reason the move was rejected
+     * @param message the message explaining the rejection
+     */
+    @Override
+    public void moveRejected(MoveResult result, String message) {
+        out.println(message);
+    }
+}
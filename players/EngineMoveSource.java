@@ -0,0 +1,40 @@
+package players;
+
+import board.Board;
+import board.Move;
+import engine.Searcher;
+
+/**
+ * Lets the engine choose the moves with a fixed-depth search.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class EngineMoveSource implements MoveSource {
+    private final Searcher searcher;
+    private final int depth;
+
+    /**
+     * Constructs an engine move source.
+     *
+     * @param searcher the searcher to use (one per thread)
+     * @param depth the search depth in plies
+     */
+    public EngineMoveSource(Searcher searcher, int depth) {
+        this.searcher = searcher;
+        this.depth = depth;
+    }
+
+    /**
+     * Searches the position and returns the best move.
+     *
+     * @param board the current board (not modified)
+     * @param color the color of the moving player
+     * @return the best move, including any promotion, or null if there is none
+     */
+    @Override
+    public String nextMove(Board board, String color) {
+        Move move = searcher.findBestMove(board, color, depth);
+        return move == null ? null : move.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package players;
+
+import position.Position;
+
+/**
+ * Outcome of validating a move entered as text. Every rejection carries the
+ * message shown to a console player, so front-ends decide whether and where to
+ * print it.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public enum MoveResult {
+    /** The move is legal. */
+    OK(""),
+    /** The input is not of the form "E2 E4" (optionally followed by Q, R, B or N). */
+    INVALID_FORMAT("Invalid input format. Please use the format: E2 E4."),
+    /** The starting square is empty. */
+    NO_PIECE("No piece at %s"),
+    /** The starting square holds an opponent's piece. */
+    NOT_YOUR_PIECE("You can only move your own pieces."),
+    /** The piece cannot move to the destination. */
+    ILLEGAL_FOR_PIECE("Invalid move for that piece."),
+    /** The move would leave the mover's king attacked. */
+    LEAVES_KING_IN_CHECK("That move would leave your king in check."),
+    /** The king tried to castle while in check. */
+    CASTLING_IN_CHECK("Cannot castle while in check."),
+    /** The king tried to castle across an attacked square. */
+    CASTLING_THROUGH_CHECK("Cannot castle through check."),
+    /** A promotion piece was given for a move that is not a pawn reaching the last rank. */
+    NOT_A_PROMOTION("Only a pawn reaching the last rank can promote."),
+    /** The move source has no more moves. */
+    END_OF_INPUT("No more moves.");
+
+    private final String message;
+
+    MoveResult(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Checks whether this result accepts the move.
+     *
+     * @return true for OK
+     */
+    public boolean isLegal() {
+        return this == OK;
+    }
+
+    /**
+     * Gets the message explaining this result.
+     *
+     * @param from the starting square of the move, used by NO_PIECE (may be null otherwise)
+     * @return the message (empty for OK)
+     */
+    public String getMessage(Position from) {
+        return this == NO_PIECE ? String.format(message, from) : message;
+    }
+}
@@ -0,0 +1,46 @@
+package players;
+
+import board.Board;
+import position.Position;
+
+/**
+ * Supplies a player's moves as text in console notation ("E2 E4", optionally
+ * followed by a promotion piece). Implementations read from the console, a
+ * script, a network stream or an engine; validation is left to the Player.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public interface MoveSource {
+    /**
+     * Gets the next move for the side to move.
+     *
+     * @param board the current board (must not be modified)
+     * @param color the color of the moving player
+     * @return the move text, or null if the source has no more moves
+     */
+    String nextMove(Board board, String color);
+
+    /**
+     * Chooses the piece for a promotion whose move text did not name one.
+     * Defaults to a queen.
+     *
+     * @param board the board after the pawn has moved
+     * @param color the color of the promoting player
+     * @param square the promotion square
+     * @return 'Q', 'R', 'B' or 'N'
+     */
+    default char choosePromotion(Board board, String color, Position square) {
+        return 'Q';
+    }
+
+    /**
+     * Reports that the last move was rejected. Sources with a user behind them
+     * show the message; others ignore it.
+     *
+     * @param result the reason the move was rejected
+     * @param message the message explaining the rejection
+     */
+    default void moveRejected(MoveResult result, String message) {
+    }
+}
@@ -0,0 +1,112 @@
+package players;
+
+import board.Board;
+import board.Move;
+import board.MoveGenerator;
+import pieces.Piece;
+import position.Position;
+import utils.Metrics;
+import utils.Utilities;
+
+/**
+ * Parses and validates moves without any input or output, so the same rules serve
+ * the console, the game server and batch replays. Moves are written as in the
+ * console game ("E2 E4"), optionally followed by a promotion piece ("E7 E8 N").
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class MoveValidator {
+    /**
+     * Parses a move in console notation.
+     *
+     * @param input the text, case-insensitive (e.g., "e2 e4" or "E7 E8 Q")
+     * @return the move, or null if the text is not a move
+     */
+    public static Move parse(String input) {
+        long start = Metrics.start();
+        Move move = parseMove(input);
+        Metrics.record(Metrics.Phase.PARSE, start);
+        return move;
+    }
+
+    private static Move parseMove(String input) {
+        if (input == null) return null;
+        String[] parts = input.trim().toUpperCase().split("\\s+");
+        if (parts.length < 2 || parts.length > 3
+                || !Utilities.isValidNotation(parts[0]) || !Utilities.isValidNotation(parts[1])) {
+            return null;
+        }
+        char promotion = ' ';
+        if (parts.length == 3) {
+            if (parts[2].length() != 1 || "QRBN".indexOf(parts[2].charAt(0)) < 0) {
+                return null;
+            }
+            promotion = parts[2].charAt(0);
+        }
+        return new Move(Utilities.notationToPosition(parts[0]), Utilities.notationToPosition(parts[1]), promotion);
+    }
+
+    /**
+     * Checks whether a player may make a move. The board is not changed.
+     *
+     * @param board the current board
+     * @param color the color of the moving player
+     * @param from the starting square
+     * @param to the destination square
+     * @return OK, or the reason the move is rejected
+     */
+    public static MoveResult validate(Board board, String color, Position from, Position to) {
+        Piece piece = board.getPiece(from);
+        if (piece == null) {
+            return MoveResult.NO_PIECE;
+        }
+        if (!piece.getColor().equals(color)) {
+            return MoveResult.NOT_YOUR_PIECE;
+        }
+        if (!MoveGenerator.pseudoLegalTargets(board, piece).contains(to)) {
+            return MoveResult.ILLEGAL_FOR_PIECE;
+        }
+        if (board.wouldMoveLeaveKingInCheck(from, to, color)) {
+            return MoveResult.LEAVES_KING_IN_CHECK;
+        }
+        if (MoveGenerator.isCastling(board, from, to) && !MoveGenerator.isCastlingPathSafe(board, from, to, color)) {
+            return board.isInCheck(color) ? MoveResult.CASTLING_IN_CHECK : MoveResult.CASTLING_THROUGH_CHECK;
+        }
+        return MoveResult.OK;
+    }
+
+    /**
+     * Checks whether a player may make a parsed move, including its promotion piece:
+     * one may only be given when a pawn reaches the last rank. The board is not changed.
+     *
+     * @param board the current board
+     * @param color the color of the moving player
+     * @param move the move
+     * @return OK, or the reason the move is rejected
+     */
+    public static MoveResult validate(Board board, String color, Move move) {
+        MoveResult result = validate(board, color, move.getFrom(), move.getTo());
+        if (result.isLegal() && move.getPromotion() != ' '
+                && !MoveGenerator.isPromotion(board.getPiece(move.getFrom()), move.getTo())) {
+            return MoveResult.NOT_A_PROMOTION;
+        }
+        return result;
+    }
+
+    /**
+     * Parses a move and checks whether a player may make it.
+     *
+     * @param board the current board
+     * @param color the color of the moving player
+     * @param input the move in console notation
+     * @return OK, or the reason the move is rejected
+     */
+    public static MoveResult validate(Board board, String color, String input) {
+        Move move = parse(input);
+        if (move == null) {
+            return MoveResult.INVALID_FORMAT;
+        }
+        return validate(board, color, move);
+    }
+}
@@ -1,20 +1,23 @@
 package players;
 
 import board.Board;
-import pieces.*;
-import position.Position;
-import utils.Utilities;
+import board.Move;
+import board.MoveGenerator;
+import pieces.Piece;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
-import java.util.List;
 
 /**
  * Represents a chess player. Handles move input, validation, and pawn promotion.
+ * Moves come from a MoveSource (console, script, network stream or engine) and are
+ * checked by MoveValidator, so the same rules apply however the move is entered.
  *
  * @author Jacob Sierra and Robert Zamora
  * @version 1.0
  */
 public class Player {
     private final String color;
+    private final MoveSource moveSource;
 
     /**
      * Constructs a new player with the specified color.
@@ -22,7 +25,18 @@ public class Player {
      * @param color the color of this player ("white" or "black")
      */
     public Player(String color) {
+        this(color, null);
+    }
+
+    /**
+     * Constructs a new player with the specified color whose moves come from a source.
+     *
+     * @param color the color of this player ("white" or "black")
+     * @param moveSource where the player's moves come from
+     */
+    public Player(String color, MoveSource moveSource) {
         this.color = color;
+        this.moveSource = moveSource;
     }
 
     /**
@@ -35,83 +49,80 @@ public class Player {
     }
 
     /**
-     * Prompts the player to make a move and validates it. Handles:
+     * Gets the source of this player's moves.
+     *
+     * @return the move source, or null if moves are read with a Scanner
+     */
+    public MoveSource getMoveSource() {
+        return moveSource;
+    }
+
+    /**
+     * Takes the next move from this player's move source, validates it and plays it.
+     *
+     * @param board the game board
+     * @return OK if the move was played, otherwise the reason it was not
+     * @throws IllegalStateException if the player has no move source
+     */
+    public MoveResult makeMove(Board board) {
+        if (moveSource == null) {
+            throw new IllegalStateException("Player has no move source");
+        }
+        return makeMove(board, moveSource);
+    }
+
+    /**
+     * Takes the next move from a move source, validates it and plays it. Handles:
      * - Move input parsing (algebraic notation)
      * - Piece ownership verification
      * - Move legality validation
      * - Check prevention
      * - Pawn promotion when a pawn reaches the opposite end
+     * A rejected move leaves the board unchanged and is reported to the source.
      *
      * @param board the game board
-     * @param scanner Scanner for reading player input
-     * @return true if a valid move was made, false if the input was invalid
+     * @param source where the move comes from
+     * @return OK if the move was played, otherwise the reason it was not
      */
-    public boolean makeMove(Board board, Scanner scanner) {
-        System.out.print(color.substring(0, 1).toUpperCase() + color.substring(1) + " to move: ");
-        String input = scanner.nextLine().trim().toUpperCase();
-        String[] parts = input.split(" ");
-        if (parts.length != 2 || !Utilities.isValidNotation(parts[0]) || !Utilities.isValidNotation(parts[1])) {
-            System.out.println("Invalid input format. Please use the format: E2 E4.");
-            return false;
+    public MoveResult makeMove(Board board, MoveSource source) {
+        String input = source.nextMove(board, color);
+        if (input == null) {
+            return MoveResult.END_OF_INPUT;
         }
-        Position from = Utilities.notationToPosition(parts[0]);
-        Position to = Utilities.notationToPosition(parts[1]);
-        Piece piece = board.getPiece(from);
-        if (piece == null) {
-            System.out.println("No piece at " + parts[0]);
-            return false;
-        }
-        if (!piece.getColor().equals(this.color)) {
-            System.out.println("You can only move your own pieces.");
-            return false;
+        Move move = MoveValidator.parse(input);
+        MoveResult result = move == null
+            ? MoveResult.INVALID_FORMAT
+            : MoveValidator.validate(board, color, move);
+        if (!result.isLegal()) {
+            source.moveRejected(result, result.getMessage(move == null ? null : move.getFrom()));
+            return result;
         }
 
-        List<Position> validMoves;
-        if (piece instanceof Pawn) {
-            validMoves = ((Pawn) piece).possibleMovesWithEnPassant(board.getGrid(), board.getEnPassantTarget());
+        Piece piece = board.getPiece(move.getFrom());
+        if (MoveGenerator.isPromotion(piece, move.getTo()) && move.getPromotion() == ' ') {
+            board.movePiece(move.getFrom(), move.getTo());
+            char choice = source.choosePromotion(board, color, move.getTo());
+            board.setPiece(move.getTo(), Move.createPromotionPiece(choice, color, move.getTo()));
         } else {
-            validMoves = piece.possibleMoves(board.getGrid());
+            move.applyTo(board);
         }
+        return MoveResult.OK;
+    }
 
-        if (!validMoves.contains(to)) {
-             System.out.println("Invalid move for that piece.");
-             return false;
-        }
-
-        // Check if move would leave king in check
-        if (board.wouldMoveLeaveKingInCheck(from, to, color)) {
-            System.out.println("That move would leave your king in check.");
-            return false;
-        }
-
-        board.movePiece(from, to);
-
-        // Handle pawn promotion
-        if (piece instanceof Pawn) {
-            int promotionRow = color.equals("white") ? 0 : 7;
-            if (to.row == promotionRow) {
-                System.out.println("Pawn promotion! Choose piece (Q/R/B/N): ");
-                String choice = scanner.nextLine().trim().toUpperCase();
-                Piece promotedPiece;
-                switch (choice) {
-                    case "R":
-                        promotedPiece = new Rook(color, to);
-                        break;
-                    case "B":
-                        promotedPiece = new Bishop(color, to);
-                        break;
-                    case "N":
-                        promotedPiece = new Knight(color, to);
-                        break;
-                    case "Q":
-                    default:
-                        promotedPiece = new Queen(color, to);
-                        break;
-                }
-                board.setPiece(to, promotedPiece);
-            }
+    /**
+     * Prompts the player on the console to make a move and validates it.
+     * Equivalent to makeMove with a ConsoleMoveSource on System.out.
+     *
+     * @param board the game board
+     * @param scanner Scanner for reading player input
+     * @return true if a valid move was made, false if the input was invalid
+     * @throws java.util.NoSuchElementException if the input is exhausted
+     */
+    public boolean makeMove(Board board, Scanner scanner) {
+        MoveResult result = makeMove(board, new ConsoleMoveSource(scanner, System.out));
+        if (result == MoveResult.END_OF_INPUT) {
+            throw new NoSuchElementException("No line found");
         }
-
-        return true;
+        return result.isLegal();
     }
 }
@@ -0,0 +1,46 @@
+package players;
+
+import board.Board;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Plays a fixed list of moves, e.g. from a recorded game file, without any
+ * input or output. Promotions not named in the move text become queens.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class ScriptedMoveSource implements MoveSource {
+    private final Iterator<String> moves;
+
+    /**
+     * Constructs a source that plays the given moves in order.
+     *
+     * @param moves the moves in console notation
+     */
+    public ScriptedMoveSource(List<String> moves) {
+        this(moves.iterator());
+    }
+
+    /**
+     * Constructs a source that plays moves from an iterator in order.
+     *
+     * @param moves the moves in console notation
+     */
+    public ScriptedMoveSource(Iterator<String> moves) {
+        this.moves = moves;
+    }
+
+    /**
+     * Gets the next scripted move.
+     *
+     * @param board the current board
+     * @param color the color of the moving player
+     * @return the next move, or null when the script is exhausted
+     */
+    @Override
+    public String nextMove(Board board, String color) {
+        return moves.hasNext() ? moves.next() : null;
+    }
+}
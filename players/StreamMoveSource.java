@@ -0,0 +1,90 @@
+package players;
+
+import board.Board;
+import position.Position;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Reads moves line by line from a character stream, such as a socket, with
+ * optional prompts written back to the other end. A read or write failure is
+ * treated as the end of input.
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class StreamMoveSource implements MoveSource {
+    private final BufferedReader in;
+    private final Writer out;
+
+    /**
+     * Constructs a stream move source.
+     *
+     * @param in the stream to read moves from, one per line
+     * @param out the stream for prompts and messages, or null for none
+     */
+    public StreamMoveSource(BufferedReader in, Writer out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    /**
+     * Reads the next move, prompting first if there is an output stream.
+     *
+     * @param board the current board
+     * @param color the color of the moving player
+     * @return the line read, or null at end of input
+     */
+    @Override
+    public String nextMove(Board board, String color) {
+        try {
+            send(color.substring(0, 1).toUpperCase() + color.substring(1) + " to move: ");
+            return in.readLine();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the promotion piece. Anything other than R, B or N means a queen.
+     *
+     * @param board the board after the pawn has moved
+     * @param color the color of the promoting player
+     * @param square the promotion square
+     * @return 'Q', 'R', 'B' or 'N'
+     */
+    @Override
+    public char choosePromotion(Board board, String color, Position square) {
+        try {
+            send("Pawn promotion! Choose piece (Q/R/B/N): \n");
+            String choice = in.readLine();
+            choice = choice == null ? "" : choice.trim().toUpperCase();
+            return choice.length() == 1 && "RBN".indexOf(choice.charAt(0)) >= 0 ? choice.charAt(0) : 'Q';
+        } catch (IOException e) {
+            return 'Q';
+        }
+    }
+
+    /**
+     * Sends the reason the last move was rejected.
+     *
+     * @param result the reason the move was rejected
+     * @param message the message explaining the rejection
+     */
+    @Override
+    public void moveRejected(MoveResult result, String message) {
+        try {
+            send(message + "\n");
+        } catch (IOException e) {
+            // Reported as end of input by the next read
+        }
+    }
+
+    private void send(String text) throws IOException {
+        if (out != null) {
+            out.write(text);
+            out.flush();
+        }
+    }
+}
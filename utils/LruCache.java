@@ -0,0 +1,233 @@
+package utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A size-bounded, thread-safe cache that evicts the least recently used entries
+ * and expires entries a fixed time after they were stored. The cache is split
+ * into independently locked segments (each an access-ordered LinkedHashMap), so
+ * threads working on different keys rarely wait for each other. Hits, misses,
+ * evictions and expirations are counted for monitoring.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class LruCache<K, V> {
+    private final Segment<K, V>[] segments;
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * A stored value with its expiry time.
+     */
+    private static final class Stored<V> {
+        final V value;
+        final long expiresAt;
+
+        Stored(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * One locked part of the cache.
+     */
+    private static final class Segment<K, V> extends LinkedHashMap<K, Stored<V>> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Stored<V>> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Constructs a cache.
+     *
+     * @param maxEntries the maximum number of entries (at least 1)
+     * @param ttlMillis how long an entry stays valid after it is stored, or 0 for no expiry
+     */
+    @SuppressWarnings("unchecked")
+    public LruCache(int maxEntries, long ttlMillis) {
+        int count = Math.max(1, Math.min(16, maxEntries / 64));
+        segments = (Segment<K, V>[]) new Segment<?, ?>[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(Math.max(1, (maxEntries + count - 1) / count), evictions);
+        }
+        this.ttlNanos = ttlMillis <= 0 ? 0 : ttlMillis * 1_000_000L;
+    }
+
+    /**
+     * Gets a cached value and marks it as recently used.
+     *
+     * @param key the key
+     * @return the value, or null if it is missing or has expired
+     */
+    public V get(K key) {
+        return get(key, value -> true);
+    }
+
+    /**
+     * Gets a cached value if it passes a check, for callers that verify entries
+     * (against key collisions, for example). A rejected entry counts as a miss and
+     * is left in place for the caller to replace.
+     *
+     * @param key the key
+     * @param valid the check the value must pass
+     * @return the value, or null if it is missing, has expired or was rejected
+     */
+    public V get(K key, Predicate<? super V> valid) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Stored<V> entry = segment.get(key);
+            if (entry != null && ttlNanos != 0 && System.nanoTime() - entry.expiresAt > 0) {
+                segment.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null || !valid.test(entry.value)) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Stores a value, replacing any previous value for the key.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        Stored<V> entry = new Stored<>(value, System.nanoTime() + ttlNanos);
+        synchronized (segment) {
+            segment.put(key, entry);
+        }
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param key the key
+     */
+    public void remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * Removes every entry. Statistics are kept.
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of entries, including expired ones not yet removed.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of lookups that found a valid entry.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that found nothing or an expired entry.
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of entries dropped to stay within the size limit.
+     *
+     * @return the eviction count
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the number of entries dropped because they were too old.
+     *
+     * @return the expiration count
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * Gets the fraction of lookups that were hits.
+     *
+     * @return the hit rate between 0 and 1 (0 before any lookup)
+     */
+    public double getHitRate() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Returns a summary such as "size=120 hits=9000 misses=1000 (90.0% hit rate) ...".
+     *
+     * @return the statistics
+     */
+    @Override
+    public String toString() {
+        return String.format("size=%d hits=%d misses=%d (%.1f%% hit rate) evictions=%d expirations=%d",
+            size(), getHits(), getMisses(), getHitRate() * 100, getEvictions(), getExpirations());
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return segments[(h & 0x7FFFFFFF) % segments.length];
+    }
+}
@@ -0,0 +1,383 @@
+package utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lightweight timing of the phases of a move: input parsing, move generation,
+ * check simulation, end-of-turn legal move scans and rendering. Each phase keeps a
+ * call count and a latency histogram with logarithmic buckets (eight per power of
+ * two, so every value is within 12.5%), updated lock-free from any thread.
+ *
+ * Instrumentation is off unless the system property chess.metrics is "true" or
+ * {@link #setEnabled(boolean)} is called; when off, a timed call costs one volatile
+ * read. Phases can nest (generating moves runs check simulations), so times are
+ * inclusive. Snapshots can be exported as JSON or in the Prometheus text format.
+ *
+ * Typical use:
+ * <pre>
+ *     long start = Metrics.start();
+ *     ... timed work ...
+ *     Metrics.record(Metrics.Phase.PARSE, start);
+ * </pre>
+ *
+ * @author Jacob Sierra and Robert Zamora
+ * @version 1.0
+ */
+public class Metrics {
+    /**
+     * The timed phases of a move.
+     */
+    public enum Phase {
+        /** Parsing a move from text. */
+        PARSE("parse"),
+        /** Generating the legal moves of a side or a piece. */
+        MOVE_GENERATION("move_generation"),
+        /** Simulating a move to test whether it leaves the king in check. */
+        CHECK_SIMULATION("check_simulation"),
+        /** Scanning for any legal move at the end of a turn. */
+        LEGAL_MOVE_SCAN("legal_move_scan"),
+        /** Drawing a board as text or as an image. */
+        RENDER("render");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Gets the name used for this phase in exported metrics.
+         *
+         * @return the lowercase label
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final Histogram[] HISTOGRAMS = new Histogram[Phase.values().length];
+    private static volatile boolean enabled = Boolean.getBoolean("chess.metrics");
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new Histogram();
+        }
+    }
+
+    /**
+     * A latency histogram. Values are nanoseconds; bucket i covers a range whose
+     * width is one eighth of its lower bound, except for the first eight buckets,
+     * which hold 0 to 7 exactly.
+     */
+    public static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        Histogram() {
+            buckets = new AtomicLongArray(BUCKETS);
+        }
+
+        /**
+         * Records one value.
+         *
+         * @param nanos the duration in nanoseconds (negative values count as 0)
+         */
+        void record(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets.incrementAndGet(bucketOf(value));
+            count.increment();
+            total.add(value);
+            long previous = max.get();
+            while (value > previous && !max.compareAndSet(previous, value)) {
+                previous = max.get();
+            }
+        }
+
+        /**
+         * Gets the number of recorded values.
+         *
+         * @return the count
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Gets the sum of all recorded values.
+         *
+         * @return the total in nanoseconds
+         */
+        public long getTotalNanos() {
+            return total.sum();
+        }
+
+        /**
+         * Gets the largest recorded value.
+         *
+         * @return the maximum in nanoseconds
+         */
+        public long getMaxNanos() {
+            return max.get();
+        }
+
+        /**
+         * Gets the mean of the recorded values.
+         *
+         * @return the mean in nanoseconds, or 0 if nothing was recorded
+         */
+        public double getMeanNanos() {
+            long n = getCount();
+            return n == 0 ? 0 : (double) getTotalNanos() / n;
+        }
+
+        /**
+         * Gets an upper bound for a quantile: the value at or below which the
+         * given fraction of recordings fall, rounded up to its bucket's limit.
+         *
+         * @param quantile the fraction, between 0 and 1
+         * @return the quantile in nanoseconds, or 0 if nothing was recorded
+         */
+        public long getQuantileNanos(double quantile) {
+            long n = 0;
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                n += counts[i];
+            }
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * n));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), getMaxNanos());
+                }
+            }
+            return getMaxNanos();
+        }
+
+        /**
+         * Creates a copy of this histogram's current contents.
+         *
+         * @return an independent histogram
+         */
+        public Histogram copy() {
+            Histogram copy = new Histogram();
+            for (int i = 0; i < BUCKETS; i++) {
+                copy.buckets.set(i, buckets.get(i));
+            }
+            copy.count.add(count.sum());
+            copy.total.add(total.sum());
+            copy.max.set(max.get());
+            return copy;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            total.reset();
+            max.set(0);
+        }
+
+        static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        static long lowerBound(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long sub = bucket % SUB_BUCKETS;
+            return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+        }
+
+        static long upperBound(int bucket) {
+            return bucket + 1 < BUCKETS ? lowerBound(bucket + 1) - 1 : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Checks whether instrumentation is on.
+     *
+     * @return true if phases are being timed
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns instrumentation on or off. Recorded data is kept.
+     *
+     * @param on true to start timing phases
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Starts timing a phase.
+     *
+     * @return the start time to pass to {@link #record(Phase, long)}, or 0 if disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Finishes timing a phase started with {@link #start()}.
+     *
+     * @param phase the phase that ran
+     * @param start the value returned by start()
+     */
+    public static void record(Phase phase, long start) {
+        if (start != 0L) {
+            HISTOGRAMS[phase.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Clears all recorded data.
+     */
+    public static void reset() {
+        for (Histogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Copies the current data of every phase.
+     *
+     * @return a histogram per phase, unaffected by later recordings
+     */
+    public static Map<Phase, Histogram> snapshot() {
+        Map<Phase, Histogram> snapshot = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            snapshot.put(phase, HISTOGRAMS[phase.ordinal()].copy());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Formats a snapshot of all phases as a JSON object.
+     *
+     * @return the JSON text
+     */
+    public static String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"enabled\": ").append(enabled).append(",\n  \"phases\": {");
+        boolean first = true;
+        for (Map.Entry<Phase, Histogram> entry : snapshot().entrySet()) {
+            Histogram h = entry.getValue();
+            sb.append(first ? "\n" : ",\n");
+            first = false;
+            sb.append("    \"").append(entry.getKey().getLabel()).append("\": {")
+                .append("\"count\": ").append(h.getCount())
+                .append(", \"total_ns\": ").append(h.getTotalNanos())
+                .append(", \"mean_ns\": ").append(String.format(Locale.ROOT, "%.1f", h.getMeanNanos()));
+            for (double q : QUANTILES) {
+                sb.append(", \"p").append(quantileName(q)).append("_ns\": ").append(h.getQuantileNanos(q));
+            }
+            sb.append(", \"max_ns\": ").append(h.getMaxNanos()).append('}');
+        }
+        sb.append("\n  }\n}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Formats a snapshot of all phases in the Prometheus text exposition format,
+     * as a summary named chess_phase_seconds with a "phase" label.
+     *
+     * @return the Prometheus text
+     */
+    public static String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# HELP chess_phase_seconds Time spent in each phase of a move.\n");
+        sb.append("# TYPE chess_phase_seconds summary\n");
+        for (Map.Entry<Phase, Histogram> entry : snapshot().entrySet()) {
+            String label = entry.getKey().getLabel();
+            Histogram h = entry.getValue();
+            for (double q : QUANTILES) {
+                sb.append("chess_phase_seconds{phase=\"").append(label).append("\",quantile=\"")
+                    .append(q).append("\"} ").append(seconds(h.getQuantileNanos(q))).append('\n');
+            }
+            sb.append("chess_phase_seconds_sum{phase=\"").append(label).append("\"} ")
+                .append(seconds(h.getTotalNanos())).append('\n');
+            sb.append("chess_phase_seconds_count{phase=\"").append(label).append("\"} ")
+                .append(h.getCount()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes a snapshot to a file, as JSON if the name ends in ".json" and in the
+     * Prometheus text format otherwise. The file is replaced atomically, so a
+     * collector reading it never sees a partial write.
+     *
+     * @param file the output file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file) throws IOException {
+        String text = file.toString().endsWith(".json") ? toJson() : toPrometheus();
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), ".metrics", ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(text);
+            }
+            try {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes a snapshot to the file named by the system property chess.metrics.file,
+     * if it is set and instrumentation is on. Command-line tools call this when done.
+     */
+    public static void writeIfConfigured() {
+        String file = System.getProperty("chess.metrics.file");
+        if (!enabled || file == null) return;
+        try {
+            write(Paths.get(file));
+        } catch (IOException e) {
+            System.err.println("Could not write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static String quantileName(double q) {
+        String digits = String.valueOf(q).substring(2);
+        return digits.length() == 1 ? digits + "0" : digits;
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}